@@ -0,0 +1,507 @@
+package com.autlos.sgf.tests;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import com.autlos.sgf.BasicLabel;
+import com.autlos.sgf.GuiElement;
+import com.autlos.sgf.RenderQueue;
+import com.autlos.sgf.WorldCamera;
+import com.autlos.sgf.metrics.Counter;
+import com.autlos.sgf.metrics.Gauge;
+import com.autlos.sgf.metrics.Histogram;
+import com.autlos.sgf.metrics.HitRate;
+import com.autlos.sgf.metrics.MetricsRegistry;
+import com.autlos.sgf.models.BasicProjectile;
+import com.autlos.sgf.models.Entity;
+import com.autlos.sgf.models.MoveableEntity;
+import com.autlos.sgf.screens.ScreenController;
+import com.autlos.sgf.screens.ScreenController.PointerAction;
+import com.autlos.sgf.ui.Table;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Fails if a hot path allocates once it's warmed up: the update of entities, moveable entities and projectiles, {@code Table.drawTable}
+ * into a {@link RenderQueue} (which records the draws without a batch) and into a batch that draws nothing (see {@link HeadlessAssets}),
+ * with and without a camera, {@code BasicLabel.setValue} with a new value every frame and the draw of the label, the touch dispatch of a
+ * {@link ScreenController} and the updates of the metrics, which stay on in production. Each one is run until the pools and buffers have
+ * grown and the JIT has compiled it, and then the bytes allocated by the thread are measured over many more runs, 3 times. One attempt
+ * can allocate (the JIT deoptimized the path and compiles it again), more is a failure.
+ * <p>
+ * It needs no GL nor backend: run the main on a plain JVM (a HotSpot one, which can count the allocated bytes). The exit code is 1 if
+ * something allocates, so it can be run before each commit.
+ *
+ * @author Autlos
+ *
+ */
+public class AllocationCheck {
+	private static final int SIZE = 1000;
+	private static final int WARMUP_RUNS = 100000;
+	private static final int MEASURED_RUNS = 20000;
+	// The JIT can deoptimize a warmed up path and allocate a few objects once. A path that allocates does it in every attempt.
+	private static final int ATTEMPTS = 3;
+	private static final int ALLOWED_ALLOCATING_ATTEMPTS = 1;
+	private static final float DELTA = 1 / 60f;
+
+	private static final TextureRegion REGION = new TextureRegion();
+
+	private static class Sprite extends Entity {
+		public Sprite(Vector2 position) {
+			super(REGION, position, 0f);
+			setAnimation(new Animation(0.1f, REGION, REGION, REGION, REGION));
+		}
+	}
+
+	private static class Mover extends MoveableEntity {
+		public Mover(Vector2 position) {
+			super(REGION, position, 100f, 0f);
+			setRotatingSide(RotationDirection.LEFT);
+			setRotationSpeed(90f);
+		}
+
+		@Override
+		public void update(float delta) {
+			savePreviousState();
+			position.x += SPEED * delta;
+			checkReversePositions(0f, 0f, 800f, 480f);
+			super.update(delta);
+		}
+	}
+
+	/**
+	 * A hot path to check.
+	 */
+	private static abstract class Check {
+		private final String name;
+
+		public Check(String name) {
+			this.name = name;
+		}
+
+		/**
+		 * Creates the objects for the size. Not measured.
+		 *
+		 * @param size
+		 */
+		public void setup(int size) {
+		}
+
+		/**
+		 * One run of the path.
+		 *
+		 * @return anything computed by the run, so it's not optimized away.
+		 */
+		public abstract long run();
+
+		/**
+		 * Releases the objects. Not measured.
+		 */
+		public void teardown() {
+		}
+
+		public String getName() {
+			return name;
+		}
+	}
+
+	public static void main(String[] args) {
+		if (allocatedBytes() < 0) {
+			System.out.println("This JVM can't count the allocated bytes");
+			System.exit(2);
+		}
+
+		Check[] cases = { new EntityUpdate(), new MoveableEntityUpdate(), new ProjectileUpdate(), new TableDraw(),
+		      new TableBatchDraw(), new TableCameraDraw(), new LabelSetValue(), new TouchDispatch(), new MetricsUpdate() };
+		// What measuring costs, if anything.
+		long[] baselineAttempts = measure(new Check("baseline") {
+			@Override
+			public long run() {
+				return 0;
+			}
+		});
+		long baseline = Long.MAX_VALUE;
+		for (int i = 0; i < baselineAttempts.length; i++) {
+			baseline = Math.min(baseline, baselineAttempts[i]);
+		}
+
+		int failures = 0;
+		for (int i = 0; i < cases.length; i++) {
+			long[] attempts = measure(cases[i]);
+			int allocating = 0;
+			long allocated = 0;
+			for (int a = 0; a < attempts.length; a++) {
+				if (attempts[a] > baseline) {
+					allocating++;
+					allocated = Math.max(allocated, attempts[a] - baseline);
+				}
+			}
+			boolean ok = allocating <= ALLOWED_ALLOCATING_ATTEMPTS;
+			if (!ok) {
+				failures++;
+			}
+			System.out.println(String.format("%-42s %s: %d of %d attempts allocated, up to %d bytes in %d runs after warm-up",
+			      cases[i].getName(), ok ? "OK  " : "FAIL", allocating, ATTEMPTS, allocated, MEASURED_RUNS));
+		}
+		System.out.println(failures == 0 ? "No allocations" : failures + " hot paths allocate");
+		System.exit(failures == 0 ? 0 : 1);
+	}
+
+	/**
+	 * @return the bytes allocated by the measured runs of each attempt.
+	 */
+	private static long[] measure(Check check) {
+		check.setup(SIZE);
+		try {
+			long sink = 0;
+			for (int i = 0; i < WARMUP_RUNS; i++) {
+				sink += check.run();
+			}
+			long[] allocated = new long[ATTEMPTS];
+			for (int attempt = 0; attempt < ATTEMPTS; attempt++) {
+				long before = allocatedBytes();
+				for (int i = 0; i < MEASURED_RUNS; i++) {
+					sink += check.run();
+				}
+				allocated[attempt] = allocatedBytes() - before;
+			}
+			// Uses the results, so the runs are not removed.
+			if (sink == Long.MIN_VALUE) {
+				System.out.println(sink);
+			}
+			return allocated;
+		} finally {
+			check.teardown();
+		}
+	}
+
+	private static class EntityUpdate extends Check {
+		private Array<Sprite> sprites;
+
+		public EntityUpdate() {
+			super("Entity.update");
+		}
+
+		@Override
+		public void setup(int size) {
+			sprites = new Array<Sprite>(false, size);
+			for (int i = 0; i < size; i++) {
+				sprites.add(new Sprite(new Vector2(i % 800, i / 800)));
+			}
+		}
+
+		@Override
+		public long run() {
+			for (int i = 0; i < sprites.size; i++) {
+				sprites.get(i).update(DELTA);
+			}
+			return sprites.size;
+		}
+	}
+
+	private static class MoveableEntityUpdate extends Check {
+		private Array<Mover> movers;
+
+		public MoveableEntityUpdate() {
+			super("MoveableEntity.update");
+		}
+
+		@Override
+		public void setup(int size) {
+			movers = new Array<Mover>(false, size);
+			for (int i = 0; i < size; i++) {
+				movers.add(new Mover(new Vector2(i % 800, i / 800)));
+			}
+		}
+
+		@Override
+		public long run() {
+			for (int i = 0; i < movers.size; i++) {
+				movers.get(i).update(DELTA);
+			}
+			return movers.size;
+		}
+	}
+
+	private static class ProjectileUpdate extends Check {
+		private Array<BasicProjectile> projectiles;
+
+		public ProjectileUpdate() {
+			super("BasicProjectile.update");
+		}
+
+		@Override
+		public void setup(int size) {
+			projectiles = new Array<BasicProjectile>(false, size);
+			for (int i = 0; i < size; i++) {
+				projectiles.add(new BasicProjectile(REGION, new Vector2(), 100f, i % 360, 1f));
+			}
+		}
+
+		@Override
+		public long run() {
+			for (int i = 0; i < projectiles.size; i++) {
+				BasicProjectile projectile = projectiles.get(i);
+				projectile.update(DELTA);
+				if (projectile.isFinished()) {
+					// Reused like a pooled projectile.
+					projectile.reset();
+					projectile.init(400f, 240f, 100f, i % 360, 1f);
+				}
+			}
+			return projectiles.size;
+		}
+	}
+
+	/**
+	 * A table of size elements in rows of 10, with a nested table in the first row.
+	 */
+	private static Table createTable(int size) {
+		Table table = new Table(new Vector2(0f, 0f));
+		table.setSize(800f, 480f);
+		Table nested = new Table();
+		for (int i = 0; i < 4; i++) {
+			nested.addColumn(new GuiElement(REGION, new Vector2()));
+		}
+		table.addRow(nested);
+		for (int i = 0; i < size; i++) {
+			if (i % 10 == 0) {
+				table.addRow(new GuiElement(REGION, new Vector2()));
+			} else {
+				table.addColumn(new GuiElement(REGION, new Vector2()));
+			}
+		}
+		table.alignCenterX();
+		return table;
+	}
+
+	private static class TableDraw extends Check {
+		private Table table;
+		private RenderQueue queue;
+
+		public TableDraw() {
+			super("Table.drawTable(RenderQueue)");
+		}
+
+		@Override
+		public void setup(int size) {
+			table = createTable(size);
+			queue = new RenderQueue();
+		}
+
+		@Override
+		public long run() {
+			table.drawTable(queue, 0);
+			int size = queue.size();
+			queue.clear();
+			return size;
+		}
+	}
+
+	private static class TableBatchDraw extends Check {
+		private Table table;
+		private SpriteBatch batch;
+
+		public TableBatchDraw() {
+			super("Table.drawTable(SpriteBatch)");
+		}
+
+		@Override
+		public void setup(int size) {
+			table = createTable(size);
+			batch = HeadlessAssets.createBatch();
+		}
+
+		@Override
+		public long run() {
+			table.drawTable(batch);
+			return table.getItems().size;
+		}
+	}
+
+	private static class TableCameraDraw extends Check {
+		private Table table;
+		private SpriteBatch batch;
+		private WorldCamera camera;
+		private int run;
+
+		public TableCameraDraw() {
+			super("Table.drawTable(SpriteBatch, WorldCamera)");
+		}
+
+		@Override
+		public void setup(int size) {
+			table = createTable(size);
+			// Drawn with the table, but outside of it.
+			table.addItem(new GuiElement(REGION, new Vector2(2000f, 2000f)));
+			batch = HeadlessAssets.createBatch();
+			camera = new WorldCamera(400f, 240f);
+		}
+
+		@Override
+		public long run() {
+			// Over the table, over the item outside of it, and where there is nothing.
+			run = (run + 1) % 3;
+			if (run == 0) {
+				camera.setPosition(400f, -240f);
+			} else if (run == 1) {
+				camera.setPosition(2000f, 2000f);
+			} else {
+				camera.setPosition(-5000f, 5000f);
+			}
+			camera.resetCounters();
+			table.drawTable(batch, camera);
+			return camera.getDrawn();
+		}
+	}
+
+	private static class LabelSetValue extends Check {
+		private Array<BasicLabel> labels;
+		private RenderQueue queue;
+		private long value;
+
+		public LabelSetValue() {
+			super("BasicLabel.setValue + draw");
+		}
+
+		@Override
+		public void setup(int size) {
+			BitmapFont font = HeadlessAssets.createFont();
+			labels = new Array<BasicLabel>(false, 8);
+			for (int i = 0; i < 8; i++) {
+				BasicLabel label = new BasicLabel(font, "SCORE: ", 0, new Vector2(0f, i * 20f));
+				label.setValueFormat(i, '0');
+				labels.add(label);
+			}
+			queue = new RenderQueue();
+		}
+
+		@Override
+		public long run() {
+			// A new value each run, so the text is formatted and laid out again every time. Always 6 digits, so the glyph buffers of the
+			// warm-up are big enough.
+			value = 100000 + (value + 7919) % 900000;
+			for (int i = 0; i < labels.size; i++) {
+				BasicLabel label = labels.get(i);
+				label.setValue(value + i);
+				label.draw(queue, 1);
+			}
+			int size = queue.size();
+			queue.clear();
+			return size;
+		}
+	}
+
+	private static class TouchDispatch extends Check {
+		private ScreenController controller;
+		private Array<GuiElement> items;
+		private int next;
+		private long events;
+
+		public TouchDispatch() {
+			super("ScreenController touches");
+		}
+
+		@Override
+		public void setup(int size) {
+			controller = new ScreenController(16f);
+			items = new Array<GuiElement>(false, size);
+			PointerAction action = new PointerAction() {
+				@Override
+				public void touchUp() {
+					events++;
+				}
+
+				@Override
+				public void touchDown() {
+					events++;
+				}
+
+				@Override
+				public void touchDragged(float x, float y) {
+					events++;
+				}
+
+				@Override
+				public void enter() {
+					events++;
+				}
+
+				@Override
+				public void exit() {
+					events++;
+				}
+			};
+			for (int i = 0; i < size; i++) {
+				// 50 columns of 16x16, with gaps.
+				GuiElement item = new GuiElement(REGION, new Vector2((i % 50) * 20f, (i / 50) * 20f));
+				item.setWidth(16f, false);
+				item.setHeight(16f, false);
+				item.createBounds(0f, 0f);
+				item.setAction(action);
+				controller.addItem(item, i % 3);
+				items.add(item);
+			}
+		}
+
+		@Override
+		public long run() {
+			GuiElement item = items.get(next);
+			next = (next + 1) % items.size;
+			float x = item.getPosition().x + 8f;
+			float y = item.getPosition().y + 8f;
+			int pointer = next % 3;
+			controller.pointerMoved(x, y);
+			controller.pointerDown(x, y, pointer);
+			controller.pointerDragged(x + 4f, y, pointer);
+			// Out of the element, and into the gap.
+			controller.pointerDragged(x + 10f, y, pointer);
+			controller.pointerUp(pointer);
+			return events;
+		}
+	}
+
+	private static class MetricsUpdate extends Check {
+		private Counter counter;
+		private Gauge gauge;
+		private HitRate hitRate;
+		private Histogram histogram;
+
+		public MetricsUpdate() {
+			super("Metrics updates");
+		}
+
+		@Override
+		public void setup(int size) {
+			MetricsRegistry metrics = new MetricsRegistry("check");
+			counter = metrics.counter("counter");
+			gauge = metrics.gauge("gauge");
+			hitRate = metrics.hitRate("pool");
+			histogram = metrics.histogram("time", Histogram.TIME_BOUNDS);
+		}
+
+		@Override
+		public long run() {
+			counter.inc();
+			gauge.add(1);
+			hitRate.record(counter.get() % 3 != 0);
+			histogram.record(counter.get() % 20000);
+			return counter.get();
+		}
+	}
+
+	/**
+	 * @return the bytes allocated by this thread, -1 if the JVM can't tell.
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+}
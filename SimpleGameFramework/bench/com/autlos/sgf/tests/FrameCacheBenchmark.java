@@ -0,0 +1,138 @@
+package com.autlos.sgf.tests;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import com.autlos.sgf.models.FrameCache;
+import com.autlos.sgf.models.MoveableEntity;
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Creates many animated entities from the same sprite sheet with and without the {@link FrameCache}, and logs the time it takes, the
+ * bytes allocated and the heap the entities keep. Textures need a GL context, so run it from a desktop launcher, i.e
+ * {@code new LwjglApplication(new FrameCacheBenchmark(), "FrameCacheBenchmark", 320, 240, false)}.
+ *
+ * @author Autlos
+ *
+ */
+public class FrameCacheBenchmark implements ApplicationListener {
+	private static final String TAG = "FrameCacheBenchmark";
+	private static final int[] COUNTS = { 500, 5000, 50000 };
+	private static final int FRAME_ROWS = 4;
+	private static final int FRAME_COLS = 8;
+	private static final int RUNS = 5;
+
+	private static class Enemy extends MoveableEntity {
+		public Enemy(TextureRegion sheet, Vector2 position) {
+			super(sheet, FRAME_ROWS, FRAME_COLS, 0.1f, Animation.LOOP, position, 100f, 0f);
+		}
+	}
+
+	private Texture texture;
+
+	@Override
+	public void create() {
+		texture = new Texture(256, 128, Format.RGBA8888);
+		TextureRegion sheet = new TextureRegion(texture);
+
+		// Warm up the JIT with both paths.
+		for (int i = 0; i < RUNS; i++) {
+			run(sheet, 5000, false);
+			run(sheet, 5000, true);
+		}
+
+		for (int c = 0; c < COUNTS.length; c++) {
+			int count = COUNTS[c];
+			log(count, false, run(sheet, count, false));
+			log(count, true, run(sheet, count, true));
+		}
+		FrameCache.setEnabled(true);
+		FrameCache.clear();
+		Gdx.app.exit();
+	}
+
+	/**
+	 * @return time in ns, bytes allocated and bytes retained, the best of RUNS.
+	 */
+	private long[] run(TextureRegion sheet, int count, boolean cached) {
+		long[] best = { Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE };
+		for (int run = 0; run < RUNS; run++) {
+			FrameCache.setEnabled(cached);
+			FrameCache.clear();
+			Array<Enemy> enemies = new Array<Enemy>(false, count);
+			Vector2 position = new Vector2();
+
+			long heapBefore = usedHeap();
+			long allocatedBefore = allocatedBytes();
+			long start = System.nanoTime();
+			for (int i = 0; i < count; i++) {
+				position.set(i % 800, i / 800);
+				enemies.add(new Enemy(sheet, position));
+			}
+			long time = System.nanoTime() - start;
+			long allocated = allocatedBytes() - allocatedBefore;
+			long retained = usedHeap() - heapBefore;
+
+			best[0] = Math.min(best[0], time);
+			best[1] = Math.min(best[1], allocated);
+			best[2] = Math.min(best[2], retained);
+			// Keeps the entities alive until the heap has been measured.
+			if (enemies.size != count) {
+				throw new IllegalStateException();
+			}
+		}
+		return best;
+	}
+
+	private void log(int count, boolean cached, long[] result) {
+		Gdx.app.log(TAG, String.format("%6d entities, cache %-3s: %8.2f ms, %10.1f KB allocated, %10.1f KB retained (%d bytes/entity)",
+		      count, cached ? "on" : "off", result[0] / 1000000.0, result[1] / 1024.0, result[2] / 1024.0, result[2] / count));
+	}
+
+	private static long usedHeap() {
+		Runtime runtime = Runtime.getRuntime();
+		for (int i = 0; i < 3; i++) {
+			System.gc();
+		}
+		return runtime.totalMemory() - runtime.freeMemory();
+	}
+
+	/**
+	 * @return the bytes allocated by this thread, -1 if the JVM can't tell.
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	@Override
+	public void resize(int width, int height) {
+	}
+
+	@Override
+	public void render() {
+	}
+
+	@Override
+	public void pause() {
+	}
+
+	@Override
+	public void resume() {
+	}
+
+	@Override
+	public void dispose() {
+		texture.dispose();
+	}
+}
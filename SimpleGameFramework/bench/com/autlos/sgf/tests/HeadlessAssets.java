@@ -0,0 +1,325 @@
+package com.autlos.sgf.tests;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.GLCommon;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.BitmapFontData;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.Glyph;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.graphics.glutils.ShaderProgram;
+import com.badlogic.gdx.math.Matrix4;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Textures, a font and a batch for the checks and benchmarks, which need their sizes but draw nothing, so they run without a GPU. The
+ * textures have a size but no image: if there is no GL (plain JVM or the headless backend), {@code Gdx.gl} is set to one that does
+ * nothing, so nothing can be drawn on screen with them.
+ *
+ * @author Autlos
+ *
+ */
+public class HeadlessAssets {
+	private static final int GLYPH_WIDTH = 8;
+	private static final int GLYPH_HEIGHT = 16;
+
+	private HeadlessAssets() {
+	}
+
+	/**
+	 * @param width
+	 * @param height
+	 * @return a texture of the size, without an image.
+	 */
+	public static Texture createTexture(int width, int height) {
+		if (Gdx.gl == null) {
+			Gdx.gl = noGL();
+		}
+		return new Texture(new EmptyTextureData(width, height));
+	}
+
+	/**
+	 * @return a monospaced font, 8x16 px per glyph, with the printable ascii characters.
+	 */
+	public static BitmapFont createFont() {
+		BitmapFontData data = new BitmapFontData();
+		data.lineHeight = GLYPH_HEIGHT;
+		data.down = -GLYPH_HEIGHT;
+		data.capHeight = GLYPH_HEIGHT - 4;
+		data.xHeight = GLYPH_HEIGHT / 2;
+		data.descent = -4;
+		data.ascent = 0;
+		data.spaceWidth = GLYPH_WIDTH;
+		for (char c = 32; c < 127; c++) {
+			Glyph glyph = new Glyph();
+			glyph.id = c;
+			glyph.srcX = (c % 16) * GLYPH_WIDTH;
+			glyph.srcY = (c / 16) * GLYPH_HEIGHT;
+			glyph.width = GLYPH_WIDTH;
+			glyph.height = GLYPH_HEIGHT;
+			glyph.xadvance = GLYPH_WIDTH;
+			data.setGlyph(c, glyph);
+		}
+		return new BitmapFont(data, new TextureRegion(createTexture(16 * GLYPH_WIDTH, 8 * GLYPH_HEIGHT)), true);
+	}
+
+	/**
+	 * @return a batch where every draw does nothing. It has no mesh, so it needs neither GL nor the native libraries.
+	 */
+	public static SpriteBatch createBatch() {
+		// The SpriteBatch constructors create the mesh, so the instance is made without calling them.
+		try {
+			Class<?> unsafeClass = Class.forName("sun.misc.Unsafe");
+			Field field = unsafeClass.getDeclaredField("theUnsafe");
+			field.setAccessible(true);
+			Object unsafe = field.get(null);
+			Method allocateInstance = unsafeClass.getMethod("allocateInstance", Class.class);
+			return (SpriteBatch) allocateInstance.invoke(unsafe, NoOpBatch.class);
+		} catch (Exception e) {
+			throw new GdxRuntimeException("Can't create the batch", e);
+		}
+	}
+
+	/**
+	 * A GL where every call does nothing and returns 0, false or null.
+	 */
+	private static GLCommon noGL() {
+		return (GLCommon) Proxy.newProxyInstance(HeadlessAssets.class.getClassLoader(), new Class<?>[] { GLCommon.class },
+		      new InvocationHandler() {
+			      @Override
+			      public Object invoke(Object proxy, Method method, Object[] args) {
+				      Class<?> type = method.getReturnType();
+				      if (type == boolean.class) {
+					      return Boolean.FALSE;
+				      } else if (type == int.class) {
+					      return Integer.valueOf(0);
+				      } else if (type == float.class) {
+					      return Float.valueOf(0f);
+				      }
+				      return null;
+			      }
+		      });
+	}
+
+	/**
+	 * The size of a texture, without an image to upload.
+	 */
+	private static class EmptyTextureData implements TextureData {
+		private final int width;
+		private final int height;
+
+		EmptyTextureData(int width, int height) {
+			this.width = width;
+			this.height = height;
+		}
+
+		@Override
+		public TextureDataType getType() {
+			return TextureDataType.Compressed;
+		}
+
+		@Override
+		public boolean isPrepared() {
+			return true;
+		}
+
+		@Override
+		public void prepare() {
+		}
+
+		@Override
+		public Pixmap consumePixmap() {
+			return null;
+		}
+
+		@Override
+		public boolean disposePixmap() {
+			return false;
+		}
+
+		@Override
+		public void consumeCompressedData(int target) {
+		}
+
+		@Override
+		public int getWidth() {
+			return width;
+		}
+
+		@Override
+		public int getHeight() {
+			return height;
+		}
+
+		@Override
+		public Format getFormat() {
+			return Format.RGBA8888;
+		}
+
+		@Override
+		public boolean useMipMaps() {
+			return false;
+		}
+
+		@Override
+		public boolean isManaged() {
+			return false;
+		}
+	}
+
+	/**
+	 * A batch that draws nothing. None of it's fields are initialised (no constructor is run), so every method that would use them is
+	 * overridden.
+	 */
+	private static class NoOpBatch extends SpriteBatch {
+		private Color tint;
+		private Matrix4 projection;
+		private Matrix4 transform;
+
+		@Override
+		public void begin() {
+		}
+
+		@Override
+		public void end() {
+		}
+
+		@Override
+		public void setColor(Color color) {
+			getColor().set(color);
+		}
+
+		@Override
+		public void setColor(float r, float g, float b, float a) {
+			getColor().set(r, g, b, a);
+		}
+
+		@Override
+		public void setColor(float color) {
+			int bits = Float.floatToRawIntBits(color);
+			getColor().set((bits & 0xff) / 255f, ((bits >>> 8) & 0xff) / 255f, ((bits >>> 16) & 0xff) / 255f,
+			      ((bits >>> 24) & 0xff) / 255f);
+		}
+
+		@Override
+		public Color getColor() {
+			if (tint == null) {
+				tint = new Color(1f, 1f, 1f, 1f);
+			}
+			return tint;
+		}
+
+		@Override
+		public void draw(Texture texture, float x, float y, float originX, float originY, float width, float height, float scaleX,
+		      float scaleY, float rotation, int srcX, int srcY, int srcWidth, int srcHeight, boolean flipX, boolean flipY) {
+		}
+
+		@Override
+		public void draw(Texture texture, float x, float y, float width, float height, int srcX, int srcY, int srcWidth, int srcHeight,
+		      boolean flipX, boolean flipY) {
+		}
+
+		@Override
+		public void draw(Texture texture, float x, float y, int srcX, int srcY, int srcWidth, int srcHeight) {
+		}
+
+		@Override
+		public void draw(Texture texture, float x, float y, float width, float height, float u, float v, float u2, float v2) {
+		}
+
+		@Override
+		public void draw(Texture texture, float x, float y) {
+		}
+
+		@Override
+		public void draw(Texture texture, float x, float y, float width, float height) {
+		}
+
+		@Override
+		public void draw(Texture texture, float[] spriteVertices, int offset, int length) {
+		}
+
+		@Override
+		public void draw(TextureRegion region, float x, float y) {
+		}
+
+		@Override
+		public void draw(TextureRegion region, float x, float y, float width, float height) {
+		}
+
+		@Override
+		public void draw(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float scaleX,
+		      float scaleY, float rotation) {
+		}
+
+		@Override
+		public void draw(TextureRegion region, float x, float y, float originX, float originY, float width, float height, float scaleX,
+		      float scaleY, float rotation, boolean clockwise) {
+		}
+
+		@Override
+		public void flush() {
+		}
+
+		@Override
+		public void disableBlending() {
+		}
+
+		@Override
+		public void enableBlending() {
+		}
+
+		@Override
+		public void setBlendFunction(int srcFunc, int dstFunc) {
+		}
+
+		@Override
+		public void dispose() {
+		}
+
+		@Override
+		public Matrix4 getProjectionMatrix() {
+			if (projection == null) {
+				projection = new Matrix4();
+			}
+			return projection;
+		}
+
+		@Override
+		public Matrix4 getTransformMatrix() {
+			if (transform == null) {
+				transform = new Matrix4();
+			}
+			return transform;
+		}
+
+		@Override
+		public void setProjectionMatrix(Matrix4 projection) {
+			getProjectionMatrix().set(projection);
+		}
+
+		@Override
+		public void setTransformMatrix(Matrix4 transform) {
+			getTransformMatrix().set(transform);
+		}
+
+		@Override
+		public void setShader(ShaderProgram shader) {
+		}
+
+		@Override
+		public boolean isBlendingEnabled() {
+			return true;
+		}
+	}
+}
@@ -0,0 +1,266 @@
+package com.autlos.sgf.tests;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.autlos.sgf.BasicLabel;
+import com.autlos.sgf.GuiElement;
+import com.autlos.sgf.models.BasicProjectile;
+import com.autlos.sgf.models.Entity;
+import com.autlos.sgf.models.MoveableEntity;
+import com.autlos.sgf.screens.ScreenController;
+import com.autlos.sgf.ui.Table;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * The hot paths of the framework, for 10, 1000 and 100000 objects: the update of entities, moveable entities and projectiles,
+ * {@code Entity.overlaps(Array)}, {@code BasicLabel.setValue} and {@code setText}, building a table with {@code addRow} and
+ * {@code alignCenterX}, and a touch down and up on a {@code ScreenController}. An op is a pass over all the objects, except for overlaps
+ * and the touch, which are one query.
+ * <p>
+ * It needs textures and a font but draws nothing, so they are created without GL (see {@link HeadlessAssets}) and it runs on a plain
+ * JVM. Run it with {@code gradle jmh}, which adds the gc profiler for the bytes allocated per op.
+ *
+ * @author Autlos
+ *
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 10, time = 1)
+@Fork(1)
+public class HotPathBenchmark {
+	private static final float DELTA = 1 / 60f;
+
+	private static class Sprite extends Entity {
+		public Sprite(TextureRegion sheet, Vector2 position) {
+			super(sheet, 1, 4, position, 0f);
+		}
+	}
+
+	private static class Mover extends MoveableEntity {
+		public Mover(TextureRegion region, Vector2 position) {
+			super(region, position, 100f, 0f);
+			setRotatingSide(RotationDirection.LEFT);
+			setRotationSpeed(90f);
+		}
+	}
+
+	/**
+	 * Sized, so the entities and labels have their real sizes, but without GL. Shared by the states.
+	 */
+	@State(Scope.Benchmark)
+	public static class Assets {
+		TextureRegion region;
+		TextureRegion sheet;
+		BitmapFont font;
+
+		@Setup
+		public void setup() {
+			region = new TextureRegion(HeadlessAssets.createTexture(64, 16), 0, 0, 16, 16);
+			sheet = new TextureRegion(region.getTexture());
+			font = HeadlessAssets.createFont();
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Sprites {
+		@Param({ "10", "1000", "100000" })
+		int size;
+		Array<Sprite> sprites;
+
+		@Setup
+		public void setup(Assets assets) {
+			sprites = new Array<Sprite>(false, size);
+			Vector2 position = new Vector2();
+			for (int i = 0; i < size; i++) {
+				sprites.add(new Sprite(assets.sheet, gridPosition(i, position)));
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Movers {
+		@Param({ "10", "1000", "100000" })
+		int size;
+		Array<Mover> movers;
+
+		@Setup
+		public void setup(Assets assets) {
+			movers = new Array<Mover>(false, size);
+			Vector2 position = new Vector2();
+			for (int i = 0; i < size; i++) {
+				movers.add(new Mover(assets.region, gridPosition(i, position)));
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Obstacles {
+		@Param({ "10", "1000", "100000" })
+		int size;
+		Array<Entity> entities;
+		int next;
+
+		@Setup
+		public void setup(Assets assets) {
+			entities = new Array<Entity>(false, size);
+			Vector2 position = new Vector2();
+			for (int i = 0; i < size; i++) {
+				entities.add(new Mover(assets.region, gridPosition(i, position)));
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Projectiles {
+		@Param({ "10", "1000", "100000" })
+		int size;
+		Array<BasicProjectile> projectiles;
+
+		@Setup
+		public void setup(Assets assets) {
+			projectiles = new Array<BasicProjectile>(false, size);
+			Vector2 position = new Vector2();
+			for (int i = 0; i < size; i++) {
+				projectiles.add(new BasicProjectile(assets.region, gridPosition(i, position), 100f, i % 360));
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Labels {
+		@Param({ "10", "1000", "100000" })
+		int size;
+		Array<BasicLabel> labels;
+		long value;
+		boolean flip;
+
+		@Setup
+		public void setup(Assets assets) {
+			labels = new Array<BasicLabel>(false, size);
+			for (int i = 0; i < size; i++) {
+				labels.add(new BasicLabel(assets.font, "SCORE: ", 0L));
+			}
+		}
+	}
+
+	@State(Scope.Thread)
+	public static class Elements {
+		@Param({ "10", "1000", "100000" })
+		int size;
+		Array<GuiElement> items;
+		ScreenController controller;
+		int next;
+
+		@Setup
+		public void setup(Assets assets) {
+			controller = new ScreenController(16f);
+			items = new Array<GuiElement>(false, size);
+			Vector2 position = new Vector2();
+			for (int i = 0; i < size; i++) {
+				GuiElement item = new GuiElement(assets.region, gridPosition(i, position).cpy());
+				items.add(item);
+				controller.addItem(item);
+			}
+		}
+	}
+
+	private static Vector2 gridPosition(int i, Vector2 position) {
+		// 50 columns of 16 px, so the objects overlap their neighbours a bit at 100000.
+		return position.set((i % 50) * 16f, (i / 50) * 0.25f);
+	}
+
+	@Benchmark
+	public int entityUpdate(Sprites state) {
+		Array<Sprite> sprites = state.sprites;
+		for (int i = 0; i < sprites.size; i++) {
+			sprites.get(i).update(DELTA);
+		}
+		return sprites.size;
+	}
+
+	@Benchmark
+	public int moveableEntityUpdate(Movers state) {
+		Array<Mover> movers = state.movers;
+		for (int i = 0; i < movers.size; i++) {
+			movers.get(i).update(DELTA);
+		}
+		return movers.size;
+	}
+
+	@Benchmark
+	public int projectileUpdate(Projectiles state) {
+		Array<BasicProjectile> projectiles = state.projectiles;
+		for (int i = 0; i < projectiles.size; i++) {
+			projectiles.get(i).update(DELTA);
+		}
+		return projectiles.size;
+	}
+
+	@Benchmark
+	public boolean overlaps(Obstacles state) {
+		Entity entity = state.entities.get(state.next);
+		state.next = (state.next + 1) % state.entities.size;
+		return entity.overlaps(state.entities);
+	}
+
+	@Benchmark
+	public int labelSetValue(Labels state) {
+		// A new value each time, or setValue returns without doing anything.
+		state.value++;
+		Array<BasicLabel> labels = state.labels;
+		for (int i = 0; i < labels.size; i++) {
+			labels.get(i).setValue(state.value);
+		}
+		return labels.size;
+	}
+
+	@Benchmark
+	public int labelSetText(Labels state) {
+		state.flip = !state.flip;
+		String text = state.flip ? "GAME OVER" : "PAUSED";
+		Array<BasicLabel> labels = state.labels;
+		for (int i = 0; i < labels.size; i++) {
+			labels.get(i).setText(text);
+		}
+		return labels.size;
+	}
+
+	@Benchmark
+	public float tableLayout(Elements state) {
+		Table table = new Table();
+		Array<GuiElement> items = state.items;
+		for (int i = 0; i < items.size; i++) {
+			table.addRow(items.get(i));
+		}
+		table.alignCenterX();
+		// Lays it out.
+		return table.getHeight();
+	}
+
+	@Benchmark
+	public boolean touchDown(Elements state) {
+		GuiElement item = state.items.get(state.next);
+		state.next = (state.next + 1) % state.items.size;
+		float x = item.getPosition().x + 8f;
+		float y = item.getPosition().y + 8f;
+		boolean hit = state.controller.pointerDown(x, y, 0);
+		state.controller.pointerUp(0);
+		return hit;
+	}
+}
@@ -0,0 +1,88 @@
+package com.autlos.sgf.tests;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import com.autlos.sgf.GameAbstract;
+import com.autlos.sgf.input.InputReplayer;
+import com.badlogic.gdx.ApplicationListener;
+import com.badlogic.gdx.Gdx;
+
+/**
+ * Plays a log recorded with an {@link com.autlos.sgf.input.InputRecorder} in a game as fast as possible, and logs the frames, the ticks
+ * of the world, the time per frame and the bytes allocated. Runs of the same log do the same work, so they can be compared between
+ * commits to find performance regressions. Run it under the headless backend, i.e
+ * {@code new HeadlessApplication(new ReplayBenchmark(new MyGame(), "run.log"))}. The game must start in the state the recording started
+ * from.
+ *
+ * @author Autlos
+ *
+ */
+public class ReplayBenchmark implements ApplicationListener {
+	private static final String TAG = "ReplayBenchmark";
+
+	private final GameAbstract game;
+	private final String logPath;
+
+	/**
+	 * @param game
+	 *           not created yet.
+	 * @param logPath
+	 *           local path of the log.
+	 */
+	public ReplayBenchmark(GameAbstract game, String logPath) {
+		this.game = game;
+		this.logPath = logPath;
+	}
+
+	@Override
+	public void create() {
+		game.create();
+		InputReplayer replayer = new InputReplayer(Gdx.files.local(logPath));
+		long ticksBefore = game.getTimestep().getTicks();
+
+		long allocatedBefore = allocatedBytes();
+		long start = System.nanoTime();
+		long frames = replayer.replay(game);
+		long time = System.nanoTime() - start;
+		long allocated = allocatedBytes() - allocatedBefore;
+
+		long ticks = game.getTimestep().getTicks() - ticksBefore;
+		Gdx.app.log(TAG, String.format("%d frames, %d ticks in %.2f ms: %.3f ms/frame, %.1f KB allocated (%d bytes/frame)", frames, ticks,
+		      time / 1000000.0, frames > 0 ? time / 1000000.0 / frames : 0.0, allocated / 1024.0, frames > 0 ? allocated / frames : 0));
+		Gdx.app.exit();
+	}
+
+	/**
+	 * @return the bytes allocated by this thread, -1 if the JVM can't tell.
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	@Override
+	public void resize(int width, int height) {
+		game.resize(width, height);
+	}
+
+	@Override
+	public void render() {
+	}
+
+	@Override
+	public void pause() {
+	}
+
+	@Override
+	public void resume() {
+	}
+
+	@Override
+	public void dispose() {
+		game.dispose();
+	}
+}
@@ -0,0 +1,446 @@
+package com.autlos.sgf.tests;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import com.autlos.sgf.GameAbstract;
+import com.autlos.sgf.GameContext;
+import com.autlos.sgf.RenderQueue;
+import com.autlos.sgf.WorldAbstract;
+import com.autlos.sgf.metrics.Gauge;
+import com.autlos.sgf.metrics.MetricsFileSink;
+import com.autlos.sgf.metrics.MetricsRegistry;
+import com.autlos.sgf.models.BasicProjectile;
+import com.autlos.sgf.models.Entity;
+import com.autlos.sgf.models.MoveableEntity;
+import com.autlos.sgf.models.ProjectileManager;
+import com.autlos.sgf.models.SpatialHash;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Runs a whole world for thousands of ticks with more and more entities, to find how many a device can take at 60 Hz. For each step of
+ * the entity count, the world is filled with a mix of static entities, moveable entities that wander and wrap around the screen, and
+ * projectiles (respawned to keep the count) tested against the static ones in a {@link SpatialHash}. Every tick is timed, including
+ * recording the draws of all the entities in a {@link RenderQueue} (which is then discarded, there is no GPU).
+ * <p>
+ * For each step it reports p50, p95, p99 and max tick time, the collections, their time and their p99 and max pause, the allocation rate
+ * and the entity counts, as a log line and in csv and json files. Run it under the headless backend, i.e
+ * {@code new HeadlessApplication(new SoakHarness(new SoakHarness.Config()))}, on the device class to test.
+ * <p>
+ * While it runs, the metrics of the world are exported through JMX (as com.autlos.sgf:type=Metrics,name=SoakHarness) and, if set,
+ * sampled to local files, like a headless world server would do.
+ *
+ * @author Autlos
+ *
+ */
+public class SoakHarness extends GameAbstract {
+	private static final String TAG = "SoakHarness";
+	// A 60 Hz frame.
+	private static final double BUDGET_MS = 1000.0 / 60.0;
+
+	/**
+	 * What to run. The entity mix is given as weights, i.e 2, 1, 1 for half static entities.
+	 */
+	public static class Config {
+		public int[] entityCounts = { 1000, 2000, 5000, 10000, 20000, 50000 };
+		public int staticWeight = 1;
+		public int moveableWeight = 1;
+		public int projectileWeight = 1;
+		public int warmupTicks = 300;
+		public int ticks = 3000;
+		public float tickRate = 60f;
+		public long seed = 1;
+		// Local files, null to skip.
+		public String csvPath = "soak.csv";
+		public String jsonPath = "soak.json";
+		// Metrics while it runs: through JMX, and sampled every metricsPeriod ms to local files (null to skip).
+		public boolean jmx = true;
+		public String metricsCsvPath = null;
+		public String metricsJsonPath = null;
+		public long metricsPeriod = 1000;
+	}
+
+	/**
+	 * The results of a step.
+	 */
+	public static class Report {
+		public int entities;
+		public int statics;
+		public int moveables;
+		public int projectiles;
+		public double p50, p95, p99, max;
+		public long gcCount;
+		public long gcTime;
+		// Of the collections in the step, in ms.
+		public long gcPauseP99, gcPauseMax;
+		public double allocatedMBPerSecond;
+		public double allocatedBytesPerTick;
+
+		public static String csvHeader() {
+			return "entities,statics,moveables,projectiles,p50_ms,p95_ms,p99_ms,max_ms,gc_count,gc_ms,gc_pause_p99_ms,gc_pause_max_ms,"
+			      + "alloc_mb_per_s,alloc_bytes_per_tick";
+		}
+
+		public String toCsv() {
+			return entities + "," + statics + "," + moveables + "," + projectiles + "," + p50 + "," + p95 + "," + p99 + "," + max + ","
+			      + gcCount + "," + gcTime + "," + gcPauseP99 + "," + gcPauseMax + "," + allocatedMBPerSecond + "," + allocatedBytesPerTick;
+		}
+
+		public String toJson() {
+			return "{\"entities\":" + entities + ",\"statics\":" + statics + ",\"moveables\":" + moveables + ",\"projectiles\":" + projectiles
+			      + ",\"p50Ms\":" + p50 + ",\"p95Ms\":" + p95 + ",\"p99Ms\":" + p99 + ",\"maxMs\":" + max + ",\"gcCount\":" + gcCount
+			      + ",\"gcMs\":" + gcTime + ",\"gcPauseP99Ms\":" + gcPauseP99 + ",\"gcPauseMaxMs\":" + gcPauseMax + ",\"allocMBPerS\":"
+			      + allocatedMBPerSecond + ",\"allocBytesPerTick\":" + allocatedBytesPerTick + "}";
+		}
+
+		@Override
+		public String toString() {
+			return String.format("%6d entities (%d/%d/%d): p50 %6.2f, p95 %6.2f, p99 %6.2f, max %6.2f ms, "
+			      + "%d gc (%d ms, pause p99 %d, max %d ms), %.2f MB/s, %.0f B/tick", entities, statics, moveables, projectiles, p50, p95,
+			      p99, max, gcCount, gcTime, gcPauseP99, gcPauseMax, allocatedMBPerSecond, allocatedBytesPerTick);
+		}
+	}
+
+	private static class Prop extends Entity {
+		public Prop(TextureRegion region, Vector2 position) {
+			super(region, position, 0f);
+		}
+	}
+
+	private static class Wanderer extends MoveableEntity {
+		float velocityX, velocityY;
+		final Rectangle area;
+
+		public Wanderer(TextureRegion region, Vector2 position, float velocityX, float velocityY, Rectangle area) {
+			super(region, position, 0f, 0f);
+			this.velocityX = velocityX;
+			this.velocityY = velocityY;
+			this.area = area;
+			setRotatingSide(RotationDirection.LEFT);
+			setRotationSpeed(45f);
+		}
+
+		@Override
+		public void update(float delta) {
+			savePreviousState();
+			position.x += velocityX * delta;
+			position.y += velocityY * delta;
+			checkReversePositions(area.x, area.y, area.x + area.width, area.y + area.height);
+			super.update(delta);
+		}
+	}
+
+	/**
+	 * The world of the soak: keeps the counts of each kind of entity.
+	 */
+	private class SoakWorld extends WorldAbstract {
+		final Array<Entity> statics = new Array<Entity>(false, 1024);
+		final Array<Wanderer> moveables = new Array<Wanderer>(false, 1024);
+		final ProjectileManager projectiles;
+		final SpatialHash hash = new SpatialHash(64f, 4096);
+		final RenderQueue queue = new RenderQueue();
+		final Random random;
+		int projectileTarget;
+		long hits;
+		// The queue is not rendered, so the draws recorded are exported here.
+		Gauge drawCalls;
+
+		SoakWorld(GameContext context) {
+			super(context);
+			random = context.getRandom();
+			projectiles = new ProjectileManager(region, context, 1024, Integer.MAX_VALUE);
+		}
+
+		@Override
+		public void setMetrics(MetricsRegistry metrics) {
+			super.setMetrics(metrics);
+			projectiles.setMetrics(metrics);
+			hash.setMetrics(metrics);
+			drawCalls = metrics != null ? metrics.gauge("render.drawCalls") : null;
+		}
+
+		@Override
+		public int getEntityCount() {
+			return statics.size + moveables.size + projectiles.getLiveCount();
+		}
+
+		void fill(int staticCount, int moveableCount, int projectileCount) {
+			Rectangle area = context.getViewport();
+			Vector2 position = new Vector2();
+			while (statics.size < staticCount) {
+				position.set(random.nextFloat() * area.width, random.nextFloat() * area.height);
+				Prop prop = new Prop(region, position);
+				statics.add(prop);
+				hash.add(prop);
+			}
+			while (moveables.size < moveableCount) {
+				position.set(random.nextFloat() * area.width, random.nextFloat() * area.height);
+				moveables.add(new Wanderer(region, position, random.nextFloat() * 200 - 100, random.nextFloat() * 200 - 100, area));
+			}
+			projectileTarget = projectileCount;
+			projectiles.preallocate(projectileCount - projectiles.getLiveCount());
+			spawnProjectiles();
+		}
+
+		void spawnProjectiles() {
+			Rectangle area = context.getViewport();
+			while (projectiles.getLiveCount() < projectileTarget) {
+				projectiles.spawn(random.nextFloat() * area.width, random.nextFloat() * area.height,
+				      100f + random.nextFloat() * 300f, random.nextFloat() * 360f, 0.5f + random.nextFloat() * 2f);
+			}
+		}
+
+		@Override
+		public void update(float delta) {
+			for (int i = 0; i < statics.size; i++) {
+				statics.get(i).update(delta);
+			}
+			for (int i = 0; i < moveables.size; i++) {
+				moveables.get(i).update(delta);
+			}
+			projectiles.update(delta);
+			spawnProjectiles();
+			collide();
+			draw();
+		}
+
+		@Override
+		public void checkCollisions() {
+			Array<BasicProjectile> live = projectiles.getProjectiles();
+			for (int i = 0; i < live.size; i++) {
+				BasicProjectile projectile = live.get(i);
+				if (hash.overlaps(projectile)) {
+					projectile.setFinished(true);
+					hits++;
+				}
+			}
+		}
+
+		/**
+		 * Records the draws of a frame, and discards them.
+		 */
+		void draw() {
+			for (int i = 0; i < statics.size; i++) {
+				statics.get(i).draw(queue, 0);
+			}
+			for (int i = 0; i < moveables.size; i++) {
+				moveables.get(i).draw(queue, 1);
+			}
+			Array<BasicProjectile> live = projectiles.getProjectiles();
+			for (int i = 0; i < live.size; i++) {
+				live.get(i).draw(queue, 2);
+			}
+			if (drawCalls != null) {
+				drawCalls.set(queue.size());
+			}
+			queue.clear();
+		}
+	}
+
+	private final Config config;
+	// Kept, so reading them every tick doesn't allocate.
+	private final List<GarbageCollectorMXBean> collectors = ManagementFactory.getGarbageCollectorMXBeans();
+	private Texture texture;
+	private TextureRegion region;
+
+	public SoakHarness() {
+		this(new Config());
+	}
+
+	public SoakHarness(Config config) {
+		super(TAG, "1", false);
+		this.config = config;
+	}
+
+	@Override
+	public void create() {
+		init(800f, 480f, 480f, 320f);
+		if (context.getScreenWidth() <= 0 || context.getScreenHeight() <= 0) {
+			// The headless backend has no screen.
+			context.setScreenSize(800f, 480f);
+		}
+		context.setSeed(config.seed);
+		// Without GL: there is none under the headless backend.
+		texture = HeadlessAssets.createTexture(16, 16);
+		region = new TextureRegion(texture);
+
+		MetricsRegistry metrics = new MetricsRegistry(TAG);
+		setMetrics(metrics);
+		if (config.jmx) {
+			metrics.registerMBean();
+		}
+		MetricsFileSink sink = null;
+		if (config.metricsCsvPath != null || config.metricsJsonPath != null) {
+			sink = new MetricsFileSink(metrics, config.metricsCsvPath != null ? Gdx.files.local(config.metricsCsvPath).file() : null,
+			      config.metricsJsonPath != null ? Gdx.files.local(config.metricsJsonPath).file() : null);
+			sink.start(config.metricsPeriod);
+		}
+
+		SoakWorld world = new SoakWorld(context);
+		setWorld(world);
+		setTickRate(config.tickRate);
+
+		int totalWeight = Math.max(1, config.staticWeight + config.moveableWeight + config.projectileWeight);
+		StringBuilder csv = new StringBuilder(Report.csvHeader()).append('\n');
+		StringBuilder json = new StringBuilder("[");
+		int firstOver = -1;
+		for (int step = 0; step < config.entityCounts.length; step++) {
+			int count = config.entityCounts[step];
+			int statics = count * config.staticWeight / totalWeight;
+			int moveables = count * config.moveableWeight / totalWeight;
+			world.fill(statics, moveables, count - statics - moveables);
+
+			Report report = run(world, count);
+			Gdx.app.log(TAG, report.toString());
+			csv.append(report.toCsv()).append('\n');
+			json.append(step > 0 ? "," : "").append(report.toJson());
+			if (firstOver < 0 && report.p99 > BUDGET_MS) {
+				firstOver = count;
+			}
+		}
+		json.append("]");
+		if (sink != null) {
+			sink.stop();
+			sink.write();
+		}
+		metrics.unregisterMBean();
+
+		if (firstOver >= 0) {
+			Gdx.app.log(TAG, "p99 over the 60 Hz frame (" + String.format("%.2f", BUDGET_MS) + " ms) from " + firstOver + " entities");
+		} else {
+			Gdx.app.log(TAG, "p99 within the 60 Hz frame for every step");
+		}
+		if (config.csvPath != null) {
+			Gdx.files.local(config.csvPath).writeString(csv.toString(), false);
+		}
+		if (config.jsonPath != null) {
+			Gdx.files.local(config.jsonPath).writeString(json.toString(), false);
+		}
+		Gdx.app.exit();
+	}
+
+	private Report run(SoakWorld world, int count) {
+		// JIT and pools warm-up.
+		timestep.run(world, config.warmupTicks);
+
+		long[] times = new long[config.ticks];
+		// Pause of each collection in the step, in ms.
+		long[] pauses = new long[16];
+		int pauseCount = 0;
+		long gcCountBefore = gcCount();
+		long gcTimeBefore = gcTime();
+		long lastGcCount = gcCountBefore;
+		long lastGcTime = gcTimeBefore;
+		long allocatedBefore = allocatedBytes();
+		long start = System.nanoTime();
+		for (int i = 0; i < times.length; i++) {
+			long tickStart = System.nanoTime();
+			timestep.run(world, 1);
+			times[i] = System.nanoTime() - tickStart;
+
+			// The collections during the tick, after timing it. If there were several, they share the time.
+			long gcCount = gcCount();
+			if (gcCount != lastGcCount) {
+				long gcTime = gcTime();
+				long collections = gcCount - lastGcCount;
+				for (long c = 0; c < collections; c++) {
+					if (pauseCount == pauses.length) {
+						pauses = Arrays.copyOf(pauses, pauseCount * 2);
+					}
+					pauses[pauseCount++] = (gcTime - lastGcTime) / collections;
+				}
+				lastGcCount = gcCount;
+				lastGcTime = gcTime;
+			}
+		}
+		long elapsed = System.nanoTime() - start;
+		long allocated = allocatedBytes() - allocatedBefore;
+
+		Report report = new Report();
+		report.entities = count;
+		report.statics = world.statics.size;
+		report.moveables = world.moveables.size;
+		report.projectiles = world.projectiles.getLiveCount();
+		Arrays.sort(times);
+		report.p50 = percentile(times, 0.50);
+		report.p95 = percentile(times, 0.95);
+		report.p99 = percentile(times, 0.99);
+		report.max = times[times.length - 1] / 1000000.0;
+		report.gcCount = gcCount() - gcCountBefore;
+		report.gcTime = gcTime() - gcTimeBefore;
+		if (pauseCount > 0) {
+			Arrays.sort(pauses, 0, pauseCount);
+			report.gcPauseP99 = pauses[Math.max(0, (int) Math.ceil(0.99 * pauseCount) - 1)];
+			report.gcPauseMax = pauses[pauseCount - 1];
+		}
+		report.allocatedMBPerSecond = allocatedBefore < 0 ? -1 : allocated / (1024.0 * 1024.0) / (elapsed / 1e9);
+		report.allocatedBytesPerTick = allocatedBefore < 0 ? -1 : allocated / (double) times.length;
+		return report;
+	}
+
+	/**
+	 * @return the percentile of the sorted times, in ms.
+	 */
+	private static double percentile(long[] sorted, double percentile) {
+		int index = (int) Math.ceil(percentile * sorted.length) - 1;
+		return sorted[Math.max(0, Math.min(sorted.length - 1, index))] / 1000000.0;
+	}
+
+	/**
+	 * @return the bytes allocated by this thread, -1 if the JVM can't tell.
+	 */
+	private static long allocatedBytes() {
+		ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+		if (bean instanceof com.sun.management.ThreadMXBean) {
+			return ((com.sun.management.ThreadMXBean) bean).getThreadAllocatedBytes(Thread.currentThread().getId());
+		}
+		return -1;
+	}
+
+	/**
+	 * @return the collections run by all the collectors since the JVM started.
+	 */
+	private long gcCount() {
+		long count = 0;
+		for (int i = 0; i < collectors.size(); i++) {
+			count += Math.max(0, collectors.get(i).getCollectionCount());
+		}
+		return count;
+	}
+
+	/**
+	 * @return the ms spent in collections since the JVM started.
+	 */
+	private long gcTime() {
+		long time = 0;
+		for (int i = 0; i < collectors.size(); i++) {
+			time += Math.max(0, collectors.get(i).getCollectionTime());
+		}
+		return time;
+	}
+
+	@Override
+	public void render() {
+		// Everything is run in create.
+	}
+
+	@Override
+	public void dispose() {
+		super.dispose();
+		texture.dispose();
+	}
+
+	@Override
+	protected void detectScale() {
+		context.setScale(1f, 1f, TARGET_SIZE.BIG);
+	}
+}
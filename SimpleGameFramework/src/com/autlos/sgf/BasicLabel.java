@@ -1,31 +1,53 @@
 package com.autlos.sgf;
 
-import com.autlos.sgf.ui.ITableItem;
+import com.autlos.sgf.ui.ILayoutItem;
+import com.autlos.sgf.ui.Table;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.HAlignment;
 import com.badlogic.gdx.graphics.g2d.BitmapFont.TextBounds;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.Vector2;
 
 /**
+ * The glyphs of the label are laid out once into a BitmapFontCache, and only laid out again when the text, the font or the wrap width
+ * change. Moving the label just moves the cache.
+ * 
  * @author Autlos
  * 
  */
-public class BasicLabel implements ITableItem {
+public class BasicLabel implements ILayoutItem {
 	private BitmapFont bitmapFont;
+	// Glyphs laid out for the current text.
+	private BitmapFontCache cache;
+	private boolean layoutDirty = true;
+	// If > 0, the text is wrapped to this width.
+	private float wrapWidth;
+	private HAlignment alignment = HAlignment.LEFT;
+	// Color of the glyphs, null for the font's.
+	private Color color;
 	
-	// Text for the label
-	private String text;
+	// Characters drawn: sequence + value. Reused, so changing the value doesn't create Strings.
+	private TextBuffer text;
 	// Value for the label
 	private long value;
-	// text + value
+	private boolean hasValue;
+	// Text for the label, without the value
 	private String sequence;
+
+	// Format for the value, i.e 6 and '0' for "SCORE: 000120"
+	private int minDigits;
+	private char padChar = '0';
 	
 	protected Vector2 position;
 	protected Vector2 realPosition;
 	private TextBounds textBounds;
 
 	private boolean visible;
+	// Table the label is laid out by, if any.
+	private Table table;
 
 	/**
 	 * Creates a Label with text (for example "GAME OVER")
@@ -47,8 +69,10 @@ public class BasicLabel implements ITableItem {
 	public BasicLabel(BitmapFont bitMapFont, String text, Vector2 position) {
 		this.bitmapFont = bitMapFont;
 		this.sequence = text;
-		this.text = sequence;
-		textBounds = new TextBounds(bitmapFont.getBounds(text));
+		this.text = new TextBuffer(text.length() + 8);
+		this.text.append(text);
+		cache = new BitmapFontCache(bitmapFont);
+		textBounds = new TextBounds();
 		setPosition(position);
 		visible = true;
 	}
@@ -76,9 +100,13 @@ public class BasicLabel implements ITableItem {
 			Vector2 position) {
 		this.bitmapFont = bitMapFont;
 		this.sequence = text;
+		this.value = value;
+		this.hasValue = true;
 		// Text to show will be the sequence plus the value.
-		this.text = this.sequence + value;
-		textBounds = new TextBounds(bitmapFont.getBounds(text + value));
+		this.text = new TextBuffer(text.length() + 20);
+		format();
+		cache = new BitmapFontCache(bitmapFont);
+		textBounds = new TextBounds();
 		setPosition(position);
 		visible = true;
 	}
@@ -86,8 +114,11 @@ public class BasicLabel implements ITableItem {
 	/**
 	 * Adjust the bounds when multiple row labels are created. This is not 100% precise, but it does the job.
 	 * @param ROWS
+	 * @deprecated the bounds of multiple row labels are exact now. Use {@code setWrapWidth} to wrap long texts.
 	 */
+	@Deprecated
 	public void adjustBoundsMultiRow(int ROWS) {
+		validate();
 		textBounds.width = textBounds.width / ROWS;
 		textBounds.height = textBounds.height * ROWS;
 	}
@@ -108,26 +139,171 @@ public class BasicLabel implements ITableItem {
 	}
 
 	/**
-	 * Sets the new value for the text.
+	 * Sets the new value for the text. It doesn't allocate anything, and does nothing if the value hasn't changed, so it can be called
+	 * every frame.
 	 * 
 	 * @param value
 	 */
 	public void setValue(long value) {
+		if (hasValue && value == this.value) {
+			return;
+		}
 		// Here is why the sequence needs to be saved.
 		this.value = value;
-		text = this.sequence + value;
+		this.hasValue = true;
+		format();
+		invalidate();
+	}
+
+	/**
+	 * Sets the format for the value, i.e (6, '0') for "SCORE: 000120" or (6, ' ') for "SCORE:    120".
+	 * 
+	 * @param minDigits
+	 *           the value will be padded up to minDigits. 0 for no padding.
+	 * @param padChar
+	 */
+	public void setValueFormat(int minDigits, char padChar) {
+		this.minDigits = minDigits;
+		this.padChar = padChar;
+		format();
+		invalidate();
+	}
+
+	public long getValue() {
+		return value;
 	}
 
 	public void setText(String sequence) {
 		this.sequence = sequence;
-		this.text = value == 0 ? sequence : this.sequence + value;
-		if (textBounds == null) {
-			textBounds = new TextBounds(bitmapFont.getBounds(text));
+		format();
+		invalidate();
+	}
+
+	/**
+	 * Wraps the text to the width, breaking lines between words. The bounds will be the wrapped text's.
+	 * 
+	 * @param wrapWidth
+	 *           0 to not wrap.
+	 */
+	public void setWrapWidth(float wrapWidth) {
+		if (this.wrapWidth != wrapWidth) {
+			this.wrapWidth = wrapWidth;
+			invalidate();
+		}
+	}
+
+	public float getWrapWidth() {
+		return wrapWidth;
+	}
+
+	/**
+	 * Alignment of the lines inside the wrap width. Only used if the text is wrapped.
+	 * 
+	 * @param alignment
+	 */
+	public void setAlignment(HAlignment alignment) {
+		if (this.alignment != alignment) {
+			this.alignment = alignment;
+			invalidate();
+		}
+	}
+
+	/**
+	 * Changes the font. The glyphs are laid out again, keeping the color of the label.
+	 * 
+	 * @param bitmapFont
+	 */
+	public void setFont(BitmapFont bitmapFont) {
+		// A cache is bound to it's font, so it's only replaced if the font is another one.
+		if (this.bitmapFont != bitmapFont) {
+			this.bitmapFont = bitmapFont;
+			cache = new BitmapFontCache(bitmapFont);
+			invalidate();
+		}
+	}
+
+	public BitmapFont getFont() {
+		return bitmapFont;
+	}
+
+	/**
+	 * Sets the color of the label, kept when the text or the font change. By default the label has the color of the font when it's drawn.
+	 * 
+	 * @param color
+	 *           null to use the font's color again.
+	 */
+	public void setColor(Color color) {
+		if (color == null) {
+			this.color = null;
+		} else if (this.color == null) {
+			this.color = new Color(color);
 		} else {
-			textBounds.set(bitmapFont.getBounds(text));
+			this.color.set(color);
 		}
 	}
 
+	/**
+	 * @return the color of the label, or null if it has the font's.
+	 */
+	public Color getColor() {
+		return color;
+	}
+
+	/**
+	 * @return the text drawn. It changes when the value or text change, use {@code toString()} to keep it.
+	 */
+	public CharSequence getText() {
+		return text;
+	}
+
+	@Override
+	public void setTable(Table table) {
+		this.table = table;
+	}
+
+	/**
+	 * The glyphs have to be laid out again, and the size may change.
+	 */
+	private void invalidate() {
+		layoutDirty = true;
+		if (table != null) {
+			table.invalidate(this);
+		}
+	}
+
+	/**
+	 * Writes the sequence and the value (if set) into the text.
+	 */
+	private void format() {
+		text.clear().append(sequence);
+		if (hasValue) {
+			text.append(value, minDigits, padChar);
+		}
+	}
+
+	/**
+	 * Tints the glyphs with the color of the label or the font. Does nothing if they already have it.
+	 */
+	private void tint() {
+		cache.setColor(color != null ? color : bitmapFont.getColor());
+	}
+
+	/**
+	 * Lays out the glyphs and updates the bounds if the text, font or wrap width have changed since the last time.
+	 */
+	private void validate() {
+		if (!layoutDirty) {
+			return;
+		}
+		layoutDirty = false;
+		if (wrapWidth > 0) {
+			textBounds.set(cache.setWrappedText(text, position.x, position.y, wrapWidth, alignment));
+		} else {
+			textBounds.set(cache.setMultiLineText(text, position.x, position.y));
+		}
+		realPosition.set(position.x, position.y - textBounds.height);
+	}
+
 	public void setPosition(Vector2 position) {
 		if (position != null) {
 			setPosition(position.x, position.y);
@@ -144,11 +320,14 @@ public class BasicLabel implements ITableItem {
 		}
 		
 		if (realPosition == null) {
-			realPosition = new Vector2(position.x, position.y
-					- textBounds.height);
+			realPosition = new Vector2();
+		}
+
+		if (layoutDirty) {
+			validate();
 		} else {
-			realPosition.set(position.x, position.y
-					- textBounds.height);
+			cache.setPosition(x, y);
+			realPosition.set(position.x, position.y - textBounds.height);
 		}
 	}
 	
@@ -163,25 +342,44 @@ public class BasicLabel implements ITableItem {
 	}
 
 	public Vector2 getPosition() {
+		validate();
 		return realPosition;
 	}
 
 	public float getWidth() {
+		validate();
 		return textBounds.width;
 	}
 
 	public float getHeight() {
+		validate();
 		return textBounds.height;
 	}
 
 	/**
-	 * Calls the bitmapFont's draw method with it's text.
+	 * Draws the cached glyphs, laying them out first if the text has changed.
 	 * 
 	 * @param batch
 	 */
 	public void draw(SpriteBatch batch) {
 		if (visible) {
-			bitmapFont.drawMultiLine(batch, text, position.x, position.y);
+			validate();
+			tint();
+			cache.draw(batch);
+		}
+	}
+
+	/**
+	 * Adds the text to the queue.
+	 * 
+	 * @param queue
+	 * @param layer
+	 */
+	public void draw(RenderQueue queue, int layer) {
+		if (visible) {
+			validate();
+			tint();
+			queue.drawText(layer, cache);
 		}
 	}
 
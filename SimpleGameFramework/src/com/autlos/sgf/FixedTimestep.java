@@ -0,0 +1,144 @@
+package com.autlos.sgf;
+
+/**
+ * Runs a {@link WorldAbstract} at a fixed tick rate, whatever the frame rate is. Frame time is accumulated and consumed in fixed ticks, with
+ * a maximum of ticks per frame, so a slow frame doesn't make the next one slower (spiral of death). The time left in the accumulator is
+ * given as alpha, to draw the entities interpolated between the previous and the current tick.
+ * 
+ * @author Autlos
+ * 
+ */
+public class FixedTimestep {
+	// Seconds per tick
+	private float step;
+	private int maxStepsPerFrame;
+	private float accumulator;
+	private float alpha;
+
+	private long ticks;
+	private long droppedTicks;
+
+	/**
+	 * Creates a FixedTimestep at 60 ticks per second and a maximum of 5 ticks per frame.
+	 */
+	public FixedTimestep() {
+		this(60f, 5);
+	}
+
+	/**
+	 * Creates a FixedTimestep.
+	 * 
+	 * @param tickRate
+	 *           ticks per second.
+	 * @param maxStepsPerFrame
+	 *           ticks that can be run in a single frame to catch up. The rest of the time is dropped.
+	 */
+	public FixedTimestep(float tickRate, int maxStepsPerFrame) {
+		setTickRate(tickRate);
+		setMaxStepsPerFrame(maxStepsPerFrame);
+	}
+
+	/**
+	 * Adds the frame time to the accumulator and runs as many ticks as fit in it (up to maxStepsPerFrame).
+	 * 
+	 * @param frameDelta
+	 *           time since the last frame, in seconds.
+	 * @param world
+	 * @return the ticks run.
+	 */
+	public int advance(float frameDelta, WorldAbstract world) {
+		if (frameDelta > 0) {
+			accumulator += frameDelta;
+		}
+
+		int steps = 0;
+		while (accumulator >= step && steps < maxStepsPerFrame) {
+			world.tick(step);
+			accumulator -= step;
+			steps++;
+		}
+		ticks += steps;
+
+		// Too far behind: drop the time that could not be simulated instead of trying to catch up in the next frames.
+		if (accumulator >= step) {
+			droppedTicks += (long) (accumulator / step);
+			accumulator %= step;
+		}
+
+		alpha = accumulator / step;
+		return steps;
+	}
+
+	/**
+	 * Runs the ticks as fast as possible, without waiting for real time. For headless simulations and tests.
+	 * 
+	 * @param world
+	 * @param ticks
+	 */
+	public void run(WorldAbstract world, int ticks) {
+		for (int i = 0; i < ticks; i++) {
+			world.tick(step);
+		}
+		this.ticks += ticks;
+		alpha = accumulator / step;
+	}
+
+	/**
+	 * Empties the accumulator, i.e when the game is resumed.
+	 */
+	public void reset() {
+		accumulator = 0f;
+		alpha = 0f;
+	}
+
+	/**
+	 * @param tickRate
+	 *           ticks per second.
+	 */
+	public void setTickRate(float tickRate) {
+		if (tickRate <= 0) {
+			throw new IllegalArgumentException("tickRate must be > 0: " + tickRate);
+		}
+		this.step = 1f / tickRate;
+	}
+
+	public float getTickRate() {
+		return 1f / step;
+	}
+
+	/**
+	 * @return seconds per tick.
+	 */
+	public float getStep() {
+		return step;
+	}
+
+	public void setMaxStepsPerFrame(int maxStepsPerFrame) {
+		this.maxStepsPerFrame = Math.max(1, maxStepsPerFrame);
+	}
+
+	public int getMaxStepsPerFrame() {
+		return maxStepsPerFrame;
+	}
+
+	/**
+	 * @return from 0 to 1, how far the current time is between the previous tick and the next one. Use it to draw interpolated.
+	 */
+	public float getAlpha() {
+		return alpha;
+	}
+
+	/**
+	 * @return total ticks run.
+	 */
+	public long getTicks() {
+		return ticks;
+	}
+
+	/**
+	 * @return total ticks dropped because the maximum of ticks per frame was reached.
+	 */
+	public long getDroppedTicks() {
+		return droppedTicks;
+	}
+}
@@ -1,9 +1,22 @@
 package com.autlos.sgf;
 
+import com.autlos.sgf.input.InputRecorder;
+import com.autlos.sgf.input.InputReplayer;
+import com.autlos.sgf.metrics.MetricsRegistry;
+import com.autlos.sgf.profiler.FrameProfiler;
+import com.autlos.sgf.profiler.Tracer;
+import com.autlos.sgf.tween.TweenManager;
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Screen;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 
 /**
+ * Base of a game. The name, version, debugMode, screen size, scale and random generator of the game are kept in it's
+ * {@link GameContext} (see {@code getContext()}), not in statics, so each game instance (and each headless world) is independent. The
+ * {@code FrameCache} and the {@code Tracer} are the exceptions: they are static on purpose, and shared by every game in the JVM.
+ * 
  * @author Autlos
  * 
  */
@@ -12,36 +25,45 @@ public abstract class GameAbstract extends Game {
 		BIG, SMALL
 	}
 
-	// Coordinates which otherwise, you would need to calculate 10000 times during the game- 
-	public static float screenMidX;
-	public static float screenMidY;
-	public static float screenHeight;
-	public static float screenWidth;
-	public static float screenBotY;
-	
-	// Scales Y&X for big and small resolution. If you want to add more resolutions, just edit this class and add them.
-	public static float SCALE_X_BIG;
-	public static float SCALE_Y_BIG;
-	public static float SCALE_X_SMALL;
-	public static float SCALE_Y_SMALL;
+	// Name, version, debugMode, screen size, scale and random generator of this game.
+	protected final GameContext context;
 	
-	// The actual scale for the game
-	public static float scaleX;
-	public static float scaleY;
-	public static TARGET_SIZE targetSize;
-
-	public static String NAME;
-	public static String VERSION;
+	// Scales Y&X for big and small resolution, for detectScale. If you want to add more resolutions, just edit this class and add them.
+	protected float SCALE_X_BIG;
+	protected float SCALE_Y_BIG;
+	protected float SCALE_X_SMALL;
+	protected float SCALE_Y_SMALL;
 	
 	private float bigResolutionHeight;
 	private float bigResolutionWidth;
 	private float smallResolutionWidth;
 	private float smallResolutionHeight;
-	
-	/**
-	 * You may use the debugMode or not. For example at the WorldRenderer, draw rectangles over the textures if debugMode is true.
-	 */
-	public static boolean debugMode;
+
+	// Fixed timestep simulation. Only used if a world has been set with setWorld.
+	protected FixedTimestep timestep;
+	protected WorldAbstract world;
+
+	// Tweens of the game (i.e UI animations), updated every frame before rendering.
+	protected TweenManager tweens;
+
+	// Records the deltas and input of the run, or plays a recorded run instead of the real deltas and input.
+	protected InputRecorder recorder;
+	protected InputReplayer replayer;
+
+	// Measures the phases of each frame in debugMode, and shows them over the screen.
+	protected final FrameProfiler profiler;
+	private final int worldScope, tweensScope, screenScope;
+	// Names of the phases in the Tracer timeline.
+	private static final int TRACE_FRAME = Tracer.register("frame");
+	private static final int TRACE_WORLD = Tracer.register("world");
+	private static final int TRACE_TWEENS = Tracer.register("tweens");
+	private static final int TRACE_SCREEN = Tracer.register("screen");
+	private static final int TRACE_SET_SCREEN = Tracer.register("setScreen");
+	private SpriteBatch overlayBatch;
+	private BitmapFont overlayFont;
+
+	// Metrics of the world and the tweens, null if not exported.
+	protected MetricsRegistry metrics;
 
 	/**
 	 * Initializes the name of the app, the version and whether it is debugMode or not.
@@ -50,9 +72,261 @@ public abstract class GameAbstract extends Game {
 	 * @param debugMode
 	 */
 	public GameAbstract(String NAME, String VERSION, boolean debugMode) {
-		GameAbstract.NAME = NAME;
-		GameAbstract.VERSION = VERSION;
-		GameAbstract.debugMode = debugMode;
+		this(new GameContext(NAME, VERSION, debugMode));
+	}
+
+	/**
+	 * Creates the game with a context of it's own, i.e with a seed for the random generator.
+	 * @param context
+	 */
+	public GameAbstract(GameContext context) {
+		this.context = context;
+		timestep = new FixedTimestep();
+		tweens = new TweenManager();
+		profiler = new FrameProfiler();
+		worldScope = profiler.register("world");
+		tweensScope = profiler.register("tweens");
+		screenScope = profiler.register("screen");
+	}
+
+	/**
+	 * Advances the world (if set) at the fixed tick rate and the tweens, and then renders the current screen. When replaying, the recorded
+	 * delta and input of the frame are used instead of the real ones. Once the log has been played, the real ones are used again.
+	 */
+	@Override
+	public void render() {
+		float delta = Gdx.graphics.getDeltaTime();
+		if (replayer != null) {
+			if (replayer.nextFrame()) {
+				delta = replayer.getDelta();
+				replayer.dispatch(Gdx.input.getInputProcessor());
+			} else {
+				// The log has ended: this frame already runs with the real delta and input.
+				replayer = null;
+			}
+		}
+		if (recorder != null) {
+			recorder.frame(delta);
+		}
+		boolean debugMode = context.isDebugMode();
+		if (profiler.isEnabled() != debugMode) {
+			profiler.setEnabled(debugMode);
+		}
+		profiler.beginFrame();
+		Tracer.begin(TRACE_FRAME);
+
+		if (world != null) {
+			begin(worldScope, TRACE_WORLD);
+			timestep.advance(delta, world);
+			end(TRACE_WORLD);
+		}
+		begin(tweensScope, TRACE_TWEENS);
+		tweens.update(delta);
+		end(TRACE_TWEENS);
+		// Not super.render(): the screen gets the replayed delta too.
+		Screen screen = getScreen();
+		if (screen != null) {
+			begin(screenScope, TRACE_SCREEN);
+			screen.render(delta);
+			end(TRACE_SCREEN);
+		}
+
+		Tracer.end(TRACE_FRAME);
+		profiler.endFrame();
+		if (debugMode) {
+			drawProfiler();
+		}
+		if (recorder != null) {
+			// The screen may have set a new input processor.
+			recorder.attach();
+		}
+	}
+
+	private void begin(int scope, int trace) {
+		profiler.begin(scope);
+		Tracer.begin(trace);
+	}
+
+	private void end(int trace) {
+		Tracer.end(trace);
+		profiler.end();
+	}
+
+	/**
+	 * Switches the screen, traced as "setScreen" (hide and show included) followed by a mark with the name of the new screen.
+	 */
+	@Override
+	public void setScreen(Screen screen) {
+		if (!Tracer.isTracing()) {
+			super.setScreen(screen);
+			return;
+		}
+		Tracer.begin(TRACE_SET_SCREEN);
+		super.setScreen(screen);
+		Tracer.end(TRACE_SET_SCREEN);
+		if (screen != null) {
+			Tracer.instant(Tracer.register("screen " + screen.getClass().getSimpleName()));
+		}
+	}
+
+	/**
+	 * Draws the profiler overlay at the top left corner, with a batch and font of it's own (created the first time).
+	 */
+	protected void drawProfiler() {
+		if (overlayBatch == null) {
+			overlayBatch = new SpriteBatch();
+			overlayFont = new BitmapFont();
+		}
+		overlayBatch.begin();
+		profiler.drawOverlay(overlayBatch, overlayFont, 5f, Gdx.graphics.getHeight() - 5f);
+		overlayBatch.end();
+	}
+
+	@Override
+	public void resize(int width, int height) {
+		super.resize(width, height);
+		if (overlayBatch != null) {
+			overlayBatch.getProjectionMatrix().setToOrtho2D(0, 0, width, height);
+		}
+	}
+
+	@Override
+	public void dispose() {
+		super.dispose();
+		if (overlayBatch != null) {
+			overlayBatch.dispose();
+			overlayFont.dispose();
+		}
+	}
+
+	/**
+	 * @return the name, version, debugMode, screen size, scale and random generator of this game.
+	 */
+	public GameContext getContext() {
+		return context;
+	}
+
+	/**
+	 * @return the profiler of the frames. Register scopes in it to measure phases of the screens or the world.
+	 */
+	public FrameProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * Exports the metrics of the world (also of the worlds set later) and of the tweens to the registry.
+	 * 
+	 * @param metrics
+	 *           null to stop exporting.
+	 */
+	public void setMetrics(MetricsRegistry metrics) {
+		this.metrics = metrics;
+		if (world != null) {
+			world.setMetrics(metrics);
+		}
+		tweens.setMetrics(metrics);
+	}
+
+	public MetricsRegistry getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * Starts recording the deltas and the input of every frame. Record from the same state the replay will start from (i.e right after
+	 * create). null to stop recording; the recorder is not closed.
+	 * 
+	 * @param recorder
+	 */
+	public void setRecorder(InputRecorder recorder) {
+		if (this.recorder != null) {
+			this.recorder.detach();
+		}
+		this.recorder = recorder;
+		if (recorder != null) {
+			recorder.attach();
+		}
+	}
+
+	public InputRecorder getRecorder() {
+		return recorder;
+	}
+
+	/**
+	 * Plays a recorded run from the next frame on. When the log ends, the real deltas and input are used again.
+	 * 
+	 * @param replayer
+	 */
+	public void setReplayer(InputReplayer replayer) {
+		this.replayer = replayer;
+	}
+
+	public InputReplayer getReplayer() {
+		return replayer;
+	}
+
+	/**
+	 * Sets the world to be updated at a fixed tick rate before rendering each frame. The screens should draw the entities with
+	 * {@code entity.draw(batch, getAlpha())}. null to update the world from the screens instead. The world gets the context of the game
+	 * if it has none.
+	 * 
+	 * @param world
+	 */
+	public void setWorld(WorldAbstract world) {
+		if (this.world != null && this.world.getProfiler() == profiler) {
+			this.world.setProfiler(null);
+		}
+		if (this.world != null && metrics != null && this.world.getMetrics() == metrics) {
+			this.world.setMetrics(null);
+		}
+		this.world = world;
+		if (world != null) {
+			if (world.getContext() == null) {
+				world.setContext(context);
+			}
+			world.setProfiler(profiler);
+			if (metrics != null) {
+				world.setMetrics(metrics);
+			}
+		}
+		timestep.reset();
+	}
+
+	public WorldAbstract getWorld() {
+		return world;
+	}
+
+	/**
+	 * @param tickRate
+	 *           ticks per second for the world. 60 by default.
+	 */
+	public void setTickRate(float tickRate) {
+		timestep.setTickRate(tickRate);
+	}
+
+	/**
+	 * @param maxStepsPerFrame
+	 *           ticks that can be run in a single frame to catch up. 5 by default.
+	 */
+	public void setMaxStepsPerFrame(int maxStepsPerFrame) {
+		timestep.setMaxStepsPerFrame(maxStepsPerFrame);
+	}
+
+	/**
+	 * @return the alpha to draw the entities interpolated between the previous and the current tick.
+	 */
+	public float getAlpha() {
+		return timestep.getAlpha();
+	}
+
+	public FixedTimestep getTimestep() {
+		return timestep;
+	}
+
+	/**
+	 * @return the TweenManager updated every frame, to animate GuiElements and entities.
+	 */
+	public TweenManager getTweens() {
+		return tweens;
 	}
 
 	
@@ -73,11 +347,9 @@ public abstract class GameAbstract extends Game {
 		this.smallResolutionWidth = smallResolutionWidth;
 		this.smallResolutionHeight = smallResolutionHeight;
 		
-		screenMidX = Gdx.graphics.getWidth() / 2;
-		screenMidY = Gdx.graphics.getHeight() / 2;
-		screenHeight = Gdx.graphics.getHeight();
-		screenWidth = Gdx.graphics.getWidth();
-		screenBotY = 0f;
+		context.setScreenSize(Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+		float screenWidth = context.getScreenWidth();
+		float screenHeight = context.getScreenHeight();
 		
 		SCALE_X_BIG = screenWidth / this.bigResolutionWidth;
 		SCALE_Y_BIG = screenHeight / this.bigResolutionHeight;
@@ -95,17 +367,16 @@ public abstract class GameAbstract extends Game {
 		Gdx.input.setCatchMenuKey(catchHome);
 	}
 	
-	public static void switchDebug() {
-		debugMode = !debugMode;
+	public void switchDebug() {
+		context.switchDebug();
 	}
 
-	public static void log(String message) {
-		if (debugMode)
-			Gdx.app.log(NAME + " " + VERSION, message);
+	public void log(String message) {
+		context.log(message);
 	}
 	
 	/**
-	 * Use this method to detect the target scale. 
+	 * Use this method to detect the target scale, and set it with {@code context.setScale}. 
 	 * If target resolutions are 480-320 and 800-480, and the device's resolution is  528-352, target would be 480-320 and scale 1.1f
 	 * If device's resolution is 720-432, target would be 800-480 and scale 0.9f.
 	 * See the comment below to look an implementation example.
@@ -114,13 +385,9 @@ public abstract class GameAbstract extends Game {
 	/*
 	public void detectScale() {
 		if (Math.abs(1 - SCALE_X_BIG) <= Math.abs(1 - SCALE_X_SMALL)) {
-			scaleX = SCALE_X_BIG;
-			scaleY = SCALE_Y_BIG;
-			targetSize = TARGET_SIZE.BIG;
+			context.setScale(SCALE_X_BIG, SCALE_Y_BIG, TARGET_SIZE.BIG);
 		} else {
-			scaleX = SCALE_X_SMALL;
-			scaleY = SCALE_Y_SMALL;
-			targetSize = TARGET_SIZE.SMALL;
+			context.setScale(SCALE_X_SMALL, SCALE_Y_SMALL, TARGET_SIZE.SMALL);
 		}
 	}
 	*/
@@ -0,0 +1,191 @@
+package com.autlos.sgf;
+
+import java.util.Random;
+
+import com.autlos.sgf.GameAbstract.TARGET_SIZE;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * The state of one game instance: name, version, debugMode, the size of the screen (or of the simulated viewport when headless), the
+ * scale for the target resolution and a random generator. Each GameAbstract has it's own, and gives it to it's world, so several games or
+ * headless worlds can run in the same JVM (i.e in parallel threads) without sharing anything.
+ * <p>
+ * The random generator is seeded, so a world that only uses {@code getRandom()} (and not {@code MathUtils.random}, which is shared by the
+ * whole JVM) runs the same way every time with the same seed and input. The seed is random unless set with {@code setSeed}; log
+ * {@code getSeed()} to reproduce a run.
+ *
+ * @author Autlos
+ *
+ */
+public class GameContext {
+	private final String name;
+	private final String version;
+	private boolean debugMode;
+
+	// Coordinates which otherwise, you would need to calculate 10000 times during the game.
+	private float screenWidth;
+	private float screenHeight;
+	private float screenMidX;
+	private float screenMidY;
+	private float screenBotY;
+	private final Rectangle viewport = new Rectangle();
+
+	// The actual scale for the game.
+	private float scaleX = 1f;
+	private float scaleY = 1f;
+	private TARGET_SIZE targetSize;
+
+	private long seed;
+	private final Random random;
+
+	/**
+	 * @param name
+	 * @param version
+	 * @param debugMode
+	 */
+	public GameContext(String name, String version, boolean debugMode) {
+		this(name, version, debugMode, System.nanoTime());
+	}
+
+	/**
+	 * @param name
+	 * @param version
+	 * @param debugMode
+	 * @param seed
+	 *           of the random generator.
+	 */
+	public GameContext(String name, String version, boolean debugMode, long seed) {
+		this.name = name;
+		this.version = version;
+		this.debugMode = debugMode;
+		this.seed = seed;
+		random = new Random(seed);
+	}
+
+	/**
+	 * Sets the size of the screen, i.e {@code Gdx.graphics.getWidth()} and {@code getHeight()}, or of the area simulated by a headless
+	 * world.
+	 *
+	 * @param width
+	 * @param height
+	 */
+	public void setScreenSize(float width, float height) {
+		screenWidth = width;
+		screenHeight = height;
+		screenMidX = width / 2;
+		screenMidY = height / 2;
+		screenBotY = 0f;
+		viewport.set(0f, 0f, width, height);
+	}
+
+	/**
+	 * Sets the scale detected for the target resolution, see {@code GameAbstract.detectScale()}.
+	 *
+	 * @param scaleX
+	 * @param scaleY
+	 * @param targetSize
+	 */
+	public void setScale(float scaleX, float scaleY, TARGET_SIZE targetSize) {
+		this.scaleX = scaleX;
+		this.scaleY = scaleY;
+		this.targetSize = targetSize;
+	}
+
+	/**
+	 * Restarts the random generator with the seed.
+	 *
+	 * @param seed
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+		random.setSeed(seed);
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/**
+	 * @return the random generator of this game. Use it instead of {@code MathUtils.random} for runs that can be reproduced.
+	 */
+	public Random getRandom() {
+		return random;
+	}
+
+	/**
+	 * Logs the message with the name and version of the game as tag, only in debugMode.
+	 *
+	 * @param message
+	 */
+	public void log(String message) {
+		if (debugMode) {
+			Gdx.app.log(name + " " + version, message);
+		}
+	}
+
+	public void switchDebug() {
+		debugMode = !debugMode;
+	}
+
+	/**
+	 * You may use the debugMode or not. For example at the WorldRenderer, draw rectangles over the textures if debugMode is true.
+	 *
+	 * @param debugMode
+	 */
+	public void setDebugMode(boolean debugMode) {
+		this.debugMode = debugMode;
+	}
+
+	public boolean isDebugMode() {
+		return debugMode;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	public String getVersion() {
+		return version;
+	}
+
+	public float getScreenWidth() {
+		return screenWidth;
+	}
+
+	public float getScreenHeight() {
+		return screenHeight;
+	}
+
+	public float getScreenMidX() {
+		return screenMidX;
+	}
+
+	public float getScreenMidY() {
+		return screenMidY;
+	}
+
+	public float getScreenBotY() {
+		return screenBotY;
+	}
+
+	/**
+	 * @return the rectangle of the screen, from 0,0. It's updated by {@code setScreenSize}, so it can be kept (i.e as the area of a
+	 *         ProjectileManager). Don't modify it.
+	 */
+	public Rectangle getViewport() {
+		return viewport;
+	}
+
+	public float getScaleX() {
+		return scaleX;
+	}
+
+	public float getScaleY() {
+		return scaleY;
+	}
+
+	public TARGET_SIZE getTargetSize() {
+		return targetSize;
+	}
+}
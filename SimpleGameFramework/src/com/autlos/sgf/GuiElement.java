@@ -2,18 +2,19 @@ package com.autlos.sgf;
 
 import com.autlos.sgf.models.Entity;
 import com.autlos.sgf.screens.ScreenController.Action;
-import com.autlos.sgf.ui.ITableItem;
+import com.autlos.sgf.screens.ScreenController.PointerAction;
+import com.autlos.sgf.ui.ILayoutItem;
+import com.autlos.sgf.ui.Table;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 
 /**
  * @author Autlos
  * 
  */
-public class GuiElement extends Entity implements ITableItem{
+public class GuiElement extends Entity implements ILayoutItem{
 		
 	/**
 	 * enum to with the states NOT_PRESSED and PRESSED
@@ -38,7 +39,6 @@ public class GuiElement extends Entity implements ITableItem{
 	protected State state;
 	protected TouchDirection touchDirection;
 	protected float touchAngle;
-	protected Rectangle touchRecgantle;
 
 	// The finger which touched the element
 	protected int pointer;
@@ -47,6 +47,9 @@ public class GuiElement extends Entity implements ITableItem{
 	// If the element is visible or not:
 	protected boolean visible;
 
+	// Table the element is laid out by, if any.
+	protected Table table;
+
 	/**
 	 * Creates a GuiElement with a textureRegion to be drawn at a position. i.e the HUD background
 	 * 
@@ -112,6 +115,18 @@ public class GuiElement extends Entity implements ITableItem{
 		}
 	}
 
+	public void draw(SpriteBatch batch, WorldCamera camera) {
+		if (visible) {
+			super.draw(batch, camera);
+		}
+	}
+
+	public void draw(RenderQueue queue, int layer) {
+		if (visible) {
+			super.draw(queue, layer);
+		}
+	}
+
 	public void setVisible(boolean visible) {
 		this.visible = visible;
 	}
@@ -123,12 +138,8 @@ public class GuiElement extends Entity implements ITableItem{
 	 */
 	public boolean isTouchingElement(float x, float y) {
 		if (visible) {
-			if (touchRecgantle == null) {
-				touchRecgantle = new Rectangle(x, y, 1, 1);
-			} else {
-				touchRecgantle.set(x, y, 1, 1);
-			}
-			return this.getBounds().overlaps(touchRecgantle);
+			// Same as testing a 1x1 rectangle at x, y against the bounds.
+			return bounds.x < x + 1 && bounds.x + bounds.width > x && bounds.y < y + 1 && bounds.y + bounds.height > y;
 		} else {
 			return false;
 		}
@@ -261,11 +272,53 @@ public class GuiElement extends Entity implements ITableItem{
 		}
 	}
 
+	/**
+	 * Called by the {@link com.autlos.sgf.screens.ScreenController} when the pointer that pressed the element is dragged, even outside of
+	 * it.
+	 * 
+	 * @param x
+	 * @param y
+	 */
+	public void touchDragged(float x, float y) {
+		if (action instanceof PointerAction) {
+			((PointerAction) action).touchDragged(x, y);
+		}
+	}
+
+	/**
+	 * Called by the {@link com.autlos.sgf.screens.ScreenController} when a pointer goes over the element.
+	 */
+	public void enter() {
+		if (action instanceof PointerAction) {
+			((PointerAction) action).enter();
+		}
+	}
+
+	/**
+	 * Called by the {@link com.autlos.sgf.screens.ScreenController} when a pointer leaves the element.
+	 */
+	public void exit() {
+		if (action instanceof PointerAction) {
+			((PointerAction) action).exit();
+		}
+	}
+
 	public void setAction(Action action) {
 		this.action = action;
 		
 	}
 	
+	/**
+	 * Moves the element and it's bounds, so it can be touched where it is drawn.
+	 */
+	@Override
+	public void setPosition(float x, float y) {
+		super.setPosition(x, y);
+		if (bounds != null) {
+			updateBounds();
+		}
+	}
+
 	public void setPositionX(float x){
 		setPosition(x, position.y);
 	}
@@ -274,4 +327,24 @@ public class GuiElement extends Entity implements ITableItem{
 		setPosition(position.x, y);
 	}
 
+	@Override
+	public void setWidth(float width, boolean scalable) {
+		super.setWidth(width, scalable);
+		if (table != null) {
+			table.invalidate(this);
+		}
+	}
+
+	@Override
+	public void setHeight(float height, boolean scalable) {
+		super.setHeight(height, scalable);
+		if (table != null) {
+			table.invalidate(this);
+		}
+	}
+
+	public void setTable(Table table) {
+		this.table = table;
+	}
+
 }
@@ -131,6 +131,16 @@ public class GuiTextElement extends GuiElement{
 		}
 	}
 
+	/**
+	 * Adds the GuiElement to the queue at layer, and the label at layer + 1, so all the backgrounds are drawn before all the labels.
+	 */
+	public void draw(RenderQueue queue, int layer) {
+		super.draw(queue, layer);
+		if (visible) {
+			label.draw(queue, layer + 1);
+		}
+	}
+
 	/**
 	 * Aligns the text relative to the center of the GuiElement
 	 * 
@@ -199,6 +209,17 @@ public class GuiTextElement extends GuiElement{
 		}
 	}
 	
+	/**
+	 * Wraps the text to the width of the element (minus padding on each side), and aligns it again.
+	 * 
+	 * @param wrap
+	 * @param padding
+	 */
+	public void setTextWrap(boolean wrap, float padding) {
+		label.setWrapWidth(wrap ? getWidth() - 2 * padding : 0f);
+		alignText(align);
+	}
+
 	public BasicLabel getLabel() {
 		return label;
 	}
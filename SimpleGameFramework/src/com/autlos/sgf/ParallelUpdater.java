@@ -0,0 +1,361 @@
+package com.autlos.sgf;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.autlos.sgf.models.Entity;
+import com.autlos.sgf.models.SpatialHash;
+import com.autlos.sgf.profiler.Tracer;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Updates an Array of entities using all the cores. Use it from {@code WorldAbstract.update} for big populations, i.e
+ * {@code updater.update(enemies, delta)}.
+ * <p>
+ * The update has two phases. First, the array is split in chunks of a fixed size, which are updated in parallel. Each entity may only
+ * change itself; anything else (spawning, removing) has to be requested through the {@link Commands} of it's chunk. Then the commands are
+ * applied in a single thread, chunk after chunk, so the result is always the same whatever the threads did. If a SpatialHash is set, the
+ * entities moved during the parallel phase are updated in it during the second phase too.
+ * 
+ * @author Autlos
+ * 
+ */
+public class ParallelUpdater<T extends Entity> implements Disposable {
+	/**
+	 * Side effects requested while updating a chunk. They are applied after every chunk has been updated.
+	 * 
+	 * @author Autlos
+	 * 
+	 */
+	public static class Commands<T> {
+		final Array<T> spawned = new Array<T>();
+		final Array<T> removed = new Array<T>();
+
+		/**
+		 * The entity will be added at the end of the array.
+		 * 
+		 * @param entity
+		 */
+		public void spawn(T entity) {
+			spawned.add(entity);
+		}
+
+		/**
+		 * The entity will be removed from the array.
+		 * 
+		 * @param entity
+		 */
+		public void remove(T entity) {
+			removed.add(entity);
+		}
+	}
+
+	// Traced in the thread that runs them, so the timeline shows how the chunks are spread over the pool.
+	private static final int TRACE_UPDATE = Tracer.register("parallel.update");
+	private static final int TRACE_CHUNK = Tracer.register("parallel.chunk");
+	private static final int TRACE_COMMIT = Tracer.register("parallel.commit");
+
+	private final ForkJoinPool pool;
+	private final boolean ownsPool;
+	private final int chunkSize;
+	private Commands<T>[] commands;
+	// One task per chunk, reused every update so the parallel phase doesn't allocate.
+	private ChunkTask[] tasks;
+	private final RootTask root = new RootTask(this);
+	private boolean parallel = true;
+	private SpatialHash spatialHash;
+
+	// For the current update:
+	private Array<T> entities;
+	private float delta;
+
+	// Entities to remove in the commit phase.
+	private final ObjectMap<T, Boolean> removed = new ObjectMap<T, Boolean>();
+
+	/**
+	 * Creates a ParallelUpdater with it's own pool (one thread per core) and chunks of 512 entities.
+	 */
+	public ParallelUpdater() {
+		this(new ForkJoinPool(), true, 512);
+	}
+
+	/**
+	 * Creates a ParallelUpdater with it's own pool (one thread per core).
+	 * 
+	 * @param chunkSize
+	 *           entities updated together by one thread. It doesn't depend on the cores, so the result doesn't either.
+	 */
+	public ParallelUpdater(int chunkSize) {
+		this(new ForkJoinPool(), true, chunkSize);
+	}
+
+	/**
+	 * Creates a ParallelUpdater using a shared pool. The pool is not shut down by {@code dispose()}.
+	 * 
+	 * @param pool
+	 * @param chunkSize
+	 *           entities updated together by one thread. It doesn't depend on the cores, so the result doesn't either.
+	 */
+	public ParallelUpdater(ForkJoinPool pool, int chunkSize) {
+		this(pool, false, chunkSize);
+	}
+
+	@SuppressWarnings("unchecked")
+	private ParallelUpdater(ForkJoinPool pool, boolean ownsPool, int chunkSize) {
+		if (chunkSize <= 0) {
+			throw new IllegalArgumentException("chunkSize must be > 0: " + chunkSize);
+		}
+		this.pool = pool;
+		this.ownsPool = ownsPool;
+		this.chunkSize = chunkSize;
+		commands = (Commands<T>[]) new Commands<?>[0];
+		tasks = new ChunkTask[0];
+	}
+
+	/**
+	 * Updates every entity (in parallel if there is more than one chunk), and then applies the spawns and removals requested.
+	 * 
+	 * @param entities
+	 * @param delta
+	 */
+	public void update(Array<T> entities, float delta) {
+		int chunks = (entities.size + chunkSize - 1) / chunkSize;
+		ensureChunks(chunks);
+		this.entities = entities;
+		this.delta = delta;
+
+		Tracer.begin(TRACE_UPDATE);
+		if (spatialHash != null) {
+			spatialHash.setDeferred(true);
+		}
+		boolean updated = false;
+		try {
+			if (!parallel || chunks <= 1) {
+				for (int i = 0; i < chunks; i++) {
+					updateChunk(i);
+				}
+			} else {
+				root.chunks = chunks;
+				root.reinitialize();
+				pool.invoke(root);
+			}
+			updated = true;
+		} finally {
+			if (spatialHash != null) {
+				spatialHash.setDeferred(false);
+			}
+			this.entities = null;
+			if (!updated) {
+				// The commands of a failed update are dropped, not applied by the next one.
+				clearCommands(chunks);
+			}
+			Tracer.end(TRACE_UPDATE);
+		}
+
+		Tracer.begin(TRACE_COMMIT);
+		try {
+			commit(entities, chunks);
+		} finally {
+			clearCommands(chunks);
+			Tracer.end(TRACE_COMMIT);
+		}
+	}
+
+	/**
+	 * Updates one entity. Override it to pass the commands to the entity, i.e if it can shoot or die.
+	 * 
+	 * @param entity
+	 * @param delta
+	 * @param commands
+	 *           of the entity's chunk.
+	 */
+	protected void update(T entity, float delta, Commands<T> commands) {
+		entity.update(delta);
+	}
+
+	/**
+	 * Called in the commit phase for every entity spawned, after it has been added to the array.
+	 * 
+	 * @param entity
+	 */
+	protected void spawned(T entity) {
+		if (spatialHash != null) {
+			spatialHash.add(entity);
+		}
+	}
+
+	/**
+	 * Called in the commit phase for every entity removed, after it has been removed from the array.
+	 * 
+	 * @param entity
+	 */
+	protected void removed(T entity) {
+		if (spatialHash != null) {
+			spatialHash.remove(entity);
+		}
+	}
+
+	private void updateChunk(int chunk) {
+		Tracer.begin(TRACE_CHUNK);
+		Commands<T> commands = this.commands[chunk];
+		int end = Math.min((chunk + 1) * chunkSize, entities.size);
+		for (int i = chunk * chunkSize; i < end; i++) {
+			update(entities.get(i), delta, commands);
+		}
+		Tracer.end(TRACE_CHUNK);
+	}
+
+	private void commit(Array<T> entities, int chunks) {
+		if (spatialHash != null) {
+			spatialHash.commitDeferred();
+		}
+
+		for (int c = 0; c < chunks; c++) {
+			Array<T> removed = commands[c].removed;
+			for (int i = 0; i < removed.size; i++) {
+				this.removed.put(removed.get(i), Boolean.TRUE);
+			}
+		}
+		if (this.removed.size > 0) {
+			// One pass, keeping the order of the array.
+			int kept = 0;
+			for (int i = 0; i < entities.size; i++) {
+				T entity = entities.get(i);
+				if (this.removed.containsKey(entity)) {
+					removed(entity);
+				} else {
+					entities.set(kept++, entity);
+				}
+			}
+			entities.truncate(kept);
+		}
+
+		for (int c = 0; c < chunks; c++) {
+			Array<T> spawned = commands[c].spawned;
+			for (int i = 0; i < spawned.size; i++) {
+				T entity = spawned.get(i);
+				entities.add(entity);
+				spawned(entity);
+			}
+		}
+	}
+
+	private void clearCommands(int chunks) {
+		for (int c = 0; c < chunks; c++) {
+			commands[c].spawned.clear();
+			commands[c].removed.clear();
+		}
+		removed.clear();
+	}
+
+	@SuppressWarnings("unchecked")
+	private void ensureChunks(int chunks) {
+		if (chunks <= commands.length) {
+			return;
+		}
+		Commands<T>[] newCommands = (Commands<T>[]) new Commands<?>[chunks];
+		ChunkTask[] newTasks = new ChunkTask[chunks];
+		System.arraycopy(commands, 0, newCommands, 0, commands.length);
+		System.arraycopy(tasks, 0, newTasks, 0, tasks.length);
+		for (int i = commands.length; i < chunks; i++) {
+			newCommands[i] = new Commands<T>();
+			newTasks[i] = new ChunkTask(this, i);
+		}
+		commands = newCommands;
+		tasks = newTasks;
+	}
+
+	/**
+	 * If false, the chunks are updated one after the other in the calling thread, with the same result. True by default.
+	 * 
+	 * @param parallel
+	 */
+	public void setParallel(boolean parallel) {
+		this.parallel = parallel;
+	}
+
+	public boolean isParallel() {
+		return parallel;
+	}
+
+	/**
+	 * Sets the SpatialHash the entities are in. Their cells will be updated in the commit phase, and spawned/removed entities will be
+	 * added/removed from it.
+	 * 
+	 * @param spatialHash
+	 */
+	public void setSpatialHash(SpatialHash spatialHash) {
+		this.spatialHash = spatialHash;
+	}
+
+	public int getChunkSize() {
+		return chunkSize;
+	}
+
+	/**
+	 * Shuts down the pool if it was created by this ParallelUpdater.
+	 */
+	@Override
+	public void dispose() {
+		if (ownsPool) {
+			pool.shutdown();
+		}
+	}
+
+	/**
+	 * Runs in the pool: forks the task of every chunk but the first one, updates the first one and waits for the rest.
+	 */
+	private static class RootTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final ParallelUpdater<?> updater;
+		int chunks;
+
+		RootTask(ParallelUpdater<?> updater) {
+			this.updater = updater;
+		}
+
+		@Override
+		protected void compute() {
+			ChunkTask[] tasks = updater.tasks;
+			for (int i = chunks - 1; i > 0; i--) {
+				tasks[i].reinitialize();
+				tasks[i].fork();
+			}
+			try {
+				updater.updateChunk(0);
+			} finally {
+				// Also if the first chunk failed, so no chunk is still running when the update returns.
+				for (int i = 1; i < chunks; i++) {
+					tasks[i].quietlyJoin();
+				}
+			}
+			for (int i = 1; i < chunks; i++) {
+				if (tasks[i].isCompletedAbnormally()) {
+					// Throws the exception of the chunk.
+					tasks[i].join();
+				}
+			}
+		}
+	}
+
+	/**
+	 * Updates one chunk.
+	 */
+	private static class ChunkTask extends RecursiveAction {
+		private static final long serialVersionUID = 1L;
+		private final ParallelUpdater<?> updater;
+		private final int chunk;
+
+		ChunkTask(ParallelUpdater<?> updater, int chunk) {
+			this.updater = updater;
+			this.chunk = chunk;
+		}
+
+		@Override
+		protected void compute() {
+			updater.updateChunk(chunk);
+		}
+	}
+}
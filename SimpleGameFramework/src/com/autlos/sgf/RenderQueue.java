@@ -0,0 +1,346 @@
+package com.autlos.sgf;
+
+import java.util.Arrays;
+
+import com.autlos.sgf.metrics.Gauge;
+import com.autlos.sgf.metrics.MetricsRegistry;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFontCache;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+/**
+ * Collects the draws of a frame and submits them sorted by layer and, inside each layer, by texture, so the SpriteBatch only flushes when
+ * the texture changes. Draws with the same layer and texture keep the order they were added in. Draws in the same layer with different
+ * textures can be reordered, so things that have to be drawn over others need a higher layer (i.e backgrounds 0, labels 1).
+ * <p>
+ * The order of the last frame is kept: if the next frame adds the same kind of draws in the same order, sorting it costs almost nothing.
+ *
+ * @author Autlos
+ *
+ */
+public class RenderQueue {
+	private static final int REGION = 0;
+	private static final int TEXT = 1;
+	private static final int CACHE = 2;
+
+	// Texture ids use 15 bits of the sort key.
+	private static final int MAX_TEXTURE_ID = 0x7FFF;
+
+	/**
+	 * A draw. They are reused from frame to frame.
+	 */
+	private static class DrawCommand {
+		int type;
+		TextureRegion region;
+		BitmapFont font;
+		CharSequence text;
+		BitmapFontCache cache;
+		float x, y, originX, originY, width, height, scaleX, scaleY, rotation;
+		float color;
+
+		void clear() {
+			region = null;
+			font = null;
+			text = null;
+			cache = null;
+		}
+	}
+
+	private final Array<DrawCommand> commands = new Array<DrawCommand>();
+	private int size;
+
+	// layer, texture and the order the draw was added in, packed so sorting the keys is enough.
+	private long[] keys = new long[64];
+	// Order of the last frame, as indices of the commands.
+	private int[] lastOrder = new int[64];
+	private int lastSize;
+	private boolean[] placed = new boolean[64];
+	private long[] ordered = new long[64];
+
+	// Small ids for the textures drawn, in the order they were first seen. Unlike the GL handles, they never collide.
+	private final ObjectIntMap<Texture> textureIds = new ObjectIntMap<Texture>();
+
+	private float color = Color.WHITE.toFloatBits();
+
+	// Stats of the last render().
+	private int drawCalls;
+	private int textureSwitches;
+	private int flushes;
+	private int sortShifts;
+
+	// The stats exported, null if not exported.
+	private Gauge drawCallsMetric;
+	private Gauge flushesMetric;
+
+	/**
+	 * Sets the color for the next region draws, like {@code SpriteBatch.setColor}.
+	 *
+	 * @param color
+	 */
+	public void setColor(Color color) {
+		this.color = color.toFloatBits();
+	}
+
+	/**
+	 * Adds a region draw, with the same parameters as {@code SpriteBatch.draw}.
+	 */
+	public void draw(int layer, TextureRegion region, float x, float y, float originX, float originY, float width, float height,
+	      float scaleX, float scaleY, float rotation) {
+		DrawCommand command = next(layer, region.getTexture());
+		command.type = REGION;
+		command.region = region;
+		command.x = x;
+		command.y = y;
+		command.originX = originX;
+		command.originY = originY;
+		command.width = width;
+		command.height = height;
+		command.scaleX = scaleX;
+		command.scaleY = scaleY;
+		command.rotation = rotation;
+		command.color = color;
+	}
+
+	/**
+	 * Adds a region draw.
+	 */
+	public void draw(int layer, TextureRegion region, float x, float y, float width, float height) {
+		draw(layer, region, x, y, 0f, 0f, width, height, 1f, 1f, 0f);
+	}
+
+	/**
+	 * Adds a text draw, like {@code BitmapFont.drawMultiLine}. The text is not copied, so it must not change until {@code render} is
+	 * called.
+	 *
+	 * @param layer
+	 * @param font
+	 * @param text
+	 * @param x
+	 * @param y
+	 */
+	public void drawText(int layer, BitmapFont font, CharSequence text, float x, float y) {
+		DrawCommand command = next(layer, font.getRegion().getTexture());
+		command.type = TEXT;
+		command.font = font;
+		command.text = text;
+		command.x = x;
+		command.y = y;
+	}
+
+	/**
+	 * Adds the text already laid out in a BitmapFontCache. It is drawn as it is when {@code render} is called.
+	 *
+	 * @param layer
+	 * @param cache
+	 */
+	public void drawText(int layer, BitmapFontCache cache) {
+		DrawCommand command = next(layer, cache.getFont().getRegion().getTexture());
+		command.type = CACHE;
+		command.cache = cache;
+	}
+
+	/**
+	 * Sorts the draws added since the last call and draws them, then flushes the batch. The batch must be drawing, between
+	 * {@code begin()} and {@code end()}; it's color is the same afterwards. The queue is empty afterwards.
+	 *
+	 * @param batch
+	 */
+	public void render(SpriteBatch batch) {
+		sort();
+
+		int renderCalls = batch.renderCalls;
+		float callerColor = batch.getColor().toFloatBits();
+		float batchColor = callerColor;
+		Texture lastTexture = null;
+		textureSwitches = 0;
+		for (int i = 0; i < size; i++) {
+			int index = (int) keys[i];
+			DrawCommand command = commands.get(index);
+			lastOrder[i] = index;
+
+			Texture texture;
+			if (command.type == REGION) {
+				texture = command.region.getTexture();
+			} else if (command.type == TEXT) {
+				texture = command.font.getRegion().getTexture();
+			} else {
+				texture = command.cache.getFont().getRegion().getTexture();
+			}
+			if (texture != lastTexture) {
+				textureSwitches++;
+				lastTexture = texture;
+			}
+
+			if (command.type == REGION) {
+				if (command.color != batchColor) {
+					batchColor = command.color;
+					batch.setColor(batchColor);
+				}
+				batch.draw(command.region, command.x, command.y, command.originX, command.originY, command.width,
+				      command.height, command.scaleX, command.scaleY, command.rotation);
+			} else if (command.type == TEXT) {
+				command.font.drawMultiLine(batch, command.text, command.x, command.y);
+			} else {
+				command.cache.draw(batch);
+			}
+			command.clear();
+		}
+		batch.setColor(callerColor);
+
+		batch.flush();
+		flushes = batch.renderCalls - renderCalls;
+		drawCalls = size;
+		lastSize = size;
+		size = 0;
+		if (textureIds.size >= MAX_TEXTURE_ID) {
+			// Forgets the textures not drawn anymore (i.e disposed). The next frame is sorted from scratch.
+			textureIds.clear();
+			lastSize = 0;
+		}
+		if (drawCallsMetric != null) {
+			drawCallsMetric.set(drawCalls);
+			flushesMetric.set(flushes);
+		}
+	}
+
+	/**
+	 * Empties the queue without drawing.
+	 */
+	public void clear() {
+		for (int i = 0; i < size; i++) {
+			commands.get(i).clear();
+		}
+		size = 0;
+	}
+
+	/**
+	 * Exports the draw calls ("render.drawCalls") and flushes ("render.flushes") of the last {@code render}. Set it in the queue that
+	 * draws the frame; queues of the same registry set the same gauges.
+	 *
+	 * @param metrics
+	 *           null to stop exporting.
+	 */
+	public void setMetrics(MetricsRegistry metrics) {
+		drawCallsMetric = metrics != null ? metrics.gauge("render.drawCalls") : null;
+		flushesMetric = metrics != null ? metrics.gauge("render.flushes") : null;
+	}
+
+	/**
+	 * @return the draws submitted in the last {@code render}.
+	 */
+	public int getDrawCalls() {
+		return drawCalls;
+	}
+
+	/**
+	 * @return the times the texture changed in the last {@code render}. The minimum number of flushes for those draws.
+	 */
+	public int getTextureSwitches() {
+		return textureSwitches;
+	}
+
+	/**
+	 * @return the batch flushes (render calls) in the last {@code render}.
+	 */
+	public int getFlushes() {
+		return flushes;
+	}
+
+	/**
+	 * @return how many positions the draws had to be moved while sorting in the last {@code render}. 0 if the order was the same as in
+	 *         the frame before.
+	 */
+	public int getSortShifts() {
+		return sortShifts;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	private DrawCommand next(int layer, Texture texture) {
+		if (size == commands.size) {
+			commands.add(new DrawCommand());
+		}
+		if (size == keys.length) {
+			int capacity = size * 2;
+			keys = Arrays.copyOf(keys, capacity);
+			lastOrder = Arrays.copyOf(lastOrder, capacity);
+			placed = new boolean[capacity];
+		}
+		if (layer < Short.MIN_VALUE) {
+			layer = Short.MIN_VALUE;
+		} else if (layer > Short.MAX_VALUE) {
+			layer = Short.MAX_VALUE;
+		}
+		// 16 bits layer, 15 bits texture (the sign bit is left clear) and 32 bits index.
+		keys[size] = ((long) (layer - Short.MIN_VALUE) << 47) | ((long) textureId(texture) << 32) | size;
+		return commands.get(size++);
+	}
+
+	private int textureId(Texture texture) {
+		if (texture == null) {
+			return 0;
+		}
+		int id = textureIds.get(texture, 0);
+		if (id == 0) {
+			id = Math.min(textureIds.size + 1, MAX_TEXTURE_ID);
+			textureIds.put(texture, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Starts from the order of the last frame and insertion sorts, which is linear if the order hasn't changed much. If it has, it sorts
+	 * from scratch instead.
+	 */
+	private void sort() {
+		if (lastSize > 0) {
+			// Keys of the commands in the last frame's order first, the new ones at the end.
+			if (ordered.length < keys.length) {
+				ordered = new long[keys.length];
+			}
+			for (int i = 0; i < size; i++) {
+				placed[i] = false;
+			}
+			int count = 0;
+			for (int i = 0; i < lastSize; i++) {
+				int index = lastOrder[i];
+				if (index < size) {
+					ordered[count++] = keys[index];
+					placed[index] = true;
+				}
+			}
+			for (int i = 0; i < size; i++) {
+				if (!placed[i]) {
+					ordered[count++] = keys[i];
+				}
+			}
+			System.arraycopy(ordered, 0, keys, 0, size);
+		}
+
+		// Insertion sort, giving up if the order is too different.
+		int maxShifts = size * 8;
+		int shifts = 0;
+		for (int i = 1; i < size; i++) {
+			long key = keys[i];
+			int j = i - 1;
+			while (j >= 0 && keys[j] > key) {
+				keys[j + 1] = keys[j];
+				j--;
+				shifts++;
+			}
+			keys[j + 1] = key;
+			if (shifts > maxShifts) {
+				Arrays.sort(keys, 0, size);
+				break;
+			}
+		}
+		sortShifts = shifts;
+	}
+}
@@ -2,8 +2,16 @@ package com.autlos.sgf;
 
 import aurelienribon.tweenengine.TweenAccessor;
 
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Sprite;
 
+/**
+ * TweenAccessor for the alpha of a Sprite, for the tween-engine library. Entities and GuiElements can be tweened without it with a
+ * {@link com.autlos.sgf.tween.TweenManager}.
+ * 
+ * @author Autlos
+ * 
+ */
 public class SpriteTween implements TweenAccessor<Sprite>{
 	public static final int ALPHA = 1;
 	@Override
@@ -21,7 +29,9 @@ public class SpriteTween implements TweenAccessor<Sprite>{
 	public void setValues(Sprite target, int tweenType, float[] newValues) {
 		switch(tweenType){
 		case ALPHA:
-			target.setColor(1, 1, 1, newValues[0]);
+			// Keeps the RGB of the sprite.
+			Color color = target.getColor();
+			target.setColor(color.r, color.g, color.b, newValues[0]);
 			break;
 		}
 	}
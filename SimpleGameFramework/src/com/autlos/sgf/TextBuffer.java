@@ -0,0 +1,166 @@
+package com.autlos.sgf;
+
+/**
+ * Reusable characters to be drawn with a BitmapFont (which accepts any CharSequence). Numbers are appended without creating Strings, so
+ * HUD texts (score, time, fps) can be updated every frame without garbage.
+ * 
+ * @author Autlos
+ * 
+ */
+public class TextBuffer implements CharSequence {
+	private char[] chars;
+	private int length;
+
+	public TextBuffer() {
+		this(32);
+	}
+
+	/**
+	 * @param capacity
+	 *           initial number of characters. It grows if needed.
+	 */
+	public TextBuffer(int capacity) {
+		chars = new char[Math.max(1, capacity)];
+	}
+
+	public TextBuffer clear() {
+		length = 0;
+		return this;
+	}
+
+	public TextBuffer append(char c) {
+		ensureCapacity(length + 1);
+		chars[length++] = c;
+		return this;
+	}
+
+	public TextBuffer append(CharSequence text) {
+		if (text == null) {
+			return this;
+		}
+		int count = text.length();
+		ensureCapacity(length + count);
+		for (int i = 0; i < count; i++) {
+			chars[length++] = text.charAt(i);
+		}
+		return this;
+	}
+
+	public TextBuffer append(long value) {
+		return append(value, 0, '0');
+	}
+
+	/**
+	 * Appends the value with at least minDigits digits, i.e (120, 6, '0') appends "000120" and (120, 6, ' ') appends "   120".
+	 * 
+	 * @param value
+	 * @param minDigits
+	 * @param padChar
+	 * @return this
+	 */
+	public TextBuffer append(long value, int minDigits, char padChar) {
+		boolean negative = value < 0;
+		// Counting with negative numbers, so Long.MIN_VALUE works too.
+		long remaining = negative ? value : -value;
+		int digits = 1;
+		for (long v = remaining / 10; v != 0; v /= 10) {
+			digits++;
+		}
+		int padding = Math.max(0, minDigits - digits);
+		ensureCapacity(length + digits + padding + 1);
+
+		if (negative && padChar != '0') {
+			for (int i = 0; i < padding; i++) {
+				chars[length++] = padChar;
+			}
+			chars[length++] = '-';
+		} else {
+			if (negative) {
+				chars[length++] = '-';
+			}
+			for (int i = 0; i < padding; i++) {
+				chars[length++] = padChar;
+			}
+		}
+
+		int end = length + digits;
+		for (int i = end - 1; i >= length; i--) {
+			chars[i] = (char) ('0' - (remaining % 10));
+			remaining /= 10;
+		}
+		length = end;
+		return this;
+	}
+
+	/**
+	 * Appends the value with a fixed number of decimals, i.e (1.5f, 2) appends "1.50".
+	 * 
+	 * @param value
+	 * @param decimals
+	 * @return this
+	 */
+	public TextBuffer append(float value, int decimals) {
+		long scale = 1;
+		for (int i = 0; i < decimals; i++) {
+			scale *= 10;
+		}
+		long scaled = Math.round((double) value * scale);
+		if (scaled < 0) {
+			append('-');
+			scaled = -scaled;
+		}
+		append(scaled / scale);
+		if (decimals > 0) {
+			append('.');
+			append(scaled % scale, decimals, '0');
+		}
+		return this;
+	}
+
+	/**
+	 * @param text
+	 * @return true if it has the same characters as text.
+	 */
+	public boolean contentEquals(CharSequence text) {
+		if (text == null || text.length() != length) {
+			return false;
+		}
+		for (int i = 0; i < length; i++) {
+			if (chars[i] != text.charAt(i)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public int length() {
+		return length;
+	}
+
+	@Override
+	public char charAt(int index) {
+		if (index < 0 || index >= length) {
+			throw new IndexOutOfBoundsException("index: " + index + ", length: " + length);
+		}
+		return chars[index];
+	}
+
+	@Override
+	public CharSequence subSequence(int start, int end) {
+		return new String(chars, start, end - start);
+	}
+
+	@Override
+	public String toString() {
+		return new String(chars, 0, length);
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity > chars.length) {
+			char[] newChars = new char[Math.max(capacity, chars.length * 2)];
+			System.arraycopy(chars, 0, newChars, 0, length);
+			chars = newChars;
+		}
+	}
+}
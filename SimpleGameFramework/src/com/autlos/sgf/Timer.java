@@ -1,6 +1,8 @@
 package com.autlos.sgf;
 
 /**
+ * A countdown. It can be updated by it's owner every frame, or be backed by a {@link TimerWheel}, so it doesn't need to be updated at all.
+ * 
  * @author Autlos
  * 
  */
@@ -9,6 +11,8 @@ public class Timer {
 	protected float remaining;
 	// Time interval for the timer
 	protected float interval;
+	// If set, the wheel counts the time and update() does nothing.
+	protected TimerWheel.Handle handle;
 
 	/**
 	 * Creates a timer with a time interval
@@ -20,10 +24,26 @@ public class Timer {
 		this.remaining = interval;
 	}
 
+	/**
+	 * Creates a timer with a time interval, counted by the wheel. It doesn't need to be updated. Call {@code free()} when it is not needed
+	 * anymore.
+	 * 
+	 * @param interval
+	 * @param wheel
+	 */
+	public Timer(float interval, TimerWheel wheel) {
+		this.interval = interval;
+		this.remaining = interval;
+		handle = wheel.obtain(interval);
+	}
+
 	/**
 	 * @return if the time remaining is <=0.
 	 */
 	public boolean hasTimeElapsed() {
+		if (handle != null) {
+			return handle.hasElapsed();
+		}
 		return remaining < 0.0f;
 	}
 
@@ -32,6 +52,9 @@ public class Timer {
 	 */
 	public void reset() {
 		remaining = interval;
+		if (handle != null) {
+			handle.reschedule(interval);
+		}
 	}
 
 	/**
@@ -40,14 +63,36 @@ public class Timer {
 	 */
 	public void reset(float interval) {
 		this.interval = interval;
-		this.remaining = interval;
+		reset();
 	}
 
 	/**
-	 * Decreases the remaining time.
+	 * Decreases the remaining time. Does nothing if the timer is counted by a wheel.
 	 * @param delta
 	 */
 	public void update(float delta) {
-		remaining -= delta;
+		if (handle == null) {
+			remaining -= delta;
+		}
+	}
+
+	/**
+	 * @return the time remaining.
+	 */
+	public float getRemaining() {
+		if (handle != null) {
+			return handle.getRemaining();
+		}
+		return remaining;
+	}
+
+	/**
+	 * Frees the handle of the wheel, if any. The timer must not be used afterwards.
+	 */
+	public void free() {
+		if (handle != null) {
+			handle.free();
+			handle = null;
+		}
 	}
 }
@@ -0,0 +1,457 @@
+package com.autlos.sgf;
+
+import com.autlos.sgf.metrics.HitRate;
+import com.autlos.sgf.metrics.MetricsRegistry;
+import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.Pool.Poolable;
+
+/**
+ * Schedules any number of timers and fires them from a single {@code advance(delta)} per frame, instead of every owner updating and
+ * polling it's own {@link Timer}. Time is counted in ticks of {@code resolution} seconds, and the timers are kept in a hierarchical timing
+ * wheel: 4 levels of 64 slots, each slot a linked list. Scheduling and cancelling are O(1), and each tick only looks at the slot of that
+ * tick, so the cost of {@code advance} depends on the timers that fire, not on the timers scheduled. Timers further than 64 ticks away
+ * are moved down a level every 64 ticks of the level below.
+ * <p>
+ * A timer can call a {@link Listener} when it fires, or just be flagged as elapsed, to be checked with {@code Handle.hasElapsed()}. Handles
+ * are pooled: handles with a listener are freed after they fire (unless they repeat) or are cancelled, so don't keep them after that.
+ * Handles obtained with {@code obtain} are never freed by the wheel, they must be freed with {@code Handle.free()}.
+ *
+ * @author Autlos
+ *
+ */
+public class TimerWheel {
+	/**
+	 * Called when a timer fires.
+	 */
+	public static interface Listener {
+		public void onTimer(Handle handle);
+	}
+
+	/**
+	 * A scheduled timer.
+	 */
+	public static class Handle implements Poolable {
+		TimerWheel wheel;
+		Listener listener;
+		// Tick the timer fires at.
+		long expires;
+		// Ticks between repeats, 0 if it doesn't repeat.
+		long interval;
+		// Where the handle is linked. level -1 is the list of timers firing in the current tick.
+		int level;
+		int slot;
+		Handle prev, next;
+		boolean scheduled;
+		boolean elapsed;
+		// If true, the wheel doesn't free the handle.
+		boolean kept;
+
+		/**
+		 * Stops the timer. Handles with a listener are freed.
+		 */
+		public void cancel() {
+			if (wheel != null) {
+				wheel.cancel(this);
+			}
+		}
+
+		/**
+		 * Schedules the timer again, delay seconds from now. The elapsed flag is cleared.
+		 *
+		 * @param delay
+		 */
+		public void reschedule(float delay) {
+			wheel.reschedule(this, delay);
+		}
+
+		/**
+		 * Cancels the timer and frees the handle to the pool. It must not be used afterwards.
+		 */
+		public void free() {
+			if (wheel != null) {
+				wheel.free(this);
+			}
+		}
+
+		/**
+		 * @return true if the timer has fired since it was scheduled.
+		 */
+		public boolean hasElapsed() {
+			return elapsed;
+		}
+
+		/**
+		 * For repeating timers used as flags.
+		 *
+		 * @return true if the timer has fired since the last call. The flag is cleared.
+		 */
+		public boolean consume() {
+			boolean elapsed = this.elapsed;
+			this.elapsed = false;
+			return elapsed;
+		}
+
+		public boolean isScheduled() {
+			return scheduled;
+		}
+
+		/**
+		 * @return the seconds left until the timer fires, 0 if it is not scheduled.
+		 */
+		public float getRemaining() {
+			if (!scheduled) {
+				return 0f;
+			}
+			return Math.max(0f, (expires - wheel.currentTick) * wheel.resolution - wheel.accumulator);
+		}
+
+		@Override
+		public void reset() {
+			wheel = null;
+			listener = null;
+			prev = null;
+			next = null;
+			expires = 0;
+			interval = 0;
+			scheduled = false;
+			elapsed = false;
+			kept = false;
+		}
+	}
+
+	private static final int LEVELS = 4;
+	private static final int SLOT_BITS = 6;
+	private static final int SLOTS = 1 << SLOT_BITS;
+	private static final int SLOT_MASK = SLOTS - 1;
+	// Furthest a timer can be scheduled in one go. Timers further than this are moved down when they reach the top level.
+	private static final long MAX_TICKS = (1L << (SLOT_BITS * LEVELS)) - 1;
+
+	private final Handle[][] slots = new Handle[LEVELS][SLOTS];
+	// Timers firing in the current tick, so a listener can cancel any of them.
+	private Handle firing;
+
+	private final Pool<Handle> pool;
+	private final float resolution;
+	private float accumulator;
+	private long currentTick;
+
+	private int size;
+	private int fired;
+	private long totalFired;
+
+	// Hits of the pool of handles, null if not exported.
+	private HitRate poolMetric;
+
+	/**
+	 * Creates a wheel with a resolution of 1/60 seconds.
+	 */
+	public TimerWheel() {
+		this(1 / 60f);
+	}
+
+	/**
+	 * @param resolution
+	 *           seconds per tick. Timers fire at the first tick at or after their delay.
+	 */
+	public TimerWheel(float resolution) {
+		this.resolution = resolution;
+		pool = new Pool<Handle>(64) {
+			@Override
+			protected Handle newObject() {
+				return new Handle();
+			}
+		};
+	}
+
+	/**
+	 * Schedules a timer that calls the listener once after delay seconds. The handle is freed after it fires.
+	 *
+	 * @param delay
+	 * @param listener
+	 * @return the handle, to cancel it.
+	 */
+	public Handle schedule(float delay, Listener listener) {
+		return schedule(delay, 0f, listener);
+	}
+
+	/**
+	 * Schedules a timer that calls the listener after delay seconds, and then every interval seconds until it is cancelled.
+	 *
+	 * @param delay
+	 * @param interval
+	 *           0 to fire only once.
+	 * @param listener
+	 * @return the handle, to cancel it.
+	 */
+	public Handle schedule(float delay, float interval, Listener listener) {
+		if (poolMetric != null) {
+			poolMetric.record(pool.getFree() > 0);
+		}
+		Handle handle = pool.obtain();
+		handle.wheel = this;
+		handle.listener = listener;
+		handle.interval = interval > 0 ? toTicks(interval) : 0;
+		add(handle, toTicks(delay));
+		return handle;
+	}
+
+	/**
+	 * Schedules a timer that only sets it's elapsed flag after delay seconds. It is not freed by the wheel.
+	 *
+	 * @param delay
+	 * @return the handle, to check {@code hasElapsed()} and to free it when it is not needed anymore.
+	 */
+	public Handle obtain(float delay) {
+		return obtain(delay, 0f);
+	}
+
+	/**
+	 * Schedules a timer that sets it's elapsed flag after delay seconds, and then every interval seconds. Use {@code consume()} to check it.
+	 * It is not freed by the wheel.
+	 *
+	 * @param delay
+	 * @param interval
+	 *           0 to fire only once.
+	 * @return the handle, to check it and to free it when it is not needed anymore.
+	 */
+	public Handle obtain(float delay, float interval) {
+		Handle handle = schedule(delay, interval, null);
+		handle.kept = true;
+		return handle;
+	}
+
+	/**
+	 * Stops the timer. Handles with a listener are freed.
+	 *
+	 * @param handle
+	 */
+	public void cancel(Handle handle) {
+		if (handle.wheel != this) {
+			return;
+		}
+		if (handle.scheduled) {
+			unlink(handle);
+		}
+		if (!handle.kept) {
+			pool.free(handle);
+		}
+	}
+
+	/**
+	 * Schedules the timer again, delay seconds from now. The elapsed flag is cleared.
+	 *
+	 * @param handle
+	 * @param delay
+	 */
+	public void reschedule(Handle handle, float delay) {
+		if (handle.scheduled) {
+			unlink(handle);
+		}
+		handle.elapsed = false;
+		add(handle, toTicks(delay));
+	}
+
+	/**
+	 * Cancels the timer and frees the handle to the pool.
+	 *
+	 * @param handle
+	 */
+	public void free(Handle handle) {
+		if (handle.wheel != this) {
+			return;
+		}
+		if (handle.scheduled) {
+			unlink(handle);
+		}
+		pool.free(handle);
+	}
+
+	/**
+	 * Advances the time, firing the timers that expire. Call it once per frame (or tick), i.e from the world's update.
+	 *
+	 * @param delta
+	 */
+	public void advance(float delta) {
+		fired = 0;
+		accumulator += delta;
+		while (accumulator >= resolution) {
+			accumulator -= resolution;
+			tick();
+		}
+	}
+
+	/**
+	 * Cancels every timer. Handles with a listener are freed.
+	 */
+	public void clear() {
+		for (int level = 0; level < LEVELS; level++) {
+			for (int slot = 0; slot < SLOTS; slot++) {
+				while (slots[level][slot] != null) {
+					cancel(slots[level][slot]);
+				}
+			}
+		}
+		while (firing != null) {
+			cancel(firing);
+		}
+		accumulator = 0f;
+	}
+
+	/**
+	 * @return the timers scheduled.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return the timers fired in the last {@code advance}.
+	 */
+	public int getFired() {
+		return fired;
+	}
+
+	public long getTotalFired() {
+		return totalFired;
+	}
+
+	/**
+	 * @return the free handles in the pool.
+	 */
+	public int getFreeCount() {
+		return pool.getFree();
+	}
+
+	/**
+	 * Exports the hit rate of the pool of handles as "pool.timers". Set by WorldAbstract.setMetrics.
+	 *
+	 * @param metrics
+	 *           null to stop exporting.
+	 */
+	public void setMetrics(MetricsRegistry metrics) {
+		poolMetric = metrics != null ? metrics.hitRate("pool.timers") : null;
+	}
+
+	public float getResolution() {
+		return resolution;
+	}
+
+	/**
+	 * @return the time advanced, in seconds.
+	 */
+	public float getTime() {
+		return currentTick * resolution + accumulator;
+	}
+
+	private long toTicks(float seconds) {
+		// Small margin so 0.5s at 1/60 is 30 ticks and not 31 because of float errors.
+		long ticks = (long) Math.ceil(seconds / resolution - 0.0001f);
+		return Math.max(1, ticks);
+	}
+
+	private void add(Handle handle, long ticks) {
+		handle.expires = currentTick + ticks;
+		handle.scheduled = true;
+		size++;
+		link(handle);
+	}
+
+	/**
+	 * Links the handle in the slot of the level that matches how far it expires.
+	 */
+	private void link(Handle handle) {
+		long ticks = handle.expires - currentTick;
+		long expires = handle.expires;
+		if (ticks > MAX_TICKS) {
+			// Too far: it will be linked again when it is moved down from the top level.
+			expires = currentTick + MAX_TICKS;
+			ticks = MAX_TICKS;
+		}
+		int level = 0;
+		while (level < LEVELS - 1 && ticks >= 1L << (SLOT_BITS * (level + 1))) {
+			level++;
+		}
+		int slot = (int) (expires >>> (SLOT_BITS * level)) & SLOT_MASK;
+
+		handle.level = level;
+		handle.slot = slot;
+		handle.prev = null;
+		handle.next = slots[level][slot];
+		if (handle.next != null) {
+			handle.next.prev = handle;
+		}
+		slots[level][slot] = handle;
+	}
+
+	private void unlink(Handle handle) {
+		if (handle.prev != null) {
+			handle.prev.next = handle.next;
+		} else if (handle.level < 0) {
+			firing = handle.next;
+		} else {
+			slots[handle.level][handle.slot] = handle.next;
+		}
+		if (handle.next != null) {
+			handle.next.prev = handle.prev;
+		}
+		handle.prev = null;
+		handle.next = null;
+		handle.scheduled = false;
+		size--;
+	}
+
+	private void tick() {
+		currentTick++;
+
+		// Every 64 ticks of a level, the next slot of the level above is moved down.
+		for (int level = 1; level < LEVELS; level++) {
+			if ((currentTick & ((1L << (SLOT_BITS * level)) - 1)) != 0) {
+				break;
+			}
+			int slot = (int) (currentTick >>> (SLOT_BITS * level)) & SLOT_MASK;
+			Handle handle = slots[level][slot];
+			slots[level][slot] = null;
+			while (handle != null) {
+				Handle next = handle.next;
+				link(handle);
+				handle = next;
+			}
+		}
+
+		// The timers of this tick are moved to the firing list, so listeners can schedule and cancel freely.
+		int slot = (int) currentTick & SLOT_MASK;
+		firing = slots[0][slot];
+		slots[0][slot] = null;
+		for (Handle handle = firing; handle != null; handle = handle.next) {
+			handle.level = -1;
+		}
+
+		while (firing != null) {
+			Handle handle = firing;
+			if (handle.expires > currentTick) {
+				// Was too far to be linked at it's tick.
+				firing = handle.next;
+				if (firing != null) {
+					firing.prev = null;
+				}
+				link(handle);
+				continue;
+			}
+			unlink(handle);
+			handle.elapsed = true;
+			fired++;
+			totalFired++;
+
+			if (handle.interval > 0) {
+				add(handle, handle.interval);
+			}
+			if (handle.listener != null) {
+				handle.listener.onTimer(handle);
+			}
+			// The listener may have rescheduled, cancelled or freed the handle.
+			if (!handle.scheduled && !handle.kept && handle.wheel == this) {
+				pool.free(handle);
+			}
+		}
+	}
+}
@@ -1,5 +1,14 @@
 package com.autlos.sgf;
 
+import com.autlos.sgf.input.InputEvents;
+import com.autlos.sgf.input.InputQueue;
+import com.autlos.sgf.metrics.Counter;
+import com.autlos.sgf.metrics.Gauge;
+import com.autlos.sgf.metrics.Histogram;
+import com.autlos.sgf.metrics.MetricsRegistry;
+import com.autlos.sgf.profiler.FrameProfiler;
+import com.autlos.sgf.profiler.Tracer;
+
 /**
  * @author Autlos
  * 
@@ -9,8 +18,193 @@ public abstract class WorldAbstract {
 		RUNNING, PAUSED, GAME_OVER
 	}
 	
+	// Screen size, scale and random generator of the game the world belongs to. Set by GameAbstract.setWorld if null.
+	protected GameContext context;
+
+	// Timers of the world, advanced each tick before update.
+	protected final TimerWheel timers = new TimerWheel();
+
+	// Input recorded between ticks, and the batch it's polled into (reused every tick).
+	protected InputQueue inputQueue;
+	protected final InputEvents inputEvents = new InputEvents();
+
+	// Measures the phases of the tick. Set by GameAbstract.setWorld, null if the world is updated by other means.
+	protected FrameProfiler profiler;
+	private int inputScope, timersScope, updateScope, collisionsScope;
+	private static final int TRACE_TIMERS = Tracer.register("timers");
+	private static final int TRACE_INPUT = Tracer.register("input");
+	private static final int TRACE_UPDATE = Tracer.register("update");
+	private static final int TRACE_COLLISIONS = Tracer.register("collisions");
+
+	// Ticks, tick time and live entities, exported for headless servers. null if not set.
+	protected MetricsRegistry metrics;
+	private Counter ticksMetric;
+	private Histogram tickTimeMetric;
+	private Gauge entitiesMetric;
+
+	public WorldAbstract() {
+	}
+
+	/**
+	 * Creates a world with a context, i.e for a headless world that is not set in a game. Give each world it's own context to run them in
+	 * parallel.
+	 * 
+	 * @param context
+	 */
+	public WorldAbstract(GameContext context) {
+		this.context = context;
+	}
+
 	public abstract void update(float delta);
 	public abstract void checkCollisions();
 
+	/**
+	 * Called before each tick of a {@link FixedTimestep}. Override it to call {@code savePreviousState()} on the entities that are drawn
+	 * interpolated. Entities not saved each tick are drawn at their current position.
+	 */
+	public void beginTick() {
+	}
+
+	/**
+	 * Called each tick, before update, with the input recorded by the {@link InputQueue} since the last tick (only if a queue is set). Call
+	 * {@code events.dispatch(controller)} to send them to a ScreenController, or read them directly.
+	 * 
+	 * @param events
+	 *           don't keep it after the call, it's reused.
+	 */
+	public void processInput(InputEvents events) {
+	}
+
+	/**
+	 * One fixed tick. Called by {@link FixedTimestep}: calls {@code beginTick()}, advances the timers, gives the queued input to
+	 * {@code processInput(events)} and calls {@code update(delta)}.
+	 * Worlds that are not updated by a FixedTimestep should call {@code timers.advance(delta)} from their update.
+	 * 
+	 * @param delta
+	 */
+	public void tick(float delta) {
+		long start = metrics != null ? System.nanoTime() : 0;
+		beginTick();
+		begin(timersScope, TRACE_TIMERS);
+		timers.advance(delta);
+		end(TRACE_TIMERS);
+		if (inputQueue != null) {
+			begin(inputScope, TRACE_INPUT);
+			processInput(inputQueue.poll(inputEvents));
+			end(TRACE_INPUT);
+		}
+		begin(updateScope, TRACE_UPDATE);
+		update(delta);
+		end(TRACE_UPDATE);
+		if (metrics != null) {
+			tickTimeMetric.record((System.nanoTime() - start) / 1000);
+			ticksMetric.inc();
+			int entities = getEntityCount();
+			if (entities >= 0) {
+				entitiesMetric.set(entities);
+			}
+		}
+	}
+
+	/**
+	 * Override it to export the number of live entities of the world in the metrics ("world.entities"), updated after each tick.
+	 * 
+	 * @return the live entities, or -1 if not known (by default).
+	 */
+	public int getEntityCount() {
+		return -1;
+	}
+
+	/**
+	 * Calls {@code checkCollisions()} measured by the profiler and traced. Call it from update instead of checkCollisions to see the collisions as a
+	 * phase of their own.
+	 */
+	protected void collide() {
+		begin(collisionsScope, TRACE_COLLISIONS);
+		checkCollisions();
+		end(TRACE_COLLISIONS);
+	}
+
+	private void begin(int scope, int trace) {
+		if (profiler != null) {
+			profiler.begin(scope);
+		}
+		Tracer.begin(trace);
+	}
+
+	private void end(int trace) {
+		Tracer.end(trace);
+		if (profiler != null) {
+			profiler.end();
+		}
+	}
+
+	/**
+	 * @param profiler
+	 *           that measures the timers, input, update and collisions of each tick. null to not measure them.
+	 */
+	public void setProfiler(FrameProfiler profiler) {
+		this.profiler = profiler;
+		if (profiler != null) {
+			timersScope = profiler.register("timers");
+			inputScope = profiler.register("input");
+			updateScope = profiler.register("update");
+			collisionsScope = profiler.register("collisions");
+		}
+	}
+
+	public FrameProfiler getProfiler() {
+		return profiler;
+	}
+
+	/**
+	 * Exports the ticks ("world.ticks"), the tick time in microseconds ("world.tickTime", a histogram), the live entities
+	 * ("world.entities", see {@code getEntityCount()}) and the pool of the timers. Set the registry also in the ProjectileManagers,
+	 * SpatialHashes and RenderQueues of the world to export them.
+	 * 
+	 * @param metrics
+	 *           null to stop exporting.
+	 */
+	public void setMetrics(MetricsRegistry metrics) {
+		this.metrics = metrics;
+		if (metrics != null) {
+			ticksMetric = metrics.counter("world.ticks");
+			tickTimeMetric = metrics.histogram("world.tickTime", Histogram.TIME_BOUNDS);
+			entitiesMetric = metrics.gauge("world.entities");
+		}
+		timers.setMetrics(metrics);
+	}
+
+	public MetricsRegistry getMetrics() {
+		return metrics;
+	}
+
+	/**
+	 * @param context
+	 *           screen size, scale and random generator of the world.
+	 */
+	public void setContext(GameContext context) {
+		this.context = context;
+	}
+
+	public GameContext getContext() {
+		return context;
+	}
+
+	public TimerWheel getTimers() {
+		return timers;
+	}
+
+	/**
+	 * @param inputQueue
+	 *           set as the input processor, polled each tick. null to stop polling.
+	 */
+	public void setInputQueue(InputQueue inputQueue) {
+		this.inputQueue = inputQueue;
+	}
+
+	public InputQueue getInputQueue() {
+		return inputQueue;
+	}
 	
 }
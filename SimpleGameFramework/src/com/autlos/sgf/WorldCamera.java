@@ -0,0 +1,181 @@
+package com.autlos.sgf;
+
+import com.autlos.sgf.models.Entity;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+
+/**
+ * A 2D camera for worlds bigger than the screen. It has a position (the center of the view), a viewport size and a zoom, and keeps the
+ * rectangle of the world that is visible, so draws outside of it can be skipped. It counts the draws done and skipped since the last
+ * {@code apply}.
+ * 
+ * @author Autlos
+ * 
+ */
+public class WorldCamera {
+	protected Vector2 position;
+	protected float viewportWidth;
+	protected float viewportHeight;
+	protected float zoom = 1f;
+
+	// The visible part of the world.
+	protected Rectangle view;
+
+	private int drawn;
+	private int culled;
+
+	/**
+	 * Creates a camera with the size of the screen, showing the world from 0,0 like the screen does.
+	 * 
+	 * @param context
+	 *           of the game, for the size of the screen.
+	 */
+	public WorldCamera(GameContext context) {
+		this(context.getScreenWidth(), context.getScreenHeight());
+	}
+
+	/**
+	 * Creates a camera showing the world from 0,0.
+	 * 
+	 * @param viewportWidth
+	 * @param viewportHeight
+	 */
+	public WorldCamera(float viewportWidth, float viewportHeight) {
+		this.viewportWidth = viewportWidth;
+		this.viewportHeight = viewportHeight;
+		position = new Vector2(viewportWidth / 2, viewportHeight / 2);
+		view = new Rectangle();
+		update();
+	}
+
+	/**
+	 * Recalculates the view. Called by the setters.
+	 */
+	public void update() {
+		float width = viewportWidth * zoom;
+		float height = viewportHeight * zoom;
+		view.set(position.x - width / 2, position.y - height / 2, width, height);
+	}
+
+	/**
+	 * Sets the batch's projection to the view and resets the counters. Call it once per frame before drawing.
+	 * 
+	 * @param batch
+	 */
+	public void apply(SpriteBatch batch) {
+		batch.getProjectionMatrix().setToOrtho2D(view.x, view.y, view.width, view.height);
+		batch.setProjectionMatrix(batch.getProjectionMatrix());
+		resetCounters();
+	}
+
+	/**
+	 * @param x
+	 * @param y
+	 * @param width
+	 * @param height
+	 * @return true if the rectangle is (at least partially) visible. Counts it as drawn or culled.
+	 */
+	public boolean isVisible(float x, float y, float width, float height) {
+		if (x < view.x + view.width && x + width > view.x && y < view.y + view.height && y + height > view.y) {
+			drawn++;
+			return true;
+		}
+		culled++;
+		return false;
+	}
+
+	/**
+	 * Tests the entity as it is drawn. If it is rotated or has a draw scale, the test uses the square containing it at any rotation around
+	 * it's origin.
+	 * 
+	 * @param entity
+	 * @return true if the entity is (at least partially) visible. Counts it as drawn or culled.
+	 */
+	public boolean isVisible(Entity entity) {
+		Vector2 position = entity.getPosition();
+		float width = entity.getWidth();
+		float height = entity.getHeight();
+		float scale = Math.max(Math.abs(entity.getDrawScaleX()), Math.abs(entity.getDrawScaleY()));
+		if (entity.getRotation() == 0f && scale == 1f) {
+			return isVisible(position.x, position.y, width, height);
+		}
+		// Distance from the origin to the farthest corner.
+		Vector2 origin = entity.getOrigin();
+		float farX = Math.max(origin.x, width - origin.x);
+		float farY = Math.max(origin.y, height - origin.y);
+		float radius = (float) Math.sqrt(farX * farX + farY * farY) * scale;
+		return isVisible(position.x + origin.x - radius, position.y + origin.y - radius, radius * 2, radius * 2);
+	}
+
+	/**
+	 * Moves the center of the view.
+	 * 
+	 * @param x
+	 * @param y
+	 */
+	public void setPosition(float x, float y) {
+		position.set(x, y);
+		update();
+	}
+
+	/**
+	 * Moves the view.
+	 * 
+	 * @param x
+	 * @param y
+	 */
+	public void translate(float x, float y) {
+		position.add(x, y);
+		update();
+	}
+
+	public Vector2 getPosition() {
+		return position;
+	}
+
+	/**
+	 * @param zoom
+	 *           bigger than 1 shows more of the world.
+	 */
+	public void setZoom(float zoom) {
+		this.zoom = zoom;
+		update();
+	}
+
+	public float getZoom() {
+		return zoom;
+	}
+
+	public void setViewport(float viewportWidth, float viewportHeight) {
+		this.viewportWidth = viewportWidth;
+		this.viewportHeight = viewportHeight;
+		update();
+	}
+
+	/**
+	 * @return the visible part of the world. Don't modify it.
+	 */
+	public Rectangle getView() {
+		return view;
+	}
+
+	public void resetCounters() {
+		drawn = 0;
+		culled = 0;
+	}
+
+	/**
+	 * @return the draws visible since the last {@code apply} or {@code resetCounters}.
+	 */
+	public int getDrawn() {
+		return drawn;
+	}
+
+	/**
+	 * @return the draws skipped since the last {@code apply} or {@code resetCounters}.
+	 */
+	public int getCulled() {
+		return culled;
+	}
+}
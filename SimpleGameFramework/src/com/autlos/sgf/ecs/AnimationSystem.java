@@ -0,0 +1,27 @@
+package com.autlos.sgf.ecs;
+
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+
+/**
+ * Advances the stateTime of the animated entities and sets the region of their current frame.
+ * 
+ * @author Autlos
+ * 
+ */
+public class AnimationSystem extends EntitySystem {
+
+	@Override
+	public void update(PackedWorld world, float delta) {
+		int size = world.size();
+		float[] stateTime = world.stateTime;
+		Animation[] animation = world.animation;
+		TextureRegion[] region = world.region;
+		for (int i = 0; i < size; i++) {
+			if (animation[i] != null) {
+				stateTime[i] += delta;
+				region[i] = animation[i].getKeyFrame(stateTime[i]);
+			}
+		}
+	}
+}
@@ -0,0 +1,151 @@
+package com.autlos.sgf.ecs;
+
+import com.autlos.sgf.models.Entity;
+import com.autlos.sgf.models.MoveableEntity;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+
+/**
+ * Moves existing {@link Entity}s (and subclasses) to a {@link PackedWorld} one by one, so a game can be migrated gradually. A bound entity
+ * is updated by the systems of the world; {@code push()} copies the results back to the entity object, so the code that still reads it's
+ * position, rotation or bounds (collisions, input, drawing) keeps working. If that code moves an entity, {@code pull()} copies it to the
+ * world.
+ * <p>
+ * A typical tick: {@code adapter.pull(); world.update(delta); adapter.push();}
+ *
+ * @author Autlos
+ *
+ */
+public class EntityAdapter {
+	private final PackedWorld world;
+	// Bound entities and their handles. Index i of both belong to the same entity.
+	private final Array<Entity> entities;
+	private final IntArray handles;
+
+	public EntityAdapter(PackedWorld world) {
+		this.world = world;
+		entities = new Array<Entity>(false, 64);
+		handles = new IntArray(false, 64);
+	}
+
+	/**
+	 * Creates an entity in the world with the state of the entity object: position, size, origin, rotation, bounds padding, animation and
+	 * stateTime (or current frame), and for MoveableEntities the rotation speed. The velocity has to be set in the world, with
+	 * {@code world.setVelocity(handle, x, y)}.
+	 *
+	 * @param entity
+	 * @return the handle of the entity in the world.
+	 */
+	public int bind(Entity entity) {
+		Vector2 position = entity.getPosition();
+		Animation animation = entity.getAnimation();
+		int handle;
+		if (animation != null) {
+			handle = world.create(animation, position.x, position.y, entity.getWidth(), entity.getHeight());
+		} else {
+			handle = world.create(entity.getCurrentFrame(), position.x, position.y, entity.getWidth(), entity.getHeight());
+		}
+
+		int index = world.indexOf(handle);
+		world.rotation[index] = entity.getRotation();
+		world.originX[index] = entity.getOrigin().x;
+		world.originY[index] = entity.getOrigin().y;
+		world.stateTime[index] = entity.getStateTime();
+		world.region[index] = entity.getCurrentFrame();
+		Rectangle bounds = entity.getBounds();
+		world.boundsPadX[index] = bounds.x - position.x;
+		world.boundsPadY[index] = bounds.y - position.y;
+		if (entity instanceof MoveableEntity) {
+			world.rotationSpeed[index] = ((MoveableEntity) entity).getRotationSpeed();
+		}
+
+		entities.add(entity);
+		handles.add(handle);
+		return handle;
+	}
+
+	/**
+	 * Stops copying the state of the entity.
+	 *
+	 * @param entity
+	 * @param destroy
+	 *           if true, the entity is destroyed in the world too.
+	 * @return false if the entity was not bound.
+	 */
+	public boolean unbind(Entity entity, boolean destroy) {
+		int i = entities.indexOf(entity, true);
+		if (i < 0) {
+			return false;
+		}
+		if (destroy) {
+			world.destroy(handles.get(i));
+		}
+		entities.removeIndex(i);
+		handles.removeIndex(i);
+		return true;
+	}
+
+	/**
+	 * @param entity
+	 * @return the handle of the entity in the world, -1 if it is not bound.
+	 */
+	public int getHandle(Entity entity) {
+		int i = entities.indexOf(entity, true);
+		return i < 0 ? -1 : handles.get(i);
+	}
+
+	/**
+	 * Copies the position and rotation of the entity objects to the world, for entities moved by code that doesn't use the world yet.
+	 */
+	public void pull() {
+		for (int i = 0; i < entities.size; i++) {
+			int index = world.indexOf(handles.get(i));
+			if (index < 0) {
+				continue;
+			}
+			Entity entity = entities.get(i);
+			Vector2 position = entity.getPosition();
+			world.x[index] = position.x;
+			world.y[index] = position.y;
+			world.rotation[index] = entity.getRotation();
+		}
+	}
+
+	/**
+	 * Copies the position, rotation and animation state of the world to the entity objects, saving their previous state first (so they can
+	 * be drawn interpolated) and updating their bounds. Entities destroyed in the world (i.e by a {@link LifetimeSystem}) are unbound.
+	 */
+	public void push() {
+		// Backwards, so unbinding does not skip anything.
+		for (int i = entities.size - 1; i >= 0; i--) {
+			int index = world.indexOf(handles.get(i));
+			if (index < 0) {
+				entities.removeIndex(i);
+				handles.removeIndex(i);
+				continue;
+			}
+			Entity entity = entities.get(i);
+			entity.savePreviousState();
+			entity.getPosition().set(world.x[index], world.y[index]);
+			entity.setRotation(world.rotation[index]);
+			if (entity.getAnimation() != null) {
+				entity.setStateTime(world.stateTime[index]);
+			}
+			entity.updateBounds();
+		}
+	}
+
+	/**
+	 * @return the bound entities. Don't add or remove elements, use {@code bind} and {@code unbind}.
+	 */
+	public Array<Entity> getEntities() {
+		return entities;
+	}
+
+	public int size() {
+		return entities.size;
+	}
+}
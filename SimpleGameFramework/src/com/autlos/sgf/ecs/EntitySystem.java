@@ -0,0 +1,31 @@
+package com.autlos.sgf.ecs;
+
+/**
+ * Updates the entities of a {@link PackedWorld}, looping over it's arrays. Systems are updated in the order they were added to the world.
+ * 
+ * @author Autlos
+ * 
+ */
+public abstract class EntitySystem {
+	private boolean enabled = true;
+
+	/**
+	 * Updates the entities from index 0 to {@code world.size() - 1}. Loop backwards if entities are destroyed.
+	 * 
+	 * @param world
+	 * @param delta
+	 */
+	public abstract void update(PackedWorld world, float delta);
+
+	/**
+	 * @param enabled
+	 *           if false, the world doesn't update the system.
+	 */
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+}
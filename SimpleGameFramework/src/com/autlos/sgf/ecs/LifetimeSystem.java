@@ -0,0 +1,59 @@
+package com.autlos.sgf.ecs;
+
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Destroys the entities whose lifeTime has run out, and, if an area is set, the ones that have left it.
+ * 
+ * @author Autlos
+ * 
+ */
+public class LifetimeSystem extends EntitySystem {
+	private Rectangle area;
+	private int destroyed;
+
+	public LifetimeSystem() {
+	}
+
+	/**
+	 * @param area
+	 *           entities completely outside of it are destroyed. null to keep them.
+	 */
+	public LifetimeSystem(Rectangle area) {
+		this.area = area;
+	}
+
+	@Override
+	public void update(PackedWorld world, float delta) {
+		float[] age = world.age;
+		float[] lifeTime = world.lifeTime;
+		// Backwards, so destroying (moving the last one to i) does not skip anything.
+		for (int i = world.size() - 1; i >= 0; i--) {
+			age[i] += delta;
+			if ((lifeTime[i] > 0 && age[i] >= lifeTime[i]) || isOutside(world, i)) {
+				world.destroyIndex(i);
+				destroyed++;
+			}
+		}
+	}
+
+	private boolean isOutside(PackedWorld world, int i) {
+		if (area == null) {
+			return false;
+		}
+		float x = world.x[i];
+		float y = world.y[i];
+		return x + world.width[i] < area.x || x > area.x + area.width || y + world.height[i] < area.y || y > area.y + area.height;
+	}
+
+	public void setArea(Rectangle area) {
+		this.area = area;
+	}
+
+	/**
+	 * @return the total number of entities destroyed by the system.
+	 */
+	public int getDestroyed() {
+		return destroyed;
+	}
+}
@@ -0,0 +1,26 @@
+package com.autlos.sgf.ecs;
+
+/**
+ * Moves the entities with their velocity and rotates them with their rotationSpeed.
+ * 
+ * @author Autlos
+ * 
+ */
+public class MovementSystem extends EntitySystem {
+
+	@Override
+	public void update(PackedWorld world, float delta) {
+		int size = world.size();
+		float[] x = world.x;
+		float[] y = world.y;
+		float[] velocityX = world.velocityX;
+		float[] velocityY = world.velocityY;
+		float[] rotation = world.rotation;
+		float[] rotationSpeed = world.rotationSpeed;
+		for (int i = 0; i < size; i++) {
+			x[i] += velocityX[i] * delta;
+			y[i] += velocityY[i] * delta;
+			rotation[i] += rotationSpeed[i] * delta;
+		}
+	}
+}
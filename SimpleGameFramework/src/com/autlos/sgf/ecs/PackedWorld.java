@@ -0,0 +1,418 @@
+package com.autlos.sgf.ecs;
+
+import java.util.Arrays;
+
+import com.autlos.sgf.WorldCamera;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Keeps many simple entities as columns of primitive arrays instead of one object per entity: index i of every array belongs to the same
+ * entity, and the live entities are always packed at the start (0 to size - 1). {@link EntitySystem}s update them with plain loops over
+ * the arrays, which is much faster than updating {@link com.autlos.sgf.models.Entity} objects scattered over the heap, i.e for 100k
+ * particles, bullets or enemies.
+ * <p>
+ * Entities are referenced from outside with a handle, which stays valid while the entity lives even if it's index changes (when an entity
+ * is destroyed, the last one is moved to it's index). Systems use the indices, and must loop backwards if they destroy entities.
+ * <p>
+ * The arrays are public so systems can loop over them, but they are replaced when the world grows: read them from the world in every
+ * update, don't keep them. Use {@link EntityAdapter} to move existing entities to the world.
+ *
+ * @author Autlos
+ *
+ */
+public class PackedWorld {
+	// A handle is the slot of the entity plus a generation, so the handle of a destroyed entity is not valid for a new one in the same slot.
+	private static final int SLOT_BITS = 22;
+	private static final int SLOT_MASK = (1 << SLOT_BITS) - 1;
+	private static final int GENERATION_MASK = (1 << (31 - SLOT_BITS)) - 1;
+
+	// Components. Index i belongs to the entity at index i.
+	public float[] x, y;
+	public float[] previousX, previousY;
+	public float[] velocityX, velocityY;
+	// Degrees, and degrees per second.
+	public float[] rotation, rotationSpeed;
+	public float[] width, height;
+	public float[] originX, originY;
+	// Padding of the bounds inside the entity's rectangle, like Entity.createBounds.
+	public float[] boundsPadX, boundsPadY;
+	public float[] stateTime;
+	// Seconds the entity has lived, and seconds it will live (0 for ever).
+	public float[] age, lifeTime;
+	public TextureRegion[] region;
+	public Animation[] animation;
+	// Handle of the entity at each index.
+	public int[] handles;
+
+	// Index of the entity of each slot, and generation of the slot.
+	private int[] slotIndex;
+	private int[] slotGeneration;
+	private int[] freeSlots;
+	private int freeCount;
+	private int slotCount;
+
+	private int size;
+	private final Array<EntitySystem> systems = new Array<EntitySystem>();
+
+	public PackedWorld() {
+		this(1024);
+	}
+
+	/**
+	 * @param initialCapacity
+	 *           entities expected to be alive at the same time.
+	 */
+	public PackedWorld(int initialCapacity) {
+		allocate(Math.max(16, initialCapacity));
+		slotIndex = new int[this.x.length];
+		slotGeneration = new int[this.x.length];
+		freeSlots = new int[this.x.length];
+	}
+
+	/*********** ENTITIES ***********/
+
+	/**
+	 * Creates an entity drawn with the region, with it's origin at the center.
+	 *
+	 * @return the handle of the entity.
+	 */
+	public int create(TextureRegion region, float x, float y, float width, float height) {
+		int index = add(x, y, width, height);
+		this.region[index] = region;
+		return handles[index];
+	}
+
+	/**
+	 * Creates an animated entity, with it's origin at the center. The animation can be shared by any number of entities (see
+	 * {@link com.autlos.sgf.models.FrameCache}).
+	 *
+	 * @return the handle of the entity.
+	 */
+	public int create(Animation animation, float x, float y, float width, float height) {
+		int index = add(x, y, width, height);
+		this.animation[index] = animation;
+		this.region[index] = animation.getKeyFrame(0f);
+		return handles[index];
+	}
+
+	private int add(float x, float y, float width, float height) {
+		if (size == this.x.length) {
+			allocate(size * 2);
+		}
+		int slot;
+		if (freeCount > 0) {
+			slot = freeSlots[--freeCount];
+		} else {
+			if (slotCount == slotIndex.length) {
+				int capacity = slotCount * 2;
+				slotIndex = Arrays.copyOf(slotIndex, capacity);
+				slotGeneration = Arrays.copyOf(slotGeneration, capacity);
+				freeSlots = Arrays.copyOf(freeSlots, capacity);
+			}
+			slot = slotCount++;
+		}
+
+		int index = size++;
+		slotIndex[slot] = index;
+		handles[index] = (slotGeneration[slot] << SLOT_BITS) | slot;
+
+		this.x[index] = x;
+		this.y[index] = y;
+		previousX[index] = x;
+		previousY[index] = y;
+		velocityX[index] = 0f;
+		velocityY[index] = 0f;
+		rotation[index] = 0f;
+		rotationSpeed[index] = 0f;
+		this.width[index] = width;
+		this.height[index] = height;
+		originX[index] = width / 2;
+		originY[index] = height / 2;
+		boundsPadX[index] = 0f;
+		boundsPadY[index] = 0f;
+		stateTime[index] = 0f;
+		age[index] = 0f;
+		lifeTime[index] = 0f;
+		region[index] = null;
+		animation[index] = null;
+		return index;
+	}
+
+	/**
+	 * Destroys the entity. Does nothing if it was already destroyed.
+	 *
+	 * @param handle
+	 */
+	public void destroy(int handle) {
+		int index = indexOf(handle);
+		if (index >= 0) {
+			destroyIndex(index);
+		}
+	}
+
+	/**
+	 * Destroys the entity at index, moving the last entity to it's place. Systems destroying entities must loop backwards.
+	 *
+	 * @param index
+	 */
+	public void destroyIndex(int index) {
+		int slot = handles[index] & SLOT_MASK;
+		slotGeneration[slot] = (slotGeneration[slot] + 1) & GENERATION_MASK;
+		freeSlots[freeCount++] = slot;
+
+		int last = --size;
+		if (index != last) {
+			x[index] = x[last];
+			y[index] = y[last];
+			previousX[index] = previousX[last];
+			previousY[index] = previousY[last];
+			velocityX[index] = velocityX[last];
+			velocityY[index] = velocityY[last];
+			rotation[index] = rotation[last];
+			rotationSpeed[index] = rotationSpeed[last];
+			width[index] = width[last];
+			height[index] = height[last];
+			originX[index] = originX[last];
+			originY[index] = originY[last];
+			boundsPadX[index] = boundsPadX[last];
+			boundsPadY[index] = boundsPadY[last];
+			stateTime[index] = stateTime[last];
+			age[index] = age[last];
+			lifeTime[index] = lifeTime[last];
+			region[index] = region[last];
+			animation[index] = animation[last];
+			handles[index] = handles[last];
+			slotIndex[handles[index] & SLOT_MASK] = index;
+		}
+		region[last] = null;
+		animation[last] = null;
+	}
+
+	/**
+	 * Destroys every entity.
+	 */
+	public void clear() {
+		for (int i = size - 1; i >= 0; i--) {
+			destroyIndex(i);
+		}
+	}
+
+	/**
+	 * @param handle
+	 * @return the index of the entity in the arrays, -1 if it has been destroyed. The index changes when other entities are destroyed.
+	 */
+	public int indexOf(int handle) {
+		int slot = handle & SLOT_MASK;
+		if (handle < 0 || slot >= slotCount || slotGeneration[slot] != handle >>> SLOT_BITS) {
+			return -1;
+		}
+		int index = slotIndex[slot];
+		return index < size && handles[index] == handle ? index : -1;
+	}
+
+	public boolean isAlive(int handle) {
+		return indexOf(handle) >= 0;
+	}
+
+	/**
+	 * @return the live entities. Their indices go from 0 to size - 1.
+	 */
+	public int size() {
+		return size;
+	}
+
+	/*********** SETTERS BY HANDLE ***********/
+
+	public void setPosition(int handle, float x, float y) {
+		int index = indexOf(handle);
+		if (index >= 0) {
+			this.x[index] = x;
+			this.y[index] = y;
+			previousX[index] = x;
+			previousY[index] = y;
+		}
+	}
+
+	public void setVelocity(int handle, float velocityX, float velocityY) {
+		int index = indexOf(handle);
+		if (index >= 0) {
+			this.velocityX[index] = velocityX;
+			this.velocityY[index] = velocityY;
+		}
+	}
+
+	/**
+	 * @param handle
+	 * @param rotation
+	 *           degrees
+	 * @param rotationSpeed
+	 *           degrees per second, positive to the left.
+	 */
+	public void setRotation(int handle, float rotation, float rotationSpeed) {
+		int index = indexOf(handle);
+		if (index >= 0) {
+			this.rotation[index] = rotation;
+			this.rotationSpeed[index] = rotationSpeed;
+		}
+	}
+
+	/**
+	 * @param handle
+	 * @param lifeTime
+	 *           seconds until the {@link LifetimeSystem} destroys the entity. 0 for ever.
+	 */
+	public void setLifeTime(int handle, float lifeTime) {
+		int index = indexOf(handle);
+		if (index >= 0) {
+			this.lifeTime[index] = lifeTime;
+		}
+	}
+
+	/**
+	 * Makes the bounds smaller than the entity's rectangle, like {@code Entity.createBounds}.
+	 */
+	public void setBoundsPadding(int handle, float padX, float padY) {
+		int index = indexOf(handle);
+		if (index >= 0) {
+			boundsPadX[index] = padX;
+			boundsPadY[index] = padY;
+		}
+	}
+
+	/*********** BOUNDS ***********/
+
+	/**
+	 * @param index
+	 * @param bounds
+	 *           filled with the bounds of the entity at index.
+	 * @return bounds
+	 */
+	public Rectangle getBounds(int index, Rectangle bounds) {
+		return bounds.set(x[index] + boundsPadX[index], y[index] + boundsPadY[index], width[index] - 2 * boundsPadX[index], height[index]
+		      - 2 * boundsPadY[index]);
+	}
+
+	/**
+	 * @return true if the bounds of the entities at indexA and indexB overlap.
+	 */
+	public boolean overlaps(int indexA, int indexB) {
+		float ax = x[indexA] + boundsPadX[indexA];
+		float ay = y[indexA] + boundsPadY[indexA];
+		float bx = x[indexB] + boundsPadX[indexB];
+		float by = y[indexB] + boundsPadY[indexB];
+		return ax < bx + width[indexB] - 2 * boundsPadX[indexB] && bx < ax + width[indexA] - 2 * boundsPadX[indexA]
+		      && ay < by + height[indexB] - 2 * boundsPadY[indexB] && by < ay + height[indexA] - 2 * boundsPadY[indexA];
+	}
+
+	/*********** SYSTEMS ***********/
+
+	/**
+	 * Adds a system. Systems are updated in the order they are added.
+	 *
+	 * @param system
+	 */
+	public void addSystem(EntitySystem system) {
+		systems.add(system);
+	}
+
+	public boolean removeSystem(EntitySystem system) {
+		return systems.removeValue(system, true);
+	}
+
+	/**
+	 * Saves the positions as the previous ones (to draw interpolated) and updates every enabled system.
+	 *
+	 * @param delta
+	 */
+	public void update(float delta) {
+		System.arraycopy(x, 0, previousX, 0, size);
+		System.arraycopy(y, 0, previousY, 0, size);
+		for (int i = 0; i < systems.size; i++) {
+			EntitySystem system = systems.get(i);
+			if (system.isEnabled()) {
+				system.update(this, delta);
+			}
+		}
+	}
+
+	/*********** DRAW ***********/
+
+	/**
+	 * Draws every entity with a region.
+	 *
+	 * @param batch
+	 */
+	public void draw(SpriteBatch batch) {
+		for (int i = 0; i < size; i++) {
+			if (region[i] != null) {
+				batch.draw(region[i], x[i], y[i], originX[i], originY[i], width[i], height[i], 1f, 1f, rotation[i]);
+			}
+		}
+	}
+
+	/**
+	 * Draws every entity between it's previous position and the current one. Use it with the alpha of a
+	 * {@link com.autlos.sgf.FixedTimestep}.
+	 *
+	 * @param batch
+	 * @param alpha
+	 */
+	public void draw(SpriteBatch batch, float alpha) {
+		for (int i = 0; i < size; i++) {
+			if (region[i] != null) {
+				float drawX = previousX[i] + (x[i] - previousX[i]) * alpha;
+				float drawY = previousY[i] + (y[i] - previousY[i]) * alpha;
+				batch.draw(region[i], drawX, drawY, originX[i], originY[i], width[i], height[i], 1f, 1f, rotation[i]);
+			}
+		}
+	}
+
+	/**
+	 * Draws the entities visible by the camera.
+	 *
+	 * @param batch
+	 * @param camera
+	 */
+	public void draw(SpriteBatch batch, WorldCamera camera) {
+		for (int i = 0; i < size; i++) {
+			if (region[i] == null) {
+				continue;
+			}
+			float margin = rotation[i] == 0f ? 0f : Math.max(width[i], height[i]);
+			if (camera.isVisible(x[i] - margin, y[i] - margin, width[i] + 2 * margin, height[i] + 2 * margin)) {
+				batch.draw(region[i], x[i], y[i], originX[i], originY[i], width[i], height[i], 1f, 1f, rotation[i]);
+			}
+		}
+	}
+
+	private void allocate(int capacity) {
+		x = resize(x, capacity);
+		y = resize(y, capacity);
+		previousX = resize(previousX, capacity);
+		previousY = resize(previousY, capacity);
+		velocityX = resize(velocityX, capacity);
+		velocityY = resize(velocityY, capacity);
+		rotation = resize(rotation, capacity);
+		rotationSpeed = resize(rotationSpeed, capacity);
+		width = resize(width, capacity);
+		height = resize(height, capacity);
+		originX = resize(originX, capacity);
+		originY = resize(originY, capacity);
+		boundsPadX = resize(boundsPadX, capacity);
+		boundsPadY = resize(boundsPadY, capacity);
+		stateTime = resize(stateTime, capacity);
+		age = resize(age, capacity);
+		lifeTime = resize(lifeTime, capacity);
+		region = region == null ? new TextureRegion[capacity] : Arrays.copyOf(region, capacity);
+		animation = animation == null ? new Animation[capacity] : Arrays.copyOf(animation, capacity);
+		handles = handles == null ? new int[capacity] : Arrays.copyOf(handles, capacity);
+	}
+
+	private static float[] resize(float[] array, int capacity) {
+		return array == null ? new float[capacity] : Arrays.copyOf(array, capacity);
+	}
+}
@@ -0,0 +1,167 @@
+package com.autlos.sgf.input;
+
+import com.badlogic.gdx.InputProcessor;
+
+/**
+ * A batch of input events taken from an {@link InputQueue}, in the order they happened. The world gets one batch per tick. Event i is
+ * described by {@code getType(i)}, {@code getX(i)}, etc. The batch is reused: don't keep it after the tick.
+ *
+ * @author Autlos
+ *
+ */
+public class InputEvents {
+	public static final int KEY_DOWN = 0;
+	public static final int KEY_UP = 1;
+	public static final int KEY_TYPED = 2;
+	public static final int TOUCH_DOWN = 3;
+	public static final int TOUCH_UP = 4;
+	public static final int TOUCH_DRAGGED = 5;
+	public static final int MOUSE_MOVED = 6;
+	public static final int SCROLLED = 7;
+
+	int[] type;
+	int[] x;
+	int[] y;
+	int[] pointer;
+	// button, keycode, character or scroll amount, depending on the type.
+	int[] code;
+	long[] time;
+	int size;
+
+	public InputEvents() {
+		this(256);
+	}
+
+	public InputEvents(int capacity) {
+		type = new int[capacity];
+		x = new int[capacity];
+		y = new int[capacity];
+		pointer = new int[capacity];
+		code = new int[capacity];
+		time = new long[capacity];
+	}
+
+	void ensureCapacity(int capacity) {
+		if (capacity <= type.length) {
+			return;
+		}
+		type = resize(type, capacity);
+		x = resize(x, capacity);
+		y = resize(y, capacity);
+		pointer = resize(pointer, capacity);
+		code = resize(code, capacity);
+		long[] newTime = new long[capacity];
+		System.arraycopy(time, 0, newTime, 0, size);
+		time = newTime;
+	}
+
+	/**
+	 * Adds an event at the end of the batch.
+	 */
+	public void add(int type, int x, int y, int pointer, int code, long time) {
+		if (size == this.type.length) {
+			ensureCapacity(size * 2);
+		}
+		int i = size++;
+		this.type[i] = type;
+		this.x[i] = x;
+		this.y[i] = y;
+		this.pointer[i] = pointer;
+		this.code[i] = code;
+		this.time[i] = time;
+	}
+
+	/**
+	 * Sends every event to the processor, i.e the {@link com.autlos.sgf.screens.ScreenController} of the screen.
+	 *
+	 * @param processor
+	 */
+	public void dispatch(InputProcessor processor) {
+		for (int i = 0; i < size; i++) {
+			dispatch(i, processor);
+		}
+	}
+
+	/**
+	 * Sends event i to the processor.
+	 *
+	 * @param i
+	 * @param processor
+	 * @return what the processor returned.
+	 */
+	public boolean dispatch(int i, InputProcessor processor) {
+		switch (type[i]) {
+		case KEY_DOWN:
+			return processor.keyDown(code[i]);
+		case KEY_UP:
+			return processor.keyUp(code[i]);
+		case KEY_TYPED:
+			return processor.keyTyped((char) code[i]);
+		case TOUCH_DOWN:
+			return processor.touchDown(x[i], y[i], pointer[i], code[i]);
+		case TOUCH_UP:
+			return processor.touchUp(x[i], y[i], pointer[i], code[i]);
+		case TOUCH_DRAGGED:
+			return processor.touchDragged(x[i], y[i], pointer[i]);
+		case MOUSE_MOVED:
+			return processor.mouseMoved(x[i], y[i]);
+		case SCROLLED:
+			return processor.scrolled(code[i]);
+		default:
+			return false;
+		}
+	}
+
+	public void clear() {
+		size = 0;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * @return one of KEY_DOWN, KEY_UP, KEY_TYPED, TOUCH_DOWN, TOUCH_UP, TOUCH_DRAGGED, MOUSE_MOVED or SCROLLED.
+	 */
+	public int getType(int i) {
+		return type[i];
+	}
+
+	/**
+	 * @return the screen x of touch and mouse events.
+	 */
+	public int getX(int i) {
+		return x[i];
+	}
+
+	/**
+	 * @return the screen y of touch and mouse events (from the top, like libgdx gives it).
+	 */
+	public int getY(int i) {
+		return y[i];
+	}
+
+	public int getPointer(int i) {
+		return pointer[i];
+	}
+
+	/**
+	 * @return the button of touch events, the keycode of key events, the character of KEY_TYPED or the amount of SCROLLED.
+	 */
+	public int getCode(int i) {
+		return code[i];
+	}
+
+	/**
+	 * @return when the event was received, in nanoseconds ({@code TimeUtils.nanoTime()}). For coalesced drags, the time of the last one.
+	 */
+	public long getTime(int i) {
+		return time[i];
+	}
+
+	private static int[] resize(int[] array, int capacity) {
+		int[] newArray = new int[capacity];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+}
@@ -0,0 +1,237 @@
+package com.autlos.sgf.input;
+
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Records the input events in a preallocated ring buffer, with their time in nanoseconds, instead of running the game logic in the input
+ * callbacks. The world takes them all once per tick with {@code poll} (see {@code WorldAbstract.setInputQueue}), so the cost of the input
+ * doesn't depend on how many events the backend sends.
+ * <p>
+ * Consecutive drags of the same pointer (and consecutive mouse moves) are coalesced: if the last event queued for a pointer is a drag that
+ * hasn't been polled yet, a new drag just updates it's position and time. Only the latest position matters for a drag, so the world
+ * processes one drag per pointer and tick instead of dozens. Events of other pointers don't stop the coalescing, so a drag can be moved
+ * before events of other pointers that happened after it.
+ * <p>
+ * Set it as the input processor with {@code Gdx.input.setInputProcessor(queue)}. Recording and polling are synchronized, so the queue can be
+ * filled from another thread. When it's full, new events are dropped (and counted).
+ *
+ * @author Autlos
+ *
+ */
+public class InputQueue implements InputProcessor {
+	private static final int MAX_POINTERS = 20;
+
+	private final int capacity;
+	private final int[] type;
+	private final int[] x;
+	private final int[] y;
+	private final int[] pointer;
+	private final int[] code;
+	private final long[] time;
+
+	// Events written and read since the start. The event n is at n % capacity.
+	private long written;
+	private long read;
+
+	// Last event queued for each pointer, and last drag. -1 if none.
+	private final long[] lastEvent = new long[MAX_POINTERS];
+	private final long[] lastDrag = new long[MAX_POINTERS];
+	// Last event of the mouse (a move, a scroll or a touch of pointer 0), so a move is not coalesced past another mouse event.
+	private long lastMouseEvent = -1;
+	private long lastMove = -1;
+
+	private boolean coalescing = true;
+	private long recorded;
+	private long coalesced;
+	private long dropped;
+
+	public InputQueue() {
+		this(256);
+	}
+
+	/**
+	 * @param capacity
+	 *           events that can be queued between polls.
+	 */
+	public InputQueue(int capacity) {
+		this.capacity = capacity;
+		type = new int[capacity];
+		x = new int[capacity];
+		y = new int[capacity];
+		pointer = new int[capacity];
+		code = new int[capacity];
+		time = new long[capacity];
+		for (int i = 0; i < MAX_POINTERS; i++) {
+			lastEvent[i] = -1;
+			lastDrag[i] = -1;
+		}
+	}
+
+	/**
+	 * Moves every queued event to the batch, which is cleared first.
+	 *
+	 * @param events
+	 * @return events
+	 */
+	public synchronized InputEvents poll(InputEvents events) {
+		events.clear();
+		int count = (int) (written - read);
+		events.ensureCapacity(count);
+		for (long n = read; n < written; n++) {
+			int i = (int) (n % capacity);
+			events.add(type[i], x[i], y[i], pointer[i], code[i], time[i]);
+		}
+		read = written;
+		return events;
+	}
+
+	/**
+	 * Drops every queued event.
+	 */
+	public synchronized void clear() {
+		read = written;
+	}
+
+	/**
+	 * Records an event, as if it came from the backend. Drags and mouse moves are coalesced.
+	 */
+	public synchronized void record(int type, int x, int y, int pointer, int code) {
+		long now = TimeUtils.nanoTime();
+		boolean tracked = pointer >= 0 && pointer < MAX_POINTERS;
+
+		if (coalescing && type == InputEvents.TOUCH_DRAGGED && tracked) {
+			long n = lastDrag[pointer];
+			if (n >= read && n == lastEvent[pointer]) {
+				update((int) (n % capacity), x, y, now);
+				return;
+			}
+		} else if (coalescing && type == InputEvents.MOUSE_MOVED) {
+			if (lastMove >= read && lastMove == lastMouseEvent) {
+				update((int) (lastMove % capacity), x, y, now);
+				return;
+			}
+		}
+
+		if (written - read == capacity) {
+			dropped++;
+			return;
+		}
+		long n = written++;
+		int i = (int) (n % capacity);
+		this.type[i] = type;
+		this.x[i] = x;
+		this.y[i] = y;
+		this.pointer[i] = pointer;
+		this.code[i] = code;
+		this.time[i] = now;
+		recorded++;
+
+		if (tracked) {
+			lastEvent[pointer] = n;
+			if (type == InputEvents.TOUCH_DRAGGED) {
+				lastDrag[pointer] = n;
+			}
+		}
+		if (type == InputEvents.MOUSE_MOVED) {
+			lastMove = n;
+			lastMouseEvent = n;
+		} else if (type == InputEvents.SCROLLED) {
+			// Scrolls have no pointer (-1).
+			lastMouseEvent = n;
+		} else if (type >= InputEvents.TOUCH_DOWN && type <= InputEvents.TOUCH_DRAGGED && pointer == 0) {
+			lastMouseEvent = n;
+		}
+	}
+
+	private void update(int i, int x, int y, long now) {
+		this.x[i] = x;
+		this.y[i] = y;
+		this.time[i] = now;
+		coalesced++;
+	}
+
+	/**
+	 * @param coalescing
+	 *           if false, every drag and mouse move is queued. true by default.
+	 */
+	public synchronized void setCoalescing(boolean coalescing) {
+		this.coalescing = coalescing;
+	}
+
+	/**
+	 * @return the events queued now.
+	 */
+	public synchronized int size() {
+		return (int) (written - read);
+	}
+
+	/**
+	 * @return the events queued since the start (not counting the coalesced ones).
+	 */
+	public synchronized long getRecorded() {
+		return recorded;
+	}
+
+	/**
+	 * @return the drags and mouse moves merged into a queued one since the start.
+	 */
+	public synchronized long getCoalesced() {
+		return coalesced;
+	}
+
+	/**
+	 * @return the events dropped because the queue was full.
+	 */
+	public synchronized long getDropped() {
+		return dropped;
+	}
+
+	@Override
+	public boolean keyDown(int keycode) {
+		record(InputEvents.KEY_DOWN, 0, 0, -1, keycode);
+		return true;
+	}
+
+	@Override
+	public boolean keyUp(int keycode) {
+		record(InputEvents.KEY_UP, 0, 0, -1, keycode);
+		return true;
+	}
+
+	@Override
+	public boolean keyTyped(char character) {
+		record(InputEvents.KEY_TYPED, 0, 0, -1, character);
+		return true;
+	}
+
+	@Override
+	public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+		record(InputEvents.TOUCH_DOWN, screenX, screenY, pointer, button);
+		return true;
+	}
+
+	@Override
+	public boolean touchUp(int screenX, int screenY, int pointer, int button) {
+		record(InputEvents.TOUCH_UP, screenX, screenY, pointer, button);
+		return true;
+	}
+
+	@Override
+	public boolean touchDragged(int screenX, int screenY, int pointer) {
+		record(InputEvents.TOUCH_DRAGGED, screenX, screenY, pointer, 0);
+		return true;
+	}
+
+	@Override
+	public boolean mouseMoved(int screenX, int screenY) {
+		record(InputEvents.MOUSE_MOVED, screenX, screenY, 0, 0);
+		return true;
+	}
+
+	@Override
+	public boolean scrolled(int amount) {
+		record(InputEvents.SCROLLED, 0, 0, -1, amount);
+		return true;
+	}
+}
@@ -0,0 +1,216 @@
+package com.autlos.sgf.input;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+import com.autlos.sgf.GameContext;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Records the delta of every frame and every input event of the game to a binary log, so the run can be repeated exactly with an
+ * {@link InputReplayer}. It's set in the game with {@code GameAbstract.setRecorder}: then it's placed in front of the input processor (the
+ * ScreenController, an InputQueue...), it records the events and passes them on.
+ * <p>
+ * The header keeps the seed of the game's random generator and the screen size, which the replay restores: the generator is restarted
+ * with it's seed when the recorder is created, so record from the state the replay will start from (i.e right after create).
+ * <p>
+ * Format: an int {@code MAGIC}, a short {@code VERSION}, a long seed, a float screen width and a float screen height, and for each frame a
+ * float delta, an int with the number of events and the events: byte type (see {@link InputEvents}), short x, short y, byte pointer and
+ * int code. A frame with -1 events marks the end. The time of the events is not saved: in a replay they are sent at the start of the
+ * frame they arrived in, like libgdx does.
+ *
+ * @author Autlos
+ *
+ */
+public class InputRecorder implements InputProcessor {
+	public static final int MAGIC = 0x53474652;
+	public static final short VERSION = 1;
+
+	private final DataOutputStream out;
+	// Events received since the last frame.
+	private final InputEvents events = new InputEvents(64);
+	private InputProcessor processor;
+
+	private long frames;
+	private long recordedEvents;
+	private boolean closed;
+
+	/**
+	 * @param file
+	 *           overwritten.
+	 * @param context
+	 *           of the game recorded. It's random generator is restarted with it's seed.
+	 */
+	public InputRecorder(FileHandle file, GameContext context) {
+		this(file.write(false), context);
+	}
+
+	/**
+	 * @param output
+	 * @param context
+	 *           of the game recorded. It's random generator is restarted with it's seed.
+	 */
+	public InputRecorder(OutputStream output, GameContext context) {
+		out = new DataOutputStream(new BufferedOutputStream(output, 8192));
+		// The replay starts the generator from the seed too.
+		context.setSeed(context.getSeed());
+		try {
+			out.writeInt(MAGIC);
+			out.writeShort(VERSION);
+			out.writeLong(context.getSeed());
+			out.writeFloat(context.getScreenWidth());
+			out.writeFloat(context.getScreenHeight());
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't write the input log", e);
+		}
+	}
+
+	/**
+	 * Writes a frame with the events received since the last one. Called by GameAbstract at the start of every frame, before the world and
+	 * the screen are updated.
+	 *
+	 * @param delta
+	 *           of the frame, as it will be used by the game.
+	 */
+	public void frame(float delta) {
+		if (closed) {
+			return;
+		}
+		int count = events.size();
+		try {
+			out.writeFloat(delta);
+			out.writeInt(count);
+			for (int i = 0; i < count; i++) {
+				out.writeByte(events.type[i]);
+				out.writeShort(events.x[i]);
+				out.writeShort(events.y[i]);
+				out.writeByte(events.pointer[i]);
+				out.writeInt(events.code[i]);
+			}
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't write the input log", e);
+		}
+		events.clear();
+		frames++;
+		recordedEvents += count;
+	}
+
+	/**
+	 * Places the recorder in front of the current input processor, if it's not already there. Called by GameAbstract after every frame, so
+	 * the processors set by new screens are recorded too.
+	 */
+	public void attach() {
+		InputProcessor current = Gdx.input.getInputProcessor();
+		if (current != this) {
+			processor = current;
+			Gdx.input.setInputProcessor(this);
+		}
+	}
+
+	/**
+	 * Gives the input back to the processor the recorder was in front of.
+	 */
+	public void detach() {
+		if (Gdx.input.getInputProcessor() == this) {
+			Gdx.input.setInputProcessor(processor);
+		}
+	}
+
+	/**
+	 * Writes the end mark and closes the log. Events received after the last frame are discarded.
+	 */
+	public void close() {
+		if (closed) {
+			return;
+		}
+		closed = true;
+		try {
+			out.writeFloat(0f);
+			out.writeInt(-1);
+			out.close();
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't close the input log", e);
+		}
+	}
+
+	public InputProcessor getProcessor() {
+		return processor;
+	}
+
+	/**
+	 * @param processor
+	 *           that gets the events after they are recorded.
+	 */
+	public void setProcessor(InputProcessor processor) {
+		this.processor = processor;
+	}
+
+	public long getFrames() {
+		return frames;
+	}
+
+	public long getRecordedEvents() {
+		return recordedEvents;
+	}
+
+	public boolean isClosed() {
+		return closed;
+	}
+
+	private void record(int type, int x, int y, int pointer, int code) {
+		events.add(type, x, y, pointer, code, 0L);
+	}
+
+	@Override
+	public boolean keyDown(int keycode) {
+		record(InputEvents.KEY_DOWN, 0, 0, -1, keycode);
+		return processor != null && processor.keyDown(keycode);
+	}
+
+	@Override
+	public boolean keyUp(int keycode) {
+		record(InputEvents.KEY_UP, 0, 0, -1, keycode);
+		return processor != null && processor.keyUp(keycode);
+	}
+
+	@Override
+	public boolean keyTyped(char character) {
+		record(InputEvents.KEY_TYPED, 0, 0, -1, character);
+		return processor != null && processor.keyTyped(character);
+	}
+
+	@Override
+	public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+		record(InputEvents.TOUCH_DOWN, screenX, screenY, pointer, button);
+		return processor != null && processor.touchDown(screenX, screenY, pointer, button);
+	}
+
+	@Override
+	public boolean touchUp(int screenX, int screenY, int pointer, int button) {
+		record(InputEvents.TOUCH_UP, screenX, screenY, pointer, button);
+		return processor != null && processor.touchUp(screenX, screenY, pointer, button);
+	}
+
+	@Override
+	public boolean touchDragged(int screenX, int screenY, int pointer) {
+		record(InputEvents.TOUCH_DRAGGED, screenX, screenY, pointer, 0);
+		return processor != null && processor.touchDragged(screenX, screenY, pointer);
+	}
+
+	@Override
+	public boolean mouseMoved(int screenX, int screenY) {
+		record(InputEvents.MOUSE_MOVED, screenX, screenY, 0, 0);
+		return processor != null && processor.mouseMoved(screenX, screenY);
+	}
+
+	@Override
+	public boolean scrolled(int amount) {
+		record(InputEvents.SCROLLED, 0, 0, -1, amount);
+		return processor != null && processor.scrolled(amount);
+	}
+}
@@ -0,0 +1,189 @@
+package com.autlos.sgf.input;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+
+import com.autlos.sgf.GameAbstract;
+import com.autlos.sgf.GameContext;
+import com.badlogic.gdx.InputProcessor;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Plays a log written by an {@link InputRecorder}. Set in the game with {@code GameAbstract.setReplayer}, every frame of the game uses the
+ * recorded delta instead of the real one, and gets the recorded events (sent to the current input processor) instead of the real input.
+ * Starting from the same state, the game does exactly the same as in the recorded run. The seed and screen size of the recording are
+ * restored in the context of the game by {@code replay(game)}, or by {@code restore(context)}.
+ * <p>
+ * {@code replay(game)} runs all the frames as fast as possible, i.e under the headless backend, to look for performance regressions or as a
+ * load for benchmarks. A log cut before the end mark (the game crashed while recording) is played until the last complete frame.
+ *
+ * @author Autlos
+ *
+ */
+public class InputReplayer {
+	private final DataInputStream in;
+	private final InputEvents events = new InputEvents(64);
+	private float delta;
+	private long frames;
+	private boolean finished;
+
+	// Delta and number of events of the next frame, read ahead so the end of the log is known before playing it.
+	private float nextDelta;
+	private int nextCount;
+
+	// From the header.
+	private long seed;
+	private float screenWidth;
+	private float screenHeight;
+
+	public InputReplayer(FileHandle file) {
+		this(file.read());
+	}
+
+	public InputReplayer(InputStream input) {
+		in = new DataInputStream(new BufferedInputStream(input, 8192));
+		try {
+			int magic = in.readInt();
+			short version = in.readShort();
+			if (magic != InputRecorder.MAGIC || version != InputRecorder.VERSION) {
+				throw new GdxRuntimeException("Not an input log, or unknown version: " + Integer.toHexString(magic) + " v" + version);
+			}
+			seed = in.readLong();
+			screenWidth = in.readFloat();
+			screenHeight = in.readFloat();
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't read the input log", e);
+		}
+		readNextFrame();
+	}
+
+	/**
+	 * Reads the delta and number of events of the next frame. At the end mark or at the end of the file, the replayer is finished.
+	 */
+	private void readNextFrame() {
+		try {
+			nextDelta = in.readFloat();
+			nextCount = in.readInt();
+		} catch (EOFException e) {
+			nextCount = -1;
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't read the input log", e);
+		}
+		if (nextCount < 0) {
+			finish();
+		}
+	}
+
+	/**
+	 * Reads the next frame: it's delta and events.
+	 *
+	 * @return false if there are no more frames.
+	 */
+	public boolean nextFrame() {
+		events.clear();
+		if (finished) {
+			return false;
+		}
+		try {
+			int count = nextCount;
+			for (int i = 0; i < count; i++) {
+				int type = in.readByte();
+				int x = in.readShort();
+				int y = in.readShort();
+				int pointer = in.readByte();
+				int code = in.readInt();
+				events.add(type, x, y, pointer, code, 0L);
+			}
+		} catch (EOFException e) {
+			events.clear();
+			finish();
+			return false;
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't read the input log", e);
+		}
+		delta = nextDelta;
+		frames++;
+		readNextFrame();
+		return true;
+	}
+
+	/**
+	 * Sends the events of the current frame to the processor.
+	 *
+	 * @param processor
+	 *           can be null (the events are skipped).
+	 */
+	public void dispatch(InputProcessor processor) {
+		if (processor != null) {
+			events.dispatch(processor);
+		}
+	}
+
+	/**
+	 * Plays every frame of the log in the game, as fast as possible. It must be called from the thread of the game (i.e from the create of
+	 * the ApplicationListener that runs the game under the headless backend).
+	 *
+	 * @param game
+	 *           created and with the same state it had when the recording started. The seed and screen size are restored.
+	 * @return the frames played.
+	 */
+	public long replay(GameAbstract game) {
+		restore(game.getContext());
+		game.setReplayer(this);
+		while (!finished) {
+			game.render();
+		}
+		return frames;
+	}
+
+	/**
+	 * Restarts the random generator of the context with the seed of the recording, and sets the screen size of the recording.
+	 *
+	 * @param context
+	 */
+	public void restore(GameContext context) {
+		context.setSeed(seed);
+		context.setScreenSize(screenWidth, screenHeight);
+	}
+
+	/**
+	 * @return the delta of the current frame.
+	 */
+	public float getDelta() {
+		return delta;
+	}
+
+	/**
+	 * @return the events of the current frame. Don't keep them, they are reused.
+	 */
+	public InputEvents getEvents() {
+		return events;
+	}
+
+	/**
+	 * @return the frames played so far.
+	 */
+	public long getFrames() {
+		return frames;
+	}
+
+	/**
+	 * @return true if there are no more frames to play.
+	 */
+	public boolean isFinished() {
+		return finished;
+	}
+
+	private void finish() {
+		finished = true;
+		try {
+			in.close();
+		} catch (IOException e) {
+			// Nothing left to read anyway.
+		}
+	}
+}
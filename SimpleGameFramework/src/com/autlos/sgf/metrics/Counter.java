@@ -0,0 +1,38 @@
+package com.autlos.sgf.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A total that only goes up, i.e projectiles spawned. Updating it is an atomic add: it can be done from any thread and allocates nothing.
+ *
+ * @author Autlos
+ *
+ */
+public class Counter extends Metric {
+	private final AtomicLong count = new AtomicLong();
+
+	public Counter(String name) {
+		super(name);
+	}
+
+	public void inc() {
+		count.incrementAndGet();
+	}
+
+	/**
+	 * @param amount
+	 *           not negative.
+	 */
+	public void add(long amount) {
+		count.addAndGet(amount);
+	}
+
+	public long get() {
+		return count.get();
+	}
+
+	@Override
+	public double getValue(int field) {
+		return count.get();
+	}
+}
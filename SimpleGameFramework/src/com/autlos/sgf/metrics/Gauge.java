@@ -0,0 +1,39 @@
+package com.autlos.sgf.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A value that goes up and down, i.e live entities or draw calls of the last frame. It's either set, or moved with {@code add} when
+ * several owners share it (i.e the live projectiles of every ProjectileManager). Updating it is atomic and allocates nothing.
+ *
+ * @author Autlos
+ *
+ */
+public class Gauge extends Metric {
+	private final AtomicLong value = new AtomicLong();
+
+	public Gauge(String name) {
+		super(name);
+	}
+
+	public void set(long value) {
+		this.value.set(value);
+	}
+
+	/**
+	 * @param amount
+	 *           negative to decrease it.
+	 */
+	public void add(long amount) {
+		value.addAndGet(amount);
+	}
+
+	public long get() {
+		return value.get();
+	}
+
+	@Override
+	public double getValue(int field) {
+		return value.get();
+	}
+}
@@ -0,0 +1,135 @@
+package com.autlos.sgf.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counts values (i.e tick times in microseconds) in fixed buckets, so recording one is a few comparisons and atomic adds, from any thread
+ * and without allocating. Exported as name.count, name.mean, name.p50, name.p95, name.p99 and name.max; the percentiles are the upper
+ * bound of the bucket they fall in (the max for the last bucket), so choose the bounds around the values that matter.
+ *
+ * @author Autlos
+ *
+ */
+public class Histogram extends Metric {
+	/**
+	 * Bounds for tick or frame times in microseconds, around the 60 Hz (16667) and 30 Hz (33333) frames.
+	 */
+	public static final long[] TIME_BOUNDS = { 250, 500, 1000, 2000, 4000, 8000, 12000, 16667, 25000, 33333, 66667, 100000 };
+
+	private static final String[] FIELDS = { "count", "mean", "p50", "p95", "p99", "max" };
+
+	// Bucket i counts the values <= bounds[i] (and > bounds[i - 1]). The last bucket counts the values over every bound.
+	private final long[] bounds;
+	private final AtomicLongArray buckets;
+	private final AtomicLong count = new AtomicLong();
+	private final AtomicLong sum = new AtomicLong();
+	private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+	private final String[] fieldNames;
+
+	/**
+	 * @param name
+	 * @param bounds
+	 *           upper bounds of the buckets, in increasing order. Copied.
+	 */
+	public Histogram(String name, long[] bounds) {
+		super(name);
+		for (int i = 1; i < bounds.length; i++) {
+			if (bounds[i] <= bounds[i - 1]) {
+				throw new IllegalArgumentException("The bounds must be increasing: " + name);
+			}
+		}
+		this.bounds = bounds.clone();
+		buckets = new AtomicLongArray(bounds.length + 1);
+		fieldNames = new String[FIELDS.length];
+		for (int i = 0; i < FIELDS.length; i++) {
+			fieldNames[i] = name + "." + FIELDS[i];
+		}
+	}
+
+	/**
+	 * @param value
+	 */
+	public void record(long value) {
+		int bucket = 0;
+		while (bucket < bounds.length && value > bounds[bucket]) {
+			bucket++;
+		}
+		buckets.incrementAndGet(bucket);
+		sum.addAndGet(value);
+		count.incrementAndGet();
+		long current = max.get();
+		while (value > current && !max.compareAndSet(current, value)) {
+			current = max.get();
+		}
+	}
+
+	public long getCount() {
+		return count.get();
+	}
+
+	public double getMean() {
+		long count = this.count.get();
+		return count == 0 ? 0 : sum.get() / (double) count;
+	}
+
+	public long getMax() {
+		long max = this.max.get();
+		return max == Long.MIN_VALUE ? 0 : max;
+	}
+
+	/**
+	 * @param percentile
+	 *           between 0 and 1.
+	 * @return the upper bound of the bucket the percentile falls in, or the max if it's lower. 0 if nothing was recorded.
+	 */
+	public long getPercentile(double percentile) {
+		long total = 0;
+		for (int i = 0; i < buckets.length(); i++) {
+			total += buckets.get(i);
+		}
+		if (total == 0) {
+			return 0;
+		}
+		long rank = Math.max(1, (long) Math.ceil(percentile * total));
+		long max = getMax();
+		long seen = 0;
+		for (int i = 0; i < bounds.length; i++) {
+			seen += buckets.get(i);
+			if (seen >= rank) {
+				return Math.min(bounds[i], max);
+			}
+		}
+		return max;
+	}
+
+	@Override
+	public int getFieldCount() {
+		return FIELDS.length;
+	}
+
+	@Override
+	public String getFieldName(int field) {
+		return fieldNames[field];
+	}
+
+	@Override
+	public double getValue(int field) {
+		switch (field) {
+		case 0:
+			return getCount();
+		case 1:
+			return getMean();
+		case 2:
+			return getPercentile(0.50);
+		case 3:
+			return getPercentile(0.95);
+		case 4:
+			return getPercentile(0.99);
+		case 5:
+			return getMax();
+		default:
+			throw new IndexOutOfBoundsException("field: " + field);
+		}
+	}
+}
@@ -0,0 +1,71 @@
+package com.autlos.sgf.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Hits and misses of a pool (or a cache): an obtain is a hit if a free object was reused, and a miss if a new one had to be created.
+ * Exported as name.hits, name.misses and name.rate (hits / obtains, 1 before anything is obtained).
+ *
+ * @author Autlos
+ *
+ */
+public class HitRate extends Metric {
+	private static final int HITS = 0;
+	private static final int MISSES = 1;
+	private static final int RATE = 2;
+
+	private final AtomicLong hits = new AtomicLong();
+	private final AtomicLong misses = new AtomicLong();
+	private final String[] fieldNames;
+
+	public HitRate(String name) {
+		super(name);
+		fieldNames = new String[] { name + ".hits", name + ".misses", name + ".rate" };
+	}
+
+	/**
+	 * @param hit
+	 *           i.e {@code pool.getFree() > 0}, checked before the obtain.
+	 */
+	public void record(boolean hit) {
+		(hit ? hits : misses).incrementAndGet();
+	}
+
+	public long getHits() {
+		return hits.get();
+	}
+
+	public long getMisses() {
+		return misses.get();
+	}
+
+	public double getRate() {
+		long hits = this.hits.get();
+		long total = hits + misses.get();
+		return total == 0 ? 1.0 : hits / (double) total;
+	}
+
+	@Override
+	public int getFieldCount() {
+		return 3;
+	}
+
+	@Override
+	public String getFieldName(int field) {
+		return fieldNames[field];
+	}
+
+	@Override
+	public double getValue(int field) {
+		switch (field) {
+		case HITS:
+			return hits.get();
+		case MISSES:
+			return misses.get();
+		case RATE:
+			return getRate();
+		default:
+			throw new IndexOutOfBoundsException("field: " + field);
+		}
+	}
+}
@@ -0,0 +1,43 @@
+package com.autlos.sgf.metrics;
+
+/**
+ * A named value of a {@link MetricsRegistry}. Exporters (JMX, the {@link MetricsFileSink}) read it as one or more numeric fields, i.e a
+ * histogram is exported as it's count, mean, percentiles and max.
+ *
+ * @author Autlos
+ *
+ */
+public abstract class Metric {
+	protected final String name;
+
+	protected Metric(String name) {
+		this.name = name;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * @return the number of fields exported. 1 by default.
+	 */
+	public int getFieldCount() {
+		return 1;
+	}
+
+	/**
+	 * @param field
+	 * @return the exported name of the field. The name of the metric by default.
+	 */
+	public String getFieldName(int field) {
+		return name;
+	}
+
+	/**
+	 * Reads a field. It can be called from any thread while the metric is being updated.
+	 *
+	 * @param field
+	 * @return the current value of the field.
+	 */
+	public abstract double getValue(int field);
+}
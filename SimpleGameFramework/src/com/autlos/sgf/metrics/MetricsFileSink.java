@@ -0,0 +1,187 @@
+package com.autlos.sgf.metrics;
+
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Timer;
+import java.util.TimerTask;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Appends a sample of every metric of a registry to local files, periodically, from a daemon thread of it's own: a csv row (with a header
+ * row first, and again whenever metrics were added) and/or a json line ({"time":millis,"field":value,...}). The game thread is never
+ * blocked, the sampling only reads the metrics. Values that are not a number are written as empty cells and as null.
+ * <p>
+ * If writing fails, the sink stops and the error is kept, see {@code getError()}.
+ *
+ * @author Autlos
+ *
+ */
+public class MetricsFileSink {
+	private final MetricsRegistry registry;
+	private final File csvFile;
+	private final File jsonFile;
+	private int csvFields = -1;
+
+	private Timer timer;
+	private volatile RuntimeException error;
+
+	// Held while writing, instead of the sink, so stop() doesn't wait for a write to finish.
+	private final Object writeLock = new Object();
+	private final StringBuilder line = new StringBuilder(1024);
+
+	/**
+	 * @param registry
+	 * @param csvFile
+	 *           appended to, null for no csv.
+	 * @param jsonFile
+	 *           appended to, null for no json.
+	 */
+	public MetricsFileSink(MetricsRegistry registry, File csvFile, File jsonFile) {
+		this.registry = registry;
+		this.csvFile = csvFile;
+		this.jsonFile = jsonFile;
+	}
+
+	/**
+	 * Starts writing a sample every period.
+	 *
+	 * @param periodMillis
+	 */
+	public synchronized void start(long periodMillis) {
+		stop();
+		error = null;
+		timer = new Timer("Metrics sink", true);
+		timer.schedule(new TimerTask() {
+			@Override
+			public void run() {
+				try {
+					write();
+				} catch (RuntimeException e) {
+					error = e;
+					cancel();
+				}
+			}
+		}, periodMillis, periodMillis);
+	}
+
+	/**
+	 * Stops the periodic writes. It doesn't wait for a write in progress. Call {@code write()} after it to save the last values.
+	 */
+	public synchronized void stop() {
+		if (timer != null) {
+			timer.cancel();
+			timer = null;
+		}
+	}
+
+	/**
+	 * Writes a sample now.
+	 */
+	public void write() {
+		synchronized (writeLock) {
+			writeSample();
+		}
+	}
+
+	private void writeSample() {
+		long time = System.currentTimeMillis();
+		Metric[] metrics = registry.getMetrics();
+		if (csvFile != null) {
+			line.setLength(0);
+			int fields = 0;
+			for (int i = 0; i < metrics.length; i++) {
+				fields += metrics[i].getFieldCount();
+			}
+			if (fields != csvFields) {
+				line.append("time");
+				for (int i = 0; i < metrics.length; i++) {
+					for (int field = 0; field < metrics[i].getFieldCount(); field++) {
+						line.append(',').append(metrics[i].getFieldName(field));
+					}
+				}
+				line.append('\n');
+				csvFields = fields;
+			}
+			line.append(time);
+			for (int i = 0; i < metrics.length; i++) {
+				for (int field = 0; field < metrics[i].getFieldCount(); field++) {
+					line.append(',');
+					appendValue(metrics[i].getValue(field), "");
+				}
+			}
+			append(csvFile, line.append('\n'));
+		}
+		if (jsonFile != null) {
+			line.setLength(0);
+			line.append("{\"time\":").append(time);
+			for (int i = 0; i < metrics.length; i++) {
+				for (int field = 0; field < metrics[i].getFieldCount(); field++) {
+					line.append(",\"");
+					escape(metrics[i].getFieldName(field));
+					line.append("\":");
+					appendValue(metrics[i].getValue(field), "null");
+				}
+			}
+			append(jsonFile, line.append("}\n"));
+		}
+	}
+
+	/**
+	 * @param value
+	 * @param missing
+	 *           written instead of NaN and the infinities (i.e from a metric of the game that divides by 0), which json can't hold.
+	 */
+	private void appendValue(double value, String missing) {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			line.append(missing);
+		} else if (value == (long) value) {
+			line.append((long) value);
+		} else {
+			line.append(value);
+		}
+	}
+
+	/**
+	 * Appends the text as the inside of a json string.
+	 */
+	private void escape(String text) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				line.append('\\').append(c);
+			} else if (c < 0x20) {
+				line.append(' ');
+			} else {
+				line.append(c);
+			}
+		}
+	}
+
+	private static void append(File file, CharSequence text) {
+		Writer writer = null;
+		try {
+			writer = new FileWriter(file, true);
+			writer.append(text);
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't write the metrics to " + file, e);
+		} finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+					// Already written or failed above.
+				}
+			}
+		}
+	}
+
+	/**
+	 * @return the error that stopped the periodic writes, or null.
+	 */
+	public RuntimeException getError() {
+		return error;
+	}
+}
@@ -0,0 +1,119 @@
+package com.autlos.sgf.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.DynamicMBean;
+import javax.management.JMException;
+import javax.management.MBeanAttributeInfo;
+import javax.management.MBeanInfo;
+import javax.management.MBeanNotificationInfo;
+import javax.management.MBeanOperationInfo;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.ReflectionException;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Exports a {@link MetricsRegistry} through JMX: every field of every metric is a read only attribute, read when it's asked for. Metrics
+ * added after the registration show up the next time the MBean info is read. It's kept apart from the registry so the registry can be
+ * loaded where there is no javax.management.
+ *
+ * @author Autlos
+ *
+ */
+class MetricsMBean implements DynamicMBean {
+	private final MetricsRegistry registry;
+
+	private MetricsMBean(MetricsRegistry registry) {
+		this.registry = registry;
+	}
+
+	/**
+	 * @param registry
+	 * @return the ObjectName it was registered with.
+	 */
+	static Object register(MetricsRegistry registry) {
+		MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+		try {
+			ObjectName name = new ObjectName("com.autlos.sgf:type=Metrics,name=" + ObjectName.quote(registry.getName()));
+			server.registerMBean(new MetricsMBean(registry), name);
+			return name;
+		} catch (JMException e) {
+			throw new GdxRuntimeException("Couldn't register the metrics " + registry.getName(), e);
+		}
+	}
+
+	static void unregister(Object name) {
+		try {
+			ManagementFactory.getPlatformMBeanServer().unregisterMBean((ObjectName) name);
+		} catch (JMException e) {
+			throw new GdxRuntimeException("Couldn't unregister the metrics " + name, e);
+		}
+	}
+
+	@Override
+	public Object getAttribute(String attribute) throws AttributeNotFoundException {
+		Metric[] metrics = registry.getMetrics();
+		for (int i = 0; i < metrics.length; i++) {
+			Metric metric = metrics[i];
+			for (int field = 0; field < metric.getFieldCount(); field++) {
+				if (metric.getFieldName(field).equals(attribute)) {
+					return metric.getValue(field);
+				}
+			}
+		}
+		throw new AttributeNotFoundException(attribute);
+	}
+
+	@Override
+	public AttributeList getAttributes(String[] attributes) {
+		AttributeList list = new AttributeList();
+		for (int i = 0; i < attributes.length; i++) {
+			try {
+				list.add(new Attribute(attributes[i], getAttribute(attributes[i])));
+			} catch (AttributeNotFoundException e) {
+				// Left out, as the MBeanServer expects.
+			}
+		}
+		return list;
+	}
+
+	@Override
+	public void setAttribute(Attribute attribute) throws AttributeNotFoundException {
+		throw new AttributeNotFoundException("The metrics are read only: " + attribute.getName());
+	}
+
+	@Override
+	public AttributeList setAttributes(AttributeList attributes) {
+		return new AttributeList();
+	}
+
+	@Override
+	public Object invoke(String actionName, Object[] params, String[] signature) throws ReflectionException {
+		throw new ReflectionException(new NoSuchMethodException(actionName));
+	}
+
+	@Override
+	public MBeanInfo getMBeanInfo() {
+		Metric[] metrics = registry.getMetrics();
+		int count = 0;
+		for (int i = 0; i < metrics.length; i++) {
+			count += metrics[i].getFieldCount();
+		}
+		MBeanAttributeInfo[] attributes = new MBeanAttributeInfo[count];
+		int next = 0;
+		for (int i = 0; i < metrics.length; i++) {
+			Metric metric = metrics[i];
+			String type = metric.getClass().getSimpleName();
+			for (int field = 0; field < metric.getFieldCount(); field++) {
+				attributes[next++] = new MBeanAttributeInfo(metric.getFieldName(field), "double", type, true, false, false);
+			}
+		}
+		return new MBeanInfo(getClass().getName(), "Metrics of " + registry.getName(), attributes, null, new MBeanOperationInfo[0],
+		      new MBeanNotificationInfo[0]);
+	}
+}
@@ -0,0 +1,129 @@
+package com.autlos.sgf.metrics;
+
+/**
+ * The metrics of a game or of a headless world server. Metrics are created once by name (asking again for the same name gives the same
+ * metric, so several owners can share a counter) and then updated without locks nor allocations; reading them is safe from any thread.
+ * <p>
+ * The framework fills it when it's set with {@code setMetrics}: WorldAbstract (ticks, tick time, live entities, timer pool),
+ * ProjectileManager (spawned, finished, live, pool), SpatialHash (collision pairs tested), RenderQueue (draw calls, flushes) and
+ * TweenManager (pool). It's exported with {@code registerMBean()} (JMX, for jconsole or VisualVM) and/or a {@link MetricsFileSink}.
+ *
+ * @author Autlos
+ *
+ */
+public class MetricsRegistry {
+	private final String name;
+	// Copied on each new metric, so readers in other threads can iterate it without locking.
+	private volatile Metric[] metrics = new Metric[0];
+	private Object mbeanName;
+
+	/**
+	 * @param name
+	 *           of the registry, used in the JMX name. i.e the name of the server.
+	 */
+	public MetricsRegistry(String name) {
+		this.name = name;
+	}
+
+	public synchronized Counter counter(String name) {
+		Metric metric = find(name, Counter.class);
+		return metric != null ? (Counter) metric : add(new Counter(name));
+	}
+
+	public synchronized Gauge gauge(String name) {
+		Metric metric = find(name, Gauge.class);
+		return metric != null ? (Gauge) metric : add(new Gauge(name));
+	}
+
+	public synchronized HitRate hitRate(String name) {
+		Metric metric = find(name, HitRate.class);
+		return metric != null ? (HitRate) metric : add(new HitRate(name));
+	}
+
+	/**
+	 * @param name
+	 * @param bounds
+	 *           upper bounds of the buckets, i.e {@code Histogram.TIME_BOUNDS}. Ignored if the histogram already exists.
+	 * @return the histogram.
+	 */
+	public synchronized Histogram histogram(String name, long[] bounds) {
+		Metric metric = find(name, Histogram.class);
+		return metric != null ? (Histogram) metric : add(new Histogram(name, bounds));
+	}
+
+	/**
+	 * Adds a metric of a custom type.
+	 *
+	 * @param metric
+	 * @return the metric.
+	 */
+	public synchronized <T extends Metric> T add(T metric) {
+		if (get(metric.getName()) != null) {
+			throw new IllegalArgumentException("Metric already registered: " + metric.getName());
+		}
+		Metric[] metrics = new Metric[this.metrics.length + 1];
+		System.arraycopy(this.metrics, 0, metrics, 0, this.metrics.length);
+		metrics[metrics.length - 1] = metric;
+		this.metrics = metrics;
+		return metric;
+	}
+
+	private Metric find(String name, Class<? extends Metric> type) {
+		Metric metric = get(name);
+		if (metric != null && metric.getClass() != type) {
+			throw new IllegalArgumentException("Metric " + name + " is a " + metric.getClass().getSimpleName());
+		}
+		return metric;
+	}
+
+	/**
+	 * @param name
+	 * @return the metric, or null.
+	 */
+	public Metric get(String name) {
+		Metric[] metrics = this.metrics;
+		for (int i = 0; i < metrics.length; i++) {
+			if (metrics[i].getName().equals(name)) {
+				return metrics[i];
+			}
+		}
+		return null;
+	}
+
+	/**
+	 * @return the metrics in the order they were added. Don't modify it.
+	 */
+	public Metric[] getMetrics() {
+		return metrics;
+	}
+
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Registers the registry in the platform MBeanServer as com.autlos.sgf:type=Metrics,name=(name), with an attribute per field of
+	 * each metric. Does nothing where there is no JMX, i.e Android.
+	 *
+	 * @return true if it was registered.
+	 */
+	public synchronized boolean registerMBean() {
+		if (mbeanName != null) {
+			return true;
+		}
+		try {
+			mbeanName = MetricsMBean.register(this);
+		} catch (LinkageError e) {
+			// No javax.management.
+			return false;
+		}
+		return true;
+	}
+
+	public synchronized void unregisterMBean() {
+		if (mbeanName != null) {
+			MetricsMBean.unregister(mbeanName);
+			mbeanName = null;
+		}
+	}
+}
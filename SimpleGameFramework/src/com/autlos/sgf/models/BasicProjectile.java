@@ -3,17 +3,24 @@ package com.autlos.sgf.models;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.MathUtils;
 import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool.Poolable;
 
 /**
  * @author Autlos
  * 
  */
-public class BasicProjectile extends MoveableEntity {
+public class BasicProjectile extends MoveableEntity implements Poolable {
 	// This variables will be used only if the constructor for projectiles with lifetime is choosen.
 	protected boolean finished = false;
 	protected float lifeTime = 0f;
 	protected float currentTime = 0f;
 
+	// Cached cos/sin of the rotation, so they are only recalculated when the rotation changes.
+	protected float headingX;
+	protected float headingY;
+	private float headingRotation = Float.NaN;
+
 	/**
 	 * Creates a basic projectile. Position will update based on it's rotation and SPEED.
 	 * 
@@ -53,6 +60,7 @@ public class BasicProjectile extends MoveableEntity {
 	 * To change the movement style override the {@code move(float delta)} method.
 	 */
 	public void update(float delta) {
+		savePreviousState();
 		move(delta);
 
 		// If the projectile has an animation, calls the super update method to update the animation.
@@ -80,12 +88,120 @@ public class BasicProjectile extends MoveableEntity {
 	 * Updates the position based on it's rotation. Override this method if you want to change the movement style.
 	 * @param delta
 	 */
-	private void move(float delta) {
-		this.position.x += SPEED * velocity.x * delta * MathUtils.cosDeg(rotation);
-		this.position.y += SPEED * velocity.y * delta * MathUtils.sinDeg(rotation);
+	protected void move(float delta) {
+		updateHeading();
+		this.position.x += SPEED * velocity.x * delta * headingX;
+		this.position.y += SPEED * velocity.y * delta * headingY;
+	}
+
+	/**
+	 * Recalculates the heading (cos and sin of the rotation) only if the rotation has changed since the last call.
+	 */
+	protected void updateHeading() {
+		if (rotation != headingRotation) {
+			headingRotation = rotation;
+			headingX = MathUtils.cosDeg(rotation);
+			headingY = MathUtils.sinDeg(rotation);
+		}
+	}
+
+	/**
+	 * Initializes a projectile obtained from a pool, without allocating anything.
+	 * 
+	 * @param x
+	 * @param y
+	 * @param SPEED
+	 * @param rotation
+	 * @param lifeTime
+	 *           the projectile will set to finished state after it's lifeTime. 0 for no lifeTime.
+	 */
+	public void init(float x, float y, float SPEED, float rotation, float lifeTime) {
+		setPosition(x, y);
+		this.SPEED = SPEED;
+		this.rotation = rotation;
+		this.lifeTime = lifeTime;
+		savePreviousState();
+		updateHeading();
+		super.update();
+	}
+
+	/**
+	 * Resets the state of the projectile so it can be reused. Called by the pool when the projectile is freed.
+	 */
+	@Override
+	public void reset() {
+		finished = false;
+		lifeTime = 0f;
+		currentTime = 0f;
+		stateTime = 0f;
+		rotating = false;
+		moving = false;
+		velocity.set(1f, 1f);
+		if (spatialHash != null) {
+			spatialHash.remove(this);
+		}
+		if (animation != null) {
+			currentFrame = animation.getKeyFrame(0f);
+		}
+	}
+
+	/**
+	 * Tests the whole last move (from the previous position to the current one) against the targets, so the projectile can't go through
+	 * them at high SPEED or with a big delta. Call it after {@code update}.
+	 * 
+	 * @param targets
+	 * @param hit
+	 *           filled with the earliest entity hit. hit.x and hit.y are the projectile's bounds position at the time of impact.
+	 * @return true if something was hit.
+	 */
+	public boolean sweep(Array<? extends Entity> targets, CollisionHit hit) {
+		return Sweep.aabb(previousX + minBoundsX, previousY + minBoundsY, bounds.width, bounds.height, position.x - previousX,
+		      position.y - previousY, targets, this, hit);
+	}
+
+	/**
+	 * Same as {@code sweep(Array, CollisionHit)}, but only testing the entities of the SpatialHash close to the movement.
+	 * 
+	 * @param hash
+	 * @param hit
+	 * @return true if something was hit.
+	 */
+	public boolean sweep(SpatialHash hash, CollisionHit hit) {
+		return hash.sweep(this, previousX + minBoundsX, previousY + minBoundsY, position.x - previousX, position.y
+		      - previousY, hit);
+	}
+
+	/**
+	 * Moves the projectile back to the point of impact of a sweep, and sets it to finished state.
+	 * 
+	 * @param hit
+	 */
+	public void stopAt(CollisionHit hit) {
+		setPosition(hit.x - minBoundsX, hit.y - minBoundsY);
+		super.update();
+		finished = true;
 	}
 
 	public boolean isFinished() {
 		return finished;
 	}
+
+	/**
+	 * Sets the projectile to finished state, i.e after hitting something.
+	 * 
+	 * @param finished
+	 */
+	public void setFinished(boolean finished) {
+		this.finished = finished;
+	}
+
+	public float getHeadingX() {
+		updateHeading();
+		return headingX;
+	}
+
+	public float getHeadingY() {
+		updateHeading();
+		return headingY;
+	}
 }
@@ -0,0 +1,38 @@
+package com.autlos.sgf.models;
+
+/**
+ * Oriented box centered on the entity's origin, rotated with the entity.
+ *
+ * @author Autlos
+ *
+ */
+public class BoxShape extends PolygonShape {
+
+	/**
+	 * @param width
+	 * @param height
+	 */
+	public BoxShape(float width, float height) {
+		super(new float[] { -width / 2, -height / 2, width / 2, -height / 2, width / 2, height / 2, -width / 2, height / 2 });
+		// Opposite sides are parallel: only 2 axes have to be tested.
+		axisCount = 2;
+	}
+
+	/**
+	 * Sets the size of the box.
+	 *
+	 * @param width
+	 * @param height
+	 */
+	public void setSize(float width, float height) {
+		localVertices[0] = -width / 2;
+		localVertices[1] = -height / 2;
+		localVertices[2] = width / 2;
+		localVertices[3] = -height / 2;
+		localVertices[4] = width / 2;
+		localVertices[5] = height / 2;
+		localVertices[6] = -width / 2;
+		localVertices[7] = height / 2;
+		invalidate();
+	}
+}
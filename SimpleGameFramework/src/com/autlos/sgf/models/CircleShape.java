@@ -0,0 +1,39 @@
+package com.autlos.sgf.models;
+
+/**
+ * Circle centered on the entity's origin.
+ *
+ * @author Autlos
+ *
+ */
+public class CircleShape extends CollisionShape {
+	protected float radius;
+
+	/**
+	 * @param radius
+	 */
+	public CircleShape(float radius) {
+		this.radius = radius;
+	}
+
+	@Override
+	protected void transform(boolean rotated) {
+		aabb.set(x - radius, y - radius, radius * 2, radius * 2);
+	}
+
+	@Override
+	void project(float axisX, float axisY) {
+		float center = x * axisX + y * axisY;
+		min = center - radius;
+		max = center + radius;
+	}
+
+	public float getRadius() {
+		return radius;
+	}
+
+	public void setRadius(float radius) {
+		this.radius = radius;
+		invalidate();
+	}
+}
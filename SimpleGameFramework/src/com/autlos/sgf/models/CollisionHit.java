@@ -0,0 +1,40 @@
+package com.autlos.sgf.models;
+
+/**
+ * Result of a sweep or a segment cast. Reuse the same object every frame, it is reset by the methods that fill it.
+ *
+ * @author Autlos
+ *
+ */
+public class CollisionHit {
+	// The entity hit. null if nothing was hit.
+	public Entity entity;
+	// Time of impact, from 0 (start of the movement/segment) to 1 (end).
+	public float time;
+	// Position at the time of impact: the moving entity's position for sweeps, the point hit for segment casts.
+	public float x;
+	public float y;
+	// Normal of the side hit. 0,0 if it was already overlapping at the start.
+	public float normalX;
+	public float normalY;
+
+	public CollisionHit() {
+		reset();
+	}
+
+	public void reset() {
+		entity = null;
+		time = Float.POSITIVE_INFINITY;
+		x = 0f;
+		y = 0f;
+		normalX = 0f;
+		normalY = 0f;
+	}
+
+	/**
+	 * @return true if something was hit.
+	 */
+	public boolean hasHit() {
+		return entity != null;
+	}
+}
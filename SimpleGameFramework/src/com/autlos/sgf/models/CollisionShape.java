@@ -0,0 +1,272 @@
+package com.autlos.sgf.models;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+
+/**
+ * Narrow-phase shape for an {@link Entity}, centered on the entity's origin and rotated with it. The shape caches it's transform: the
+ * sin/cos are only recalculated when the rotation changes, and the vertices only when the position or the rotation change.
+ *
+ * @author Autlos
+ *
+ */
+public abstract class CollisionShape {
+	// Center and rotation in world coordinates.
+	protected float x;
+	protected float y;
+	protected float rotation;
+	protected float cos = 1f;
+	protected float sin = 0f;
+	private boolean transformed;
+
+	// Axis aligned rectangle containing the transformed shape, for the early-out.
+	protected final Rectangle aabb = new Rectangle();
+
+	// Result of the last project() call.
+	float min;
+	float max;
+
+	/**
+	 * Moves and rotates the shape. It does nothing if nothing has changed.
+	 *
+	 * @param x
+	 *           of the center.
+	 * @param y
+	 *           of the center.
+	 * @param rotation
+	 *           in degrees.
+	 */
+	public void setTransform(float x, float y, float rotation) {
+		if (transformed && x == this.x && y == this.y && rotation == this.rotation) {
+			return;
+		}
+		boolean rotated = !transformed || rotation != this.rotation;
+		if (rotated) {
+			this.rotation = rotation;
+			cos = MathUtils.cosDeg(rotation);
+			sin = MathUtils.sinDeg(rotation);
+		}
+		this.x = x;
+		this.y = y;
+		transformed = true;
+		transform(rotated);
+	}
+
+	/**
+	 * Forces the transform to be recalculated in the next {@code setTransform}. Call it after changing the shape.
+	 */
+	public void invalidate() {
+		transformed = false;
+	}
+
+	/**
+	 * Recalculates the shape in world coordinates and it's aabb.
+	 *
+	 * @param rotated
+	 *           false if only the position has changed.
+	 */
+	protected abstract void transform(boolean rotated);
+
+	/**
+	 * Projects the shape on the axis, setting min and max.
+	 *
+	 * @param axisX
+	 * @param axisY
+	 */
+	abstract void project(float axisX, float axisY);
+
+	public float getX() {
+		return x;
+	}
+
+	public float getY() {
+		return y;
+	}
+
+	/**
+	 * @return the axis aligned rectangle containing the shape.
+	 */
+	public Rectangle getAABB() {
+		return aabb;
+	}
+
+	/**
+	 * Tests two transformed shapes.
+	 *
+	 * @param a
+	 * @param b
+	 * @param contact
+	 *           if not null, filled with the normal (from a to b) and penetration.
+	 * @return true if they overlap.
+	 */
+	public static boolean collide(CollisionShape a, CollisionShape b, Contact contact) {
+		if (!a.aabb.overlaps(b.aabb)) {
+			return false;
+		}
+		if (contact == null) {
+			contact = TEMP.get();
+		}
+		contact.reset();
+
+		if (a instanceof CircleShape) {
+			if (b instanceof CircleShape) {
+				return circleCircle((CircleShape) a, (CircleShape) b, contact);
+			}
+			if (!circlePolygon((CircleShape) a, (PolygonShape) b, contact)) {
+				return false;
+			}
+			// The normal was calculated from the polygon to the circle.
+			contact.normalX = -contact.normalX;
+			contact.normalY = -contact.normalY;
+			return true;
+		}
+		if (b instanceof CircleShape) {
+			return circlePolygon((CircleShape) b, (PolygonShape) a, contact);
+		}
+		return polygonPolygon((PolygonShape) a, (PolygonShape) b, contact);
+	}
+
+	/**
+	 * Tests two axis aligned rectangles, as {@code Rectangle.overlaps} does, and fills the contact.
+	 *
+	 * @param a
+	 * @param b
+	 * @param contact
+	 *           if not null, filled with the normal (from a to b) and penetration.
+	 * @return true if they overlap.
+	 */
+	public static boolean collide(Rectangle a, Rectangle b, Contact contact) {
+		if (!a.overlaps(b)) {
+			return false;
+		}
+		if (contact != null) {
+			float right = a.x + a.width - b.x;
+			float left = b.x + b.width - a.x;
+			float up = a.y + a.height - b.y;
+			float down = b.y + b.height - a.y;
+			float penetrationX = Math.min(right, left);
+			float penetrationY = Math.min(up, down);
+			if (penetrationX < penetrationY) {
+				contact.normalX = right < left ? 1f : -1f;
+				contact.normalY = 0f;
+				contact.penetration = penetrationX;
+			} else {
+				contact.normalX = 0f;
+				contact.normalY = up < down ? 1f : -1f;
+				contact.penetration = penetrationY;
+			}
+		}
+		return true;
+	}
+
+	private static boolean circleCircle(CircleShape a, CircleShape b, Contact contact) {
+		float dx = b.x - a.x;
+		float dy = b.y - a.y;
+		float radius = a.radius + b.radius;
+		float dist2 = dx * dx + dy * dy;
+		if (dist2 >= radius * radius) {
+			return false;
+		}
+		float dist = (float) Math.sqrt(dist2);
+		if (dist > 0f) {
+			contact.normalX = dx / dist;
+			contact.normalY = dy / dist;
+		} else {
+			contact.normalX = 1f;
+			contact.normalY = 0f;
+		}
+		contact.penetration = radius - dist;
+		return true;
+	}
+
+	/**
+	 * The normal goes from the polygon to the circle.
+	 */
+	private static boolean circlePolygon(CircleShape circle, PolygonShape polygon, Contact contact) {
+		float[] normals = polygon.normals;
+		for (int i = 0; i < polygon.axisCount * 2; i += 2) {
+			if (!testAxis(polygon, circle, normals[i], normals[i + 1], contact)) {
+				return false;
+			}
+		}
+
+		// Axis from the closest vertex to the center of the circle.
+		float[] vertices = polygon.vertices;
+		float closest = Float.MAX_VALUE;
+		float axisX = 0f;
+		float axisY = 0f;
+		for (int i = 0; i < vertices.length; i += 2) {
+			float dx = circle.x - vertices[i];
+			float dy = circle.y - vertices[i + 1];
+			float dist2 = dx * dx + dy * dy;
+			if (dist2 < closest) {
+				closest = dist2;
+				axisX = dx;
+				axisY = dy;
+			}
+		}
+		if (closest > 0f) {
+			float length = (float) Math.sqrt(closest);
+			if (!testAxis(polygon, circle, axisX / length, axisY / length, contact)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Separating axis theorem: if there is an axis where the projections don't overlap, the polygons don't overlap.
+	 */
+	private static boolean polygonPolygon(PolygonShape a, PolygonShape b, Contact contact) {
+		float[] normals = a.normals;
+		for (int i = 0; i < a.axisCount * 2; i += 2) {
+			if (!testAxis(a, b, normals[i], normals[i + 1], contact)) {
+				return false;
+			}
+		}
+		normals = b.normals;
+		for (int i = 0; i < b.axisCount * 2; i += 2) {
+			if (!testAxis(a, b, normals[i], normals[i + 1], contact)) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Projects both shapes on the axis. If they overlap, keeps the axis with the smallest penetration in the contact, pointing from a to b.
+	 */
+	private static boolean testAxis(CollisionShape a, CollisionShape b, float axisX, float axisY, Contact contact) {
+		a.project(axisX, axisY);
+		float minA = a.min;
+		float maxA = a.max;
+		b.project(axisX, axisY);
+
+		// Distance to move b forwards or backwards along the axis.
+		float forwards = maxA - b.min;
+		float backwards = b.max - minA;
+		if (forwards <= 0f || backwards <= 0f) {
+			return false;
+		}
+		float penetration = Math.min(forwards, backwards);
+		if (penetration < contact.penetration) {
+			contact.penetration = penetration;
+			if (forwards < backwards) {
+				contact.normalX = axisX;
+				contact.normalY = axisY;
+			} else {
+				contact.normalX = -axisX;
+				contact.normalY = -axisY;
+			}
+		}
+		return true;
+	}
+
+	// Contact used when the caller doesn't need one. One per thread, so shapes can be tested in parallel.
+	private static final ThreadLocal<Contact> TEMP = new ThreadLocal<Contact>() {
+		@Override
+		protected Contact initialValue() {
+			return new Contact();
+		}
+	};
+}
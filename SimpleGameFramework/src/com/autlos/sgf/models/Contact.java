@@ -0,0 +1,21 @@
+package com.autlos.sgf.models;
+
+/**
+ * Result of a narrow-phase collision test. Reuse the same object, it is filled by the methods that test.
+ *
+ * @author Autlos
+ *
+ */
+public class Contact {
+	// Unit normal pointing from the first shape to the second one.
+	public float normalX;
+	public float normalY;
+	// Distance the second shape has to move along the normal to stop overlapping.
+	public float penetration;
+
+	public void reset() {
+		normalX = 0f;
+		normalY = 0f;
+		penetration = Float.MAX_VALUE;
+	}
+}
@@ -1,5 +1,8 @@
 package com.autlos.sgf.models;
 
+import com.autlos.sgf.RenderQueue;
+import com.autlos.sgf.WorldCamera;
+import com.badlogic.gdx.graphics.Color;
 import com.badlogic.gdx.graphics.g2d.Animation;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
@@ -20,15 +23,29 @@ public abstract class Entity {
 	protected float width;
 	protected float height;
 	protected Vector2 origin;
-	protected Vector2 originCoordinates;
+	protected final Vector2 originCoordinates = new Vector2();
 	protected Vector2 position;
 	protected float rotation;
 	protected Rectangle bounds;
 
+	// Position and rotation at the previous tick, to draw interpolated and for continuous collisions:
+	protected float previousX;
+	protected float previousY;
+	protected float previousRotation;
+	// Updates since the previous state was saved. Only entities saved in the last tick are drawn interpolated.
+	private int snapshotAge = 2;
+
 	// ScaleX and ScaleY for the entity:
 	protected float scaleX;
 	protected float scaleY;
 
+	// Scale applied when drawing, around the origin. It doesn't change the size or the bounds (i.e a button popping when pressed):
+	protected float drawScaleX = 1f;
+	protected float drawScaleY = 1f;
+
+	// Tint the currentFrame is drawn with. White draws it as it is.
+	protected final Color color = new Color(1f, 1f, 1f, 1f);
+
 	// To create a padding in the bounding rectangle:
 	protected float minBoundsX;
 	protected float minBoundsY;
@@ -40,6 +57,17 @@ public abstract class Entity {
 	protected Animation animation;
 	protected float stateTime = 0f;
 
+	// Narrow-phase shape (optional). Without it, the entity collides as it's bounds.
+	protected CollisionShape shape;
+	private BoxShape boundsShape;
+
+	// Used by the SpatialHash the entity has been added to (if any):
+	SpatialHash spatialHash;
+	int spatialIndex = -1;
+	int cellMinX, cellMinY, cellMaxX, cellMaxY;
+	int queryMark;
+	boolean spatialDirty;
+
 	/************ CONSTRUCTORS ************/
 
 	/**
@@ -149,8 +177,7 @@ public abstract class Entity {
 	      float scaleX, float scaleY, float frameDuration, int playMode) {
 
 		createFrames(textureRegion, FRAME_ROWS, FRAME_COLS);
-		this.animation = new Animation(frameDuration, frames);
-		animation.setPlayMode(playMode);
+		this.animation = createAnimation(frames, frameDuration, playMode);
 		setPosition(position);
 		this.rotation = rotation;
 
@@ -161,24 +188,28 @@ public abstract class Entity {
 	}
 
 	/**
-	 * Creates the frames array. This method will be called if the constructor for multiple frame entity or animation is used.
+	 * Sets the frames array. This method will be called if the constructor for multiple frame entity or animation is used. The frames are
+	 * shared with every entity of the same sheet, rows and columns (see {@link FrameCache}).
 	 * 
 	 * @param textureRegion
 	 * @param FRAME_ROWS
 	 * @param FRAME_COLS
 	 */
 	protected void createFrames(TextureRegion textureRegion, int FRAME_ROWS, int FRAME_COLS) {
-		int frameWdith = textureRegion.getRegionWidth() / FRAME_COLS;
-		frames = new TextureRegion[FRAME_ROWS * FRAME_COLS];
-		int cont = 0;
-
-		for (int j = 0; j < FRAME_ROWS; j++) {
-			for (int i = 0; i < FRAME_COLS; i++) {
-				frames[cont] = new TextureRegion(textureRegion, i * frameWdith, j * textureRegion.getRegionHeight()
-				      / FRAME_ROWS, frameWdith, textureRegion.getRegionHeight() / FRAME_ROWS);
-				cont++;
-			}
-		}
+		frames = FrameCache.getFrames(textureRegion, FRAME_ROWS, FRAME_COLS);
+	}
+
+	/**
+	 * Returns the animation for the constructor of animated entities, made with the frames set by {@code createFrames}. It is shared with
+	 * every entity of the same frames, frameDuration and playMode (see {@link FrameCache}).
+	 * 
+	 * @param frames
+	 * @param frameDuration
+	 * @param playMode
+	 * @return
+	 */
+	protected Animation createAnimation(TextureRegion[] frames, float frameDuration, int playMode) {
+		return FrameCache.getAnimation(frames, frameDuration, playMode);
 	}
 
 	/**
@@ -245,6 +276,9 @@ public abstract class Entity {
 	 * @param delta
 	 */
 	public void update(float delta) {
+		if (snapshotAge < 2) {
+			snapshotAge++;
+		}
 		// If it has animation, it updates the stateTime and changes the current frame.
 		if (animation != null) {
 			stateTime += delta;
@@ -258,22 +292,128 @@ public abstract class Entity {
 	 * @param batch
 	 */
 	public void draw(SpriteBatch batch) {
-		batch.draw(currentFrame, position.x, position.y, origin.x, origin.y, width, height, 1.0f, 1.0f, rotation);
+		drawFrame(batch, position.x, position.y, rotation);
+	}
+
+	/**
+	 * Draws the currentFrame only if it is visible by the camera.
+	 * 
+	 * @param batch
+	 * @param camera
+	 */
+	public void draw(SpriteBatch batch, WorldCamera camera) {
+		if (camera.isVisible(this)) {
+			draw(batch);
+		}
+	}
+
+	/**
+	 * Adds the currentFrame to the queue, to be drawn sorted by layer and texture.
+	 * 
+	 * @param queue
+	 * @param layer
+	 */
+	public void draw(RenderQueue queue, int layer) {
+		if (isTinted()) {
+			queue.setColor(color);
+			queue.draw(layer, currentFrame, position.x, position.y, origin.x, origin.y, width, height, drawScaleX, drawScaleY,
+			      rotation);
+			queue.setColor(Color.WHITE);
+		} else {
+			queue.draw(layer, currentFrame, position.x, position.y, origin.x, origin.y, width, height, drawScaleX, drawScaleY,
+			      rotation);
+		}
+	}
+
+	/**
+	 * Draws the currentFrame between the previous state and the current one. Use it with the alpha of a {@link com.autlos.sgf.FixedTimestep}.
+	 * Only entities whose previous state was saved in the last tick (before their last {@code update(delta)}) are interpolated; the rest,
+	 * i.e entities moved by a Tween or in update without {@code savePreviousState()}, are drawn where they are.
+	 * 
+	 * @param batch
+	 * @param alpha
+	 *           0 draws the previous state, 1 the current one.
+	 */
+	public void draw(SpriteBatch batch, float alpha) {
+		if (snapshotAge > 1) {
+			drawFrame(batch, position.x, position.y, rotation);
+			return;
+		}
+		float x = previousX + (position.x - previousX) * alpha;
+		float y = previousY + (position.y - previousY) * alpha;
+		float rotation = previousRotation + (this.rotation - previousRotation) * alpha;
+		drawFrame(batch, x, y, rotation);
+	}
+
+	/**
+	 * Draws the currentFrame with the tint and draw scale. The color of the batch is only changed (and restored) if the entity is tinted.
+	 */
+	private void drawFrame(SpriteBatch batch, float x, float y, float rotation) {
+		if (isTinted()) {
+			float batchColor = batch.getColor().toFloatBits();
+			batch.setColor(color);
+			batch.draw(currentFrame, x, y, origin.x, origin.y, width, height, drawScaleX, drawScaleY, rotation);
+			batch.setColor(batchColor);
+		} else {
+			batch.draw(currentFrame, x, y, origin.x, origin.y, width, height, drawScaleX, drawScaleY, rotation);
+		}
+	}
+
+	private boolean isTinted() {
+		return color.r != 1f || color.g != 1f || color.b != 1f || color.a != 1f;
+	}
+
+	/**
+	 * Saves the current position and rotation as the previous state. Call it before each tick to draw interpolated.
+	 */
+	public void savePreviousState() {
+		snapshotAge = 0;
+		previousX = position.x;
+		previousY = position.y;
+		previousRotation = rotation;
 	}
 	
 	public void setAnimation(Animation animation){
 			this.animation = animation;		
 	}
 
+	public Animation getAnimation() {
+		return animation;
+	}
+
+	public float getStateTime() {
+		return stateTime;
+	}
+
+	/**
+	 * Sets the stateTime of the animation, and the current frame for it.
+	 * 
+	 * @param stateTime
+	 */
+	public void setStateTime(float stateTime) {
+		this.stateTime = stateTime;
+		if (animation != null) {
+			currentFrame = animation.getKeyFrame(stateTime);
+		}
+	}
+
+	/**
+	 * @return the frame is going to be drawn.
+	 */
+	public TextureRegion getCurrentFrame() {
+		return currentFrame;
+	}
+
 	/**
-	 * Return true if the entity is overlaping one of the elements of the Array.
+	 * Return true if the entity is overlaping one of the elements of the Array. For many entities use a {@link SpatialHash} instead.
 	 * 
 	 * @param entities
 	 * @return
 	 */
 	public boolean overlaps(Array<Entity> entities) {
-		for (Entity e : entities) {
-			if (overlaps(e)) {
+		// Indexed, the iterator of the Array can't be nested and may allocate.
+		for (int i = 0; i < entities.size; i++) {
+			if (overlaps(entities.get(i))) {
 				return true;
 			}
 		}
@@ -290,6 +430,66 @@ public abstract class Entity {
 		return this.bounds.overlaps(entity.bounds);
 	}
 
+	/**
+	 * Tests the entity against another one: first their bounding rectangles (the shape's rectangle for entities with a
+	 * {@link CollisionShape}), and only if they overlap, their shapes.
+	 * 
+	 * @param entity
+	 * @param contact
+	 *           if not null, filled with the normal (from this entity to the other one) and the penetration. Can be null.
+	 * @return true if they are colliding.
+	 */
+	public boolean collides(Entity entity, Contact contact) {
+		if (shape == null && entity.shape == null) {
+			return CollisionShape.collide(bounds, entity.bounds, contact);
+		}
+		return CollisionShape.collide(getCollisionShape(), entity.getCollisionShape(), contact);
+	}
+
+	/**
+	 * @return the shape, transformed to the current position and rotation. If the entity doesn't have a shape, a box with it's bounds.
+	 */
+	protected CollisionShape getCollisionShape() {
+		if (shape != null) {
+			updateShape();
+			return shape;
+		}
+		if (boundsShape == null) {
+			boundsShape = new BoxShape(bounds.width, bounds.height);
+		} else if (boundsShape.aabb.width != bounds.width || boundsShape.aabb.height != bounds.height) {
+			boundsShape.setSize(bounds.width, bounds.height);
+		}
+		boundsShape.setTransform(bounds.x + bounds.width / 2, bounds.y + bounds.height / 2, 0f);
+		return boundsShape;
+	}
+
+	/**
+	 * Moves the shape to the entity's origin and rotation. It only recalculates the shape if the position or rotation have changed.
+	 */
+	public void updateShape() {
+		if (shape != null) {
+			shape.setTransform(position.x + origin.x, position.y + origin.y, rotation);
+		}
+	}
+
+	/**
+	 * Sets the narrow-phase shape, i.e a {@link CircleShape} for an asteroid or a {@link BoxShape} for a rotating ship. null to collide
+	 * as the bounds.
+	 * 
+	 * @param shape
+	 */
+	public void setShape(CollisionShape shape) {
+		this.shape = shape;
+		if (shape != null) {
+			shape.invalidate();
+			updateShape();
+		}
+	}
+
+	public CollisionShape getShape() {
+		return shape;
+	}
+
 	/**
 	 * Draws the bound's shape. {@code shapeRenderer.begin()} and color have to be set before calling this method.
 	 * 
@@ -299,6 +499,64 @@ public abstract class Entity {
 		sr.rect(bounds.x, bounds.y, bounds.width, bounds.height);
 	}
 
+	/**
+	 * @return the rotation in degrees.
+	 */
+	public float getRotation() {
+		return rotation;
+	}
+
+	/**
+	 * 
+	 * @param rotation in degrees.
+	 */
+	public void setRotation(float rotation) {
+		this.rotation = rotation;
+	}
+
+	/**
+	 * Sets the scale applied when drawing, around the origin. It doesn't change the width, height or bounds.
+	 * 
+	 * @param drawScaleX
+	 * @param drawScaleY
+	 */
+	public void setDrawScale(float drawScaleX, float drawScaleY) {
+		this.drawScaleX = drawScaleX;
+		this.drawScaleY = drawScaleY;
+	}
+
+	public float getDrawScaleX() {
+		return drawScaleX;
+	}
+
+	public float getDrawScaleY() {
+		return drawScaleY;
+	}
+
+	/**
+	 * @return the tint the entity is drawn with. White by default.
+	 */
+	public Color getColor() {
+		return color;
+	}
+
+	public void setColor(Color color) {
+		this.color.set(color);
+	}
+
+	public void setColor(float r, float g, float b, float a) {
+		color.set(r, g, b, a);
+	}
+
+	/**
+	 * Sets the alpha of the tint, keeping it's RGB.
+	 * 
+	 * @param alpha
+	 */
+	public void setAlpha(float alpha) {
+		color.a = alpha;
+	}
+
 	/**
 	 * @return the entity's position
 	 */
@@ -325,6 +583,8 @@ public abstract class Entity {
 	public void setPosition(float x, float y) {
 		if (this.position == null) {
 			this.position = new Vector2(x, y);
+			previousX = x;
+			previousY = y;
 //			this.origin = new Vector2(width/2, height/2);
 		} else {
 			this.position.set(x, y);
@@ -338,12 +598,7 @@ public abstract class Entity {
 	 * @return {@code Vector2}
 	 */
 	public Vector2 getOriginCoordinates() {
-		if(originCoordinates == null){
-		  originCoordinates = new Vector2(position.x + origin.x, position.y + origin.y);
-		}else{
-			originCoordinates.set(position.x + origin.x, position.y + origin.y);
-		}
-		return originCoordinates;
+		return originCoordinates.set(position.x + origin.x, position.y + origin.y);
 	}
 
 	/**
@@ -368,6 +623,26 @@ public abstract class Entity {
 	 */
 	public void setBounds(Rectangle bounds) {
 		this.bounds = bounds;
+		updateSpatialHash();
+	}
+
+	/**
+	 * Sets the bounds to the current position and size, keeping the padding set with {@code createBounds}. Call it after moving or resizing
+	 * an entity which is not a MoveableEntity.
+	 */
+	public void updateBounds() {
+		bounds.set(position.x + minBoundsX, position.y + minBoundsY, width - 2 * minBoundsX, height - 2 * minBoundsY);
+		updateSpatialHash();
+	}
+
+	/**
+	 * Moves the entity to it's new cells in the {@link SpatialHash} it has been added to, if any. Call it after changing the bounds of an
+	 * entity which is not a MoveableEntity.
+	 */
+	public void updateSpatialHash() {
+		if (spatialHash != null) {
+			spatialHash.update(this);
+		}
 	}
 
 	/**
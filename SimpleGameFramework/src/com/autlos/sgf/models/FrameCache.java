@@ -0,0 +1,250 @@
+package com.autlos.sgf.models;
+
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.Animation;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Shares the frames sliced from a sprite sheet, and the Animations made with them, between every entity created with the same sheet. 500
+ * enemies with the same sheet, rows and columns use one frame array (and one Animation if they have the same frameDuration and playMode),
+ * and each of them only keeps it's own stateTime.
+ * <p>
+ * Sheets are identified by the texture and the area of the region, not by the TextureRegion object, so two regions of the same area of an
+ * atlas share their frames too. The frames and Animations returned are shared: they must not be modified (i.e don't call
+ * {@code setPlayMode} on a shared Animation, get one with the play mode needed instead).
+ * <p>
+ * Call {@code remove(texture)} before disposing a texture, or {@code clear()} when changing levels, so the frames can be collected.
+ * <p>
+ * Unlike the rest of the game state, the cache is static and not part of the {@link com.autlos.sgf.GameContext}: entities are created
+ * without a context and ask it for their frames. Like the {@link com.autlos.sgf.profiler.Tracer}, it's shared by every game in the JVM,
+ * which is safe because the frames are immutable and the methods are synchronized. The hits and misses are counted for all of them, and
+ * {@code clear()} or {@code setEnabled} affect all of them.
+ *
+ * @author Autlos
+ *
+ */
+public class FrameCache {
+
+	/**
+	 * For frames, the texture, area of the region, rows and columns. For animations, the frames, frameDuration and playMode.
+	 */
+	private static class Key {
+		Texture texture;
+		int x, y, width, height;
+		int rows, cols;
+		TextureRegion[] frames;
+		float frameDuration;
+		int playMode;
+
+		Key set(TextureRegion region, int rows, int cols) {
+			texture = region.getTexture();
+			x = region.getRegionX();
+			y = region.getRegionY();
+			width = region.getRegionWidth();
+			height = region.getRegionHeight();
+			this.rows = rows;
+			this.cols = cols;
+			frames = null;
+			frameDuration = 0f;
+			playMode = 0;
+			return this;
+		}
+
+		Key set(TextureRegion[] frames, float frameDuration, int playMode) {
+			texture = frames.length > 0 ? frames[0].getTexture() : null;
+			x = y = width = height = rows = cols = 0;
+			this.frames = frames;
+			this.frameDuration = frameDuration;
+			this.playMode = playMode;
+			return this;
+		}
+
+		Key copy() {
+			Key key = new Key();
+			key.texture = texture;
+			key.x = x;
+			key.y = y;
+			key.width = width;
+			key.height = height;
+			key.rows = rows;
+			key.cols = cols;
+			key.frames = frames;
+			key.frameDuration = frameDuration;
+			key.playMode = playMode;
+			return key;
+		}
+
+		@Override
+		public int hashCode() {
+			int hash = texture == null ? 0 : texture.hashCode();
+			// The frames are compared by identity: they come from the cache.
+			hash = 31 * hash + System.identityHashCode(frames);
+			hash = 31 * hash + x;
+			hash = 31 * hash + y;
+			hash = 31 * hash + width;
+			hash = 31 * hash + height;
+			hash = 31 * hash + rows;
+			hash = 31 * hash + cols;
+			hash = 31 * hash + Float.floatToIntBits(frameDuration);
+			return 31 * hash + playMode;
+		}
+
+		@Override
+		public boolean equals(Object object) {
+			if (!(object instanceof Key)) {
+				return false;
+			}
+			Key key = (Key) object;
+			return texture == key.texture && x == key.x && y == key.y && width == key.width && height == key.height
+			      && rows == key.rows && cols == key.cols && frames == key.frames && frameDuration == key.frameDuration
+			      && playMode == key.playMode;
+		}
+	}
+
+	private static final ObjectMap<Key, TextureRegion[]> frames = new ObjectMap<Key, TextureRegion[]>();
+	private static final ObjectMap<Key, Animation> animations = new ObjectMap<Key, Animation>();
+	// Reused to look up, so a hit doesn't allocate.
+	private static final Key lookup = new Key();
+
+	private static boolean enabled = true;
+	private static int hits;
+	private static int misses;
+
+	/**
+	 * @param region
+	 * @param FRAME_ROWS
+	 * @param FRAME_COLS
+	 * @return the frames of the sheet, shared. Don't modify them.
+	 */
+	public static synchronized TextureRegion[] getFrames(TextureRegion region, int FRAME_ROWS, int FRAME_COLS) {
+		if (!enabled) {
+			return createFrames(region, FRAME_ROWS, FRAME_COLS);
+		}
+		TextureRegion[] result = frames.get(lookup.set(region, FRAME_ROWS, FRAME_COLS));
+		if (result == null) {
+			misses++;
+			result = createFrames(region, FRAME_ROWS, FRAME_COLS);
+			frames.put(lookup.copy(), result);
+		} else {
+			hits++;
+		}
+		return result;
+	}
+
+	/**
+	 * @param frames
+	 *           i.e returned by {@code getFrames}. Animations of other frame arrays are not shared, even if the frames are the same.
+	 * @param frameDuration
+	 * @param playMode
+	 * @return an Animation with the frames, shared. Don't modify it.
+	 */
+	public static synchronized Animation getAnimation(TextureRegion[] frames, float frameDuration, int playMode) {
+		if (!enabled) {
+			Animation animation = new Animation(frameDuration, frames);
+			animation.setPlayMode(playMode);
+			return animation;
+		}
+		Animation result = animations.get(lookup.set(frames, frameDuration, playMode));
+		if (result == null) {
+			misses++;
+			result = new Animation(frameDuration, frames);
+			result.setPlayMode(playMode);
+			animations.put(lookup.copy(), result);
+		} else {
+			hits++;
+		}
+		return result;
+	}
+
+	/**
+	 * Slices the region in FRAME_ROWS * FRAME_COLS frames, without caching them.
+	 *
+	 * @param region
+	 * @param FRAME_ROWS
+	 * @param FRAME_COLS
+	 * @return the frames, row by row.
+	 */
+	public static TextureRegion[] createFrames(TextureRegion region, int FRAME_ROWS, int FRAME_COLS) {
+		int frameWidth = region.getRegionWidth() / FRAME_COLS;
+		TextureRegion[] result = new TextureRegion[FRAME_ROWS * FRAME_COLS];
+		int cont = 0;
+
+		for (int j = 0; j < FRAME_ROWS; j++) {
+			for (int i = 0; i < FRAME_COLS; i++) {
+				result[cont] = new TextureRegion(region, i * frameWidth, j * region.getRegionHeight() / FRAME_ROWS, frameWidth,
+				      region.getRegionHeight() / FRAME_ROWS);
+				cont++;
+			}
+		}
+		return result;
+	}
+
+	/**
+	 * Removes the frames and Animations of the texture. Call it before disposing the texture.
+	 *
+	 * @param texture
+	 */
+	public static synchronized void remove(Texture texture) {
+		Array<Key> keys = new Array<Key>();
+		for (Key key : frames.keys()) {
+			if (key.texture == texture) {
+				keys.add(key);
+			}
+		}
+		for (Key key : animations.keys()) {
+			if (key.texture == texture) {
+				keys.add(key);
+			}
+		}
+		for (int i = 0; i < keys.size; i++) {
+			frames.remove(keys.get(i));
+			animations.remove(keys.get(i));
+		}
+	}
+
+	/**
+	 * Removes every frame and Animation. Entities already created keep theirs.
+	 */
+	public static synchronized void clear() {
+		frames.clear();
+		animations.clear();
+		hits = 0;
+		misses = 0;
+	}
+
+	/**
+	 * If false, every call slices new frames and creates a new Animation, like before the cache existed. true by default.
+	 *
+	 * @param enabled
+	 */
+	public static synchronized void setEnabled(boolean enabled) {
+		FrameCache.enabled = enabled;
+	}
+
+	public static synchronized boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @return the times frames or an Animation were found in the cache.
+	 */
+	public static synchronized int getHits() {
+		return hits;
+	}
+
+	/**
+	 * @return the times frames or an Animation had to be created.
+	 */
+	public static synchronized int getMisses() {
+		return misses;
+	}
+
+	/**
+	 * @return the frame arrays and Animations cached.
+	 */
+	public static synchronized int size() {
+		return frames.size + animations.size;
+	}
+}
@@ -1,6 +1,6 @@
 package com.autlos.sgf.models;
 
-import com.autlos.sgf.GameAbstract;
+import com.autlos.sgf.GameContext;
 import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.Vector2;
 
@@ -129,20 +129,29 @@ public abstract class MoveableEntity extends Entity {
 	}
 
 	/**
-	 * Checks if the entity has left one side to appear from the other. Use it in the update method if you want PacMan/Asteroids effect.
+	 * Checks if the entity has left one side of the screen to appear from the other. Use it in the update method if you want
+	 * PacMan/Asteroids effect.
+	 * 
+	 * @param context
+	 *           of the world, for the size of the screen.
 	 */
-	protected void checkReversePositions() {
+	protected void checkReversePositions(GameContext context) {
+		float screenWidth = context.getScreenWidth();
+		float screenHeight = context.getScreenHeight();
+		float x = position.x;
+		float y = position.y;
 		if (position.x + width < 0) {
-			position.x = GameAbstract.screenWidth - origin.x;
-		} else if (position.x > GameAbstract.screenWidth) {
+			position.x = screenWidth - origin.x;
+		} else if (position.x > screenWidth) {
 			position.x = -origin.x;
 		}
 
-		if (position.y + height / 2 > GameAbstract.screenHeight) {
+		if (position.y + height / 2 > screenHeight) {
 			position.y = -origin.y;
 		} else if (position.y + height / 2 < 0) {
-			position.y = GameAbstract.screenHeight - origin.y;
+			position.y = screenHeight - origin.y;
 		}
+		snapPreviousState(x, y);
 	}
 
 	/**
@@ -150,10 +159,12 @@ public abstract class MoveableEntity extends Entity {
 	 * PacMan/Asteroids effect.
 	 */
 	public void checkReversePositions(float minX, float minY, float maxX, float maxY) {
+		float x = position.x;
+		float y = position.y;
 		if (position.x + origin.x <= minX) {
-			position.x = GameAbstract.screenWidth - origin.x;
+			position.x = maxX - origin.x;
 		} else if (position.x + origin.x > maxX) {
-			position.x = -origin.x;
+			position.x = minX - origin.x;
 		}
 
 		if (position.y + origin.y >= maxY) {
@@ -161,6 +172,19 @@ public abstract class MoveableEntity extends Entity {
 		} else if (position.y + origin.y < minY) {
 			position.y = maxY - origin.y;
 		}
+		snapPreviousState(x, y);
+	}
+
+	/**
+	 * If the entity has jumped to the other side, the previous state is moved with it so it is not drawn interpolated across the screen.
+	 */
+	private void snapPreviousState(float x, float y) {
+		if (position.x != x) {
+			previousX += position.x - x;
+		}
+		if (position.y != y) {
+			previousY += position.y - y;
+		}
 	}
 
 	/**
@@ -191,12 +215,31 @@ public abstract class MoveableEntity extends Entity {
 		this.ROTATION_SPEED = ROTATION_SPEED;
 	}
 
+	/**
+	 * @return the degrees per second the entity is rotating, positive to the LEFT and negative to the RIGHT. 0 if it is not rotating.
+	 */
+	public float getRotationSpeed() {
+		if (!rotating) {
+			return 0f;
+		}
+		return rotationDirection == RotationDirection.LEFT ? ROTATION_SPEED : -ROTATION_SPEED;
+	}
+
 	/**
 	 * Updates bounds. In case it is an animation, updates the state. And in case it is rotating, updates the rotation.
 	 */
 	public void update(float delta) {
 		super.update(delta);
 		this.update();
+		updateRotation(delta);
+	}
+
+	/**
+	 * Updates the rotation if the MoveableEntity is rotating.
+	 * 
+	 * @param delta
+	 */
+	protected void updateRotation(float delta) {
 		if (rotating) {
 			rotation = (rotationDirection == RotationDirection.LEFT) ? rotation + ROTATION_SPEED * delta : rotation
 			      - ROTATION_SPEED * delta;
@@ -204,11 +247,14 @@ public abstract class MoveableEntity extends Entity {
 	}
 
 	/**
-	 * Updates the bounds position for the MoveableEntity.
+	 * Updates the bounds position for the MoveableEntity, and it's cells in the SpatialHash if it has been added to one.
 	 */
 	public void update() {
 		bounds.x = position.x + minBoundsX;
 		bounds.y = position.y + minBoundsY;
+		if (spatialHash != null) {
+			spatialHash.update(this);
+		}
 	}
 	
 	public void setSpeed(float SPEED){
@@ -219,22 +265,6 @@ public abstract class MoveableEntity extends Entity {
 		return SPEED;
 	}
 
-	/**
-	 * 
-	 * @return the MoveableEntity's rotation.
-	 */
-	public float getRotation() {
-		return rotation;
-	}
-
-	/**
-	 * 
-	 * @param rotation in degrees.
-	 */
-	public void setRotation(float rotation) {
-		this.rotation = rotation;
-	}
-
 	/**
 	 * 
 	 * @return if the MoveableEntity is moving or not.
@@ -0,0 +1,119 @@
+package com.autlos.sgf.models;
+
+/**
+ * Convex polygon, with vertices relative to the entity's origin. The polygon has to be convex, clockwise or counterclockwise.
+ *
+ * @author Autlos
+ *
+ */
+public class PolygonShape extends CollisionShape {
+	// x,y pairs relative to the center, without rotation.
+	protected final float[] localVertices;
+	protected final float[] localNormals;
+
+	// Rotated, only recalculated when the rotation changes.
+	protected final float[] rotatedVertices;
+	protected final float[] normals;
+
+	// Rotated and moved to the position.
+	protected final float[] vertices;
+
+	// Normals to be tested with the separating axis theorem. A box only needs 2 of it's 4.
+	protected int axisCount;
+
+	/**
+	 * @param localVertices
+	 *           x,y pairs relative to the entity's origin. The array is copied.
+	 */
+	public PolygonShape(float[] localVertices) {
+		if (localVertices.length < 6 || localVertices.length % 2 != 0) {
+			throw new IllegalArgumentException("A polygon needs at least 3 x,y pairs: " + localVertices.length);
+		}
+		int length = localVertices.length;
+		this.localVertices = new float[length];
+		System.arraycopy(localVertices, 0, this.localVertices, 0, length);
+		localNormals = new float[length];
+		rotatedVertices = new float[length];
+		normals = new float[length];
+		vertices = new float[length];
+		axisCount = length / 2;
+		calculateNormals();
+	}
+
+	private void calculateNormals() {
+		int length = localVertices.length;
+		for (int i = 0; i < length; i += 2) {
+			int next = (i + 2) % length;
+			float edgeX = localVertices[next] - localVertices[i];
+			float edgeY = localVertices[next + 1] - localVertices[i + 1];
+			float edgeLength = (float) Math.sqrt(edgeX * edgeX + edgeY * edgeY);
+			localNormals[i] = edgeY / edgeLength;
+			localNormals[i + 1] = -edgeX / edgeLength;
+		}
+	}
+
+	@Override
+	protected void transform(boolean rotated) {
+		int length = localVertices.length;
+		if (rotated) {
+			for (int i = 0; i < length; i += 2) {
+				float vx = localVertices[i];
+				float vy = localVertices[i + 1];
+				rotatedVertices[i] = vx * cos - vy * sin;
+				rotatedVertices[i + 1] = vx * sin + vy * cos;
+				float nx = localNormals[i];
+				float ny = localNormals[i + 1];
+				normals[i] = nx * cos - ny * sin;
+				normals[i + 1] = nx * sin + ny * cos;
+			}
+		}
+
+		float minX = Float.MAX_VALUE;
+		float minY = Float.MAX_VALUE;
+		float maxX = -Float.MAX_VALUE;
+		float maxY = -Float.MAX_VALUE;
+		for (int i = 0; i < length; i += 2) {
+			float vx = rotatedVertices[i] + x;
+			float vy = rotatedVertices[i + 1] + y;
+			vertices[i] = vx;
+			vertices[i + 1] = vy;
+			if (vx < minX) {
+				minX = vx;
+			}
+			if (vx > maxX) {
+				maxX = vx;
+			}
+			if (vy < minY) {
+				minY = vy;
+			}
+			if (vy > maxY) {
+				maxY = vy;
+			}
+		}
+		aabb.set(minX, minY, maxX - minX, maxY - minY);
+	}
+
+	@Override
+	void project(float axisX, float axisY) {
+		float min = Float.MAX_VALUE;
+		float max = -Float.MAX_VALUE;
+		for (int i = 0; i < vertices.length; i += 2) {
+			float projection = vertices[i] * axisX + vertices[i + 1] * axisY;
+			if (projection < min) {
+				min = projection;
+			}
+			if (projection > max) {
+				max = projection;
+			}
+		}
+		this.min = min;
+		this.max = max;
+	}
+
+	/**
+	 * @return the transformed vertices, x,y pairs in world coordinates.
+	 */
+	public float[] getVertices() {
+		return vertices;
+	}
+}
@@ -0,0 +1,366 @@
+package com.autlos.sgf.models;
+
+import com.autlos.sgf.GameContext;
+import com.autlos.sgf.metrics.Counter;
+import com.autlos.sgf.metrics.Gauge;
+import com.autlos.sgf.metrics.HitRate;
+import com.autlos.sgf.metrics.MetricsRegistry;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Spawns, updates and recycles {@link BasicProjectile}s. Projectiles are obtained from a pool, and are freed back to it when they are
+ * finished, their lifeTime runs out or they leave the area (the screen of the context by default, or the window if there is no context).
+ * Without a context nor a window (the headless backend has a 0x0 one), there is no area.
+ * Position, velocity and lifeTime of the live projectiles are kept in primitive arrays, so the update is one loop and does not allocate
+ * anything once the pool is warm.
+ *
+ * @author Autlos
+ *
+ */
+public class ProjectileManager {
+	private final Pool<BasicProjectile> pool;
+	private final TextureRegion textureRegion;
+
+	// Live projectiles. Index i of the primitive arrays belongs to projectiles.get(i).
+	private final Array<BasicProjectile> projectiles;
+	private float[] x;
+	private float[] y;
+	private float[] velocityX;
+	private float[] velocityY;
+	private float[] time;
+	private float[] lifeTime;
+
+	// Area outside of which projectiles are reclaimed. If not set, the window is used, if there is one.
+	private Rectangle area;
+
+	private int spawned;
+	private int reclaimed;
+
+	// Exported metrics, shared by every manager of the registry. null if not exported.
+	private Counter spawnedMetric;
+	private Counter finishedMetric;
+	private Gauge liveMetric;
+	private HitRate poolMetric;
+
+	/**
+	 * Creates a ProjectileManager for projectiles with the textureRegion, reclaimed when they leave the window.
+	 *
+	 * @param textureRegion
+	 */
+	public ProjectileManager(TextureRegion textureRegion) {
+		this(textureRegion, 64, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a ProjectileManager for projectiles with the textureRegion, reclaimed when they leave the screen of the context.
+	 *
+	 * @param textureRegion
+	 * @param context
+	 */
+	public ProjectileManager(TextureRegion textureRegion, GameContext context) {
+		this(textureRegion, context, 64, Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Creates a ProjectileManager for projectiles with the textureRegion, reclaimed when they leave the screen of the context.
+	 *
+	 * @param textureRegion
+	 * @param context
+	 * @param initialCapacity
+	 *           projectiles expected to be alive at the same time.
+	 * @param max
+	 *           max number of free projectiles kept in the pool.
+	 */
+	public ProjectileManager(TextureRegion textureRegion, GameContext context, int initialCapacity, int max) {
+		this(textureRegion, initialCapacity, max);
+		area = context.getViewport();
+	}
+
+	/**
+	 * Creates a ProjectileManager for projectiles with the textureRegion, reclaimed when they leave the window.
+	 *
+	 * @param textureRegion
+	 * @param initialCapacity
+	 *           projectiles expected to be alive at the same time.
+	 * @param max
+	 *           max number of free projectiles kept in the pool.
+	 */
+	public ProjectileManager(TextureRegion textureRegion, int initialCapacity, int max) {
+		this.textureRegion = textureRegion;
+		pool = new Pool<BasicProjectile>(initialCapacity, max) {
+			@Override
+			protected BasicProjectile newObject() {
+				return newProjectile();
+			}
+		};
+		projectiles = new Array<BasicProjectile>(false, initialCapacity);
+		x = new float[initialCapacity];
+		y = new float[initialCapacity];
+		velocityX = new float[initialCapacity];
+		velocityY = new float[initialCapacity];
+		time = new float[initialCapacity];
+		lifeTime = new float[initialCapacity];
+	}
+
+	/**
+	 * Creates a new projectile for the pool. Override this method to use animated projectiles or a BasicProjectile subclass.
+	 *
+	 * @return
+	 */
+	protected BasicProjectile newProjectile() {
+		return new BasicProjectile(textureRegion, null, 0f, 0f);
+	}
+
+	/**
+	 * Fills the pool with projectiles, so the first shots don't have to create them.
+	 *
+	 * @param count
+	 */
+	public void preallocate(int count) {
+		Array<BasicProjectile> temp = new Array<BasicProjectile>(false, count);
+		for (int i = 0; i < count; i++) {
+			temp.add(pool.obtain());
+		}
+		pool.freeAll(temp);
+	}
+
+	/**
+	 * Spawns a projectile at x, y. Position will update based on it's rotation and SPEED.
+	 *
+	 * @param x
+	 * @param y
+	 * @param SPEED
+	 * @param rotation
+	 * @param lifeTime
+	 *           the projectile will be reclaimed after it's lifeTime. 0 for no lifeTime.
+	 * @return the projectile, in case something else needs to be set.
+	 */
+	public BasicProjectile spawn(float x, float y, float SPEED, float rotation, float lifeTime) {
+		if (poolMetric != null) {
+			poolMetric.record(pool.getFree() > 0);
+		}
+		BasicProjectile projectile = pool.obtain();
+		projectile.init(x, y, SPEED, rotation, lifeTime);
+
+		int index = projectiles.size;
+		ensureCapacity(index + 1);
+		projectiles.add(projectile);
+		this.x[index] = x;
+		this.y[index] = y;
+		this.time[index] = 0f;
+		this.lifeTime[index] = lifeTime;
+		updateVelocity(index, projectile);
+
+		spawned++;
+		if (spawnedMetric != null) {
+			spawnedMetric.inc();
+			liveMetric.add(1);
+		}
+		return projectile;
+	}
+
+	/**
+	 * Moves every live projectile, updates their bounds and animation, and reclaims the ones which are finished, out of time or out of the
+	 * area.
+	 *
+	 * @param delta
+	 */
+	public void update(float delta) {
+		float minX, minY, maxX, maxY;
+		if (area != null) {
+			minX = area.x;
+			minY = area.y;
+			maxX = area.x + area.width;
+			maxY = area.y + area.height;
+		} else if (Gdx.graphics != null && Gdx.graphics.getWidth() > 0 && Gdx.graphics.getHeight() > 0) {
+			minX = 0f;
+			minY = 0f;
+			maxX = Gdx.graphics.getWidth();
+			maxY = Gdx.graphics.getHeight();
+		} else {
+			// No window: only the finished and out of time projectiles are reclaimed.
+			minX = Float.NEGATIVE_INFINITY;
+			minY = Float.NEGATIVE_INFINITY;
+			maxX = Float.POSITIVE_INFINITY;
+			maxY = Float.POSITIVE_INFINITY;
+		}
+
+		// Backwards, so removing (swapping the last one into i) does not skip anything.
+		for (int i = projectiles.size - 1; i >= 0; i--) {
+			BasicProjectile p = projectiles.get(i);
+
+			if (p.rotating) {
+				p.updateRotation(delta);
+				updateVelocity(i, p);
+			}
+
+			x[i] += velocityX[i] * delta;
+			y[i] += velocityY[i] * delta;
+
+			if (lifeTime[i] > 0) {
+				if (time[i] <= lifeTime[i]) {
+					time[i] += delta;
+				} else {
+					p.finished = true;
+				}
+			}
+
+			if (p.finished || x[i] + p.width < minX || x[i] > maxX || y[i] + p.height < minY || y[i] > maxY) {
+				reclaim(i);
+				continue;
+			}
+
+			p.savePreviousState();
+			p.position.x = x[i];
+			p.position.y = y[i];
+			p.currentTime = time[i];
+			p.update();
+			if (p.animation != null) {
+				p.stateTime += delta;
+				p.currentFrame = p.animation.getKeyFrame(p.stateTime);
+			}
+		}
+	}
+
+	/**
+	 * Draws every live projectile.
+	 *
+	 * @param batch
+	 */
+	public void draw(SpriteBatch batch) {
+		for (int i = 0; i < projectiles.size; i++) {
+			projectiles.get(i).draw(batch);
+		}
+	}
+
+	/**
+	 * Frees every live projectile back to the pool.
+	 */
+	public void clear() {
+		for (int i = projectiles.size - 1; i >= 0; i--) {
+			reclaim(i);
+		}
+	}
+
+	/**
+	 * Sets the area outside of which projectiles are reclaimed. The screen of a context ({@code context.getViewport()}) follows the
+	 * screen size. If null, the window is used, or no area if there is no window.
+	 *
+	 * @param area
+	 *           not copied.
+	 */
+	public void setArea(Rectangle area) {
+		this.area = area;
+	}
+
+	/**
+	 * Live projectiles. Don't add or remove elements, use {@code spawn} and {@code BasicProjectile.setFinished(true)} instead.
+	 *
+	 * @return
+	 */
+	public Array<BasicProjectile> getProjectiles() {
+		return projectiles;
+	}
+
+	public int getLiveCount() {
+		return projectiles.size;
+	}
+
+	public int getFreeCount() {
+		return pool.getFree();
+	}
+
+	/**
+	 * @return the total number of projectiles spawned.
+	 */
+	public int getSpawned() {
+		return spawned;
+	}
+
+	/**
+	 * @return the total number of projectiles reclaimed.
+	 */
+	public int getReclaimed() {
+		return reclaimed;
+	}
+
+	/**
+	 * Exports the projectiles spawned ("projectiles.spawned"), finished ("projectiles.finished"), alive ("projectiles.live") and the hit
+	 * rate of the pool ("pool.projectiles"). Every manager of a registry adds to the same metrics.
+	 *
+	 * @param metrics
+	 *           null to stop exporting.
+	 */
+	public void setMetrics(MetricsRegistry metrics) {
+		// The live projectiles move from one registry to the other.
+		if (liveMetric != null) {
+			liveMetric.add(-projectiles.size);
+		}
+		if (metrics != null) {
+			spawnedMetric = metrics.counter("projectiles.spawned");
+			finishedMetric = metrics.counter("projectiles.finished");
+			liveMetric = metrics.gauge("projectiles.live");
+			poolMetric = metrics.hitRate("pool.projectiles");
+			liveMetric.add(projectiles.size);
+		} else {
+			spawnedMetric = null;
+			finishedMetric = null;
+			liveMetric = null;
+			poolMetric = null;
+		}
+	}
+
+	private void updateVelocity(int index, BasicProjectile p) {
+		velocityX[index] = p.SPEED * p.velocity.x * p.getHeadingX();
+		velocityY[index] = p.SPEED * p.velocity.y * p.getHeadingY();
+	}
+
+	/**
+	 * Removes the projectile at index, moving the last one to it's place, and frees it to the pool.
+	 *
+	 * @param index
+	 */
+	private void reclaim(int index) {
+		BasicProjectile p = projectiles.removeIndex(index);
+		int last = projectiles.size;
+		if (index != last) {
+			x[index] = x[last];
+			y[index] = y[last];
+			velocityX[index] = velocityX[last];
+			velocityY[index] = velocityY[last];
+			time[index] = time[last];
+			lifeTime[index] = lifeTime[last];
+		}
+		p.finished = true;
+		pool.free(p);
+		reclaimed++;
+		if (finishedMetric != null) {
+			finishedMetric.inc();
+			liveMetric.add(-1);
+		}
+	}
+
+	private void ensureCapacity(int capacity) {
+		if (capacity <= x.length) {
+			return;
+		}
+		int newCapacity = Math.max(capacity, (int) (x.length * 1.75f) + 1);
+		x = resize(x, newCapacity);
+		y = resize(y, newCapacity);
+		velocityX = resize(velocityX, newCapacity);
+		velocityY = resize(velocityY, newCapacity);
+		time = resize(time, newCapacity);
+		lifeTime = resize(lifeTime, newCapacity);
+	}
+
+	private static float[] resize(float[] array, int capacity) {
+		float[] newArray = new float[capacity];
+		System.arraycopy(array, 0, newArray, 0, array.length);
+		return newArray;
+	}
+}
@@ -0,0 +1,509 @@
+package com.autlos.sgf.models;
+
+import com.autlos.sgf.metrics.Counter;
+import com.autlos.sgf.metrics.MetricsRegistry;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Uniform grid broad-phase for entity collisions, keyed on {@code Entity.bounds}. The world is divided in square cells of cellSize, and
+ * every cell is hashed into a fixed table of buckets, so the grid doesn't need limits and nothing is allocated once the buckets are warm.
+ * Queries only look at the cells covered by the rectangle, and then test the bounds, so the results are exactly the same as testing every
+ * entity with {@code Rectangle.overlaps}.
+ * <p>
+ * MoveableEntities update themselves in {@code MoveableEntity.update()}. If the bounds of any other entity change, call
+ * {@code update(entity)}.
+ *
+ * @author Autlos
+ *
+ */
+public class SpatialHash {
+	private final float cellSize;
+	private final float invCellSize;
+	private final int mask;
+	private final Array<Entity>[] buckets;
+
+	// Every entity in the hash. entity.spatialIndex is it's index in this array.
+	private final Array<Entity> entities;
+
+	// To avoid returning the same entity twice when it is in more than one cell.
+	private int queryMark;
+
+	// While true, update() only marks the entity, and the cells are updated in commitDeferred().
+	private boolean deferred;
+
+	// Candidates for sweep(), reused.
+	private final Array<Entity> sweepCandidates = new Array<Entity>(false, 16);
+
+	// Bounds tests of findPairs, query and overlaps, null if not exported.
+	private Counter testsMetric;
+
+	/**
+	 * Creates a SpatialHash with 4096 buckets.
+	 *
+	 * @param cellSize
+	 *           should be about the size of the common entities, i.e twice the size of a ship.
+	 */
+	public SpatialHash(float cellSize) {
+		this(cellSize, 4096);
+	}
+
+	/**
+	 * Creates a SpatialHash.
+	 *
+	 * @param cellSize
+	 *           should be about the size of the common entities, i.e twice the size of a ship.
+	 * @param bucketCount
+	 *           will be rounded up to a power of two. More buckets means less unrelated cells sharing a bucket.
+	 */
+	@SuppressWarnings({ "unchecked", "rawtypes" })
+	public SpatialHash(float cellSize, int bucketCount) {
+		if (cellSize <= 0) {
+			throw new IllegalArgumentException("cellSize must be > 0: " + cellSize);
+		}
+		this.cellSize = cellSize;
+		this.invCellSize = 1f / cellSize;
+
+		int size = 1;
+		while (size < bucketCount) {
+			size <<= 1;
+		}
+		mask = size - 1;
+		buckets = new Array[size];
+		for (int i = 0; i < size; i++) {
+			buckets[i] = new Array<Entity>(false, 4);
+		}
+		entities = new Array<Entity>(false, 64);
+	}
+
+	/**
+	 * Adds the entity to the hash. If it was in another SpatialHash, it's removed from it.
+	 *
+	 * @param entity
+	 */
+	public void add(Entity entity) {
+		if (entity.spatialHash == this) {
+			update(entity);
+			return;
+		}
+		if (entity.spatialHash != null) {
+			entity.spatialHash.remove(entity);
+		}
+		entity.spatialHash = this;
+		entity.spatialIndex = entities.size;
+		entities.add(entity);
+
+		Rectangle bounds = entity.bounds;
+		entity.cellMinX = cell(bounds.x);
+		entity.cellMinY = cell(bounds.y);
+		entity.cellMaxX = cell(bounds.x + bounds.width);
+		entity.cellMaxY = cell(bounds.y + bounds.height);
+		insert(entity);
+	}
+
+	/**
+	 * Adds every entity of the array.
+	 *
+	 * @param entities
+	 */
+	public void addAll(Array<? extends Entity> entities) {
+		for (int i = 0; i < entities.size; i++) {
+			add(entities.get(i));
+		}
+	}
+
+	/**
+	 * Removes the entity from the hash.
+	 *
+	 * @param entity
+	 * @return false if the entity wasn't in this hash.
+	 */
+	public boolean remove(Entity entity) {
+		if (entity.spatialHash != this) {
+			return false;
+		}
+		erase(entity);
+
+		// Unordered removal: the last entity takes it's place.
+		int index = entity.spatialIndex;
+		entities.removeIndex(index);
+		if (index < entities.size) {
+			entities.get(index).spatialIndex = index;
+		}
+		entity.spatialHash = null;
+		entity.spatialIndex = -1;
+		return true;
+	}
+
+	/**
+	 * Removes every entity.
+	 */
+	public void clear() {
+		for (int i = 0; i < entities.size; i++) {
+			Entity entity = entities.get(i);
+			entity.spatialHash = null;
+			entity.spatialIndex = -1;
+		}
+		entities.clear();
+		for (int i = 0; i < buckets.length; i++) {
+			buckets[i].clear();
+		}
+	}
+
+	/**
+	 * Moves the entity to it's new cells, if it's bounds have left the old ones. It does nothing if the entity has not changed cells.
+	 *
+	 * @param entity
+	 */
+	public void update(Entity entity) {
+		if (entity.spatialHash != this) {
+			return;
+		}
+		if (deferred) {
+			entity.spatialDirty = true;
+			return;
+		}
+		Rectangle bounds = entity.bounds;
+		int minX = cell(bounds.x);
+		int minY = cell(bounds.y);
+		int maxX = cell(bounds.x + bounds.width);
+		int maxY = cell(bounds.y + bounds.height);
+		if (minX == entity.cellMinX && minY == entity.cellMinY && maxX == entity.cellMaxX && maxY == entity.cellMaxY) {
+			return;
+		}
+		erase(entity);
+		entity.cellMinX = minX;
+		entity.cellMinY = minY;
+		entity.cellMaxX = maxX;
+		entity.cellMaxY = maxY;
+		insert(entity);
+	}
+
+	/**
+	 * While deferred, {@code update(entity)} only marks the entity, so it can be called from several threads (one per entity) at the same
+	 * time. The cells are updated later in {@code commitDeferred()}. Queries are not valid while deferred.
+	 *
+	 * @param deferred
+	 */
+	public void setDeferred(boolean deferred) {
+		this.deferred = deferred;
+	}
+
+	public boolean isDeferred() {
+		return deferred;
+	}
+
+	/**
+	 * Updates the cells of every entity marked while deferred.
+	 */
+	public void commitDeferred() {
+		for (int i = 0; i < entities.size; i++) {
+			Entity entity = entities.get(i);
+			if (entity.spatialDirty) {
+				entity.spatialDirty = false;
+				update(entity);
+			}
+		}
+	}
+
+	/**
+	 * Adds to result every entity whose bounds overlap the area.
+	 *
+	 * @param area
+	 * @param result
+	 *           is not cleared.
+	 * @return result
+	 */
+	public Array<Entity> query(Rectangle area, Array<Entity> result) {
+		return query(area.x, area.y, area.width, area.height, null, result);
+	}
+
+	/**
+	 * Adds to result every entity (apart from the entity itself) whose bounds overlap the entity's bounds.
+	 *
+	 * @param entity
+	 * @param result
+	 *           is not cleared.
+	 * @return result
+	 */
+	public Array<Entity> query(Entity entity, Array<Entity> result) {
+		Rectangle bounds = entity.bounds;
+		return query(bounds.x, bounds.y, bounds.width, bounds.height, entity, result);
+	}
+
+	/**
+	 * Same as {@code Entity.overlaps(Array<Entity>)}, but only with the entities in the hash close to the entity.
+	 *
+	 * @param entity
+	 * @return true if the entity is overlapping any other entity of the hash.
+	 */
+	public boolean overlaps(Entity entity) {
+		Rectangle bounds = entity.bounds;
+		return overlaps(bounds.x, bounds.y, bounds.width, bounds.height, entity);
+	}
+
+	/**
+	 * @param area
+	 * @return true if any entity of the hash overlaps the area.
+	 */
+	public boolean overlaps(Rectangle area) {
+		return overlaps(area.x, area.y, area.width, area.height, null);
+	}
+
+	/**
+	 * Finds every pair of entities whose bounds overlap. Each pair is added once, as two consecutive elements of pairs: pairs.get(2 * i)
+	 * and pairs.get(2 * i + 1).
+	 *
+	 * @param pairs
+	 *           is not cleared.
+	 * @return the number of pairs added.
+	 */
+	public int findPairs(Array<Entity> pairs) {
+		int count = 0;
+		int tested = 0;
+		for (int i = 0; i < entities.size; i++) {
+			Entity entity = entities.get(i);
+			Rectangle bounds = entity.bounds;
+			int mark = nextMark();
+			for (int cx = entity.cellMinX; cx <= entity.cellMaxX; cx++) {
+				for (int cy = entity.cellMinY; cy <= entity.cellMaxY; cy++) {
+					Array<Entity> bucket = buckets[bucket(cx, cy)];
+					for (int j = 0; j < bucket.size; j++) {
+						Entity other = bucket.get(j);
+						// Each pair only from the entity with the lower index.
+						if (other.spatialIndex <= i || other.queryMark == mark) {
+							continue;
+						}
+						other.queryMark = mark;
+						tested++;
+						if (bounds.overlaps(other.bounds)) {
+							pairs.add(entity);
+							pairs.add(other);
+							count++;
+						}
+					}
+				}
+			}
+		}
+		countTests(tested);
+		return count;
+	}
+
+	/**
+	 * Casts the segment from x1,y1 to x2,y2, walking only the cells it crosses, and fills hit with the first entity hit.
+	 *
+	 * @param x1
+	 * @param y1
+	 * @param x2
+	 * @param y2
+	 * @param ignore
+	 *           entity not to be tested, i.e the shooter. Can be null.
+	 * @param hit
+	 *           it is reset.
+	 * @return true if something was hit.
+	 */
+	public boolean raycast(float x1, float y1, float x2, float y2, Entity ignore, CollisionHit hit) {
+		hit.reset();
+		float dx = x2 - x1;
+		float dy = y2 - y1;
+
+		int cx = cell(x1);
+		int cy = cell(y1);
+		int endX = cell(x2);
+		int endY = cell(y2);
+		int stepX = dx > 0 ? 1 : (dx < 0 ? -1 : 0);
+		int stepY = dy > 0 ? 1 : (dy < 0 ? -1 : 0);
+		// Time (0 to 1) at which the segment crosses the next vertical/horizontal cell border, and the time to cross a whole cell.
+		float tMaxX = stepX > 0 ? ((cx + 1) * cellSize - x1) / dx : (stepX < 0 ? (cx * cellSize - x1) / dx
+		      : Float.POSITIVE_INFINITY);
+		float tMaxY = stepY > 0 ? ((cy + 1) * cellSize - y1) / dy : (stepY < 0 ? (cy * cellSize - y1) / dy
+		      : Float.POSITIVE_INFINITY);
+		float tDeltaX = stepX != 0 ? cellSize / Math.abs(dx) : Float.POSITIVE_INFINITY;
+		float tDeltaY = stepY != 0 ? cellSize / Math.abs(dy) : Float.POSITIVE_INFINITY;
+
+		int mark = nextMark();
+		while (true) {
+			Array<Entity> bucket = buckets[bucket(cx, cy)];
+			for (int j = 0; j < bucket.size; j++) {
+				Entity other = bucket.get(j);
+				if (other == ignore || other.queryMark == mark) {
+					continue;
+				}
+				other.queryMark = mark;
+				Rectangle r = other.bounds;
+				if (Sweep.segment(x1, y1, dx, dy, r.x, r.y, r.x + r.width, r.y + r.height, hit)) {
+					hit.entity = other;
+				}
+			}
+
+			float cellExit = Math.min(tMaxX, tMaxY);
+			// Cells after this one are entered later than the hit found.
+			if (hit.time <= cellExit || cellExit > 1f || (cx == endX && cy == endY)) {
+				break;
+			}
+			if (tMaxX < tMaxY) {
+				cx += stepX;
+				tMaxX += tDeltaX;
+			} else {
+				cy += stepY;
+				tMaxY += tDeltaY;
+			}
+		}
+
+		if (hit.entity != null) {
+			hit.x = x1 + dx * hit.time;
+			hit.y = y1 + dy * hit.time;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Sweeps the entity's bounds from x,y (the bounds position before moving) by dx,dy against the entities of the hash close to the
+	 * movement, and fills hit with the earliest one.
+	 *
+	 * @param entity
+	 * @param x
+	 * @param y
+	 * @param dx
+	 * @param dy
+	 * @param hit
+	 *           it is reset.
+	 * @return true if something was hit.
+	 */
+	public boolean sweep(Entity entity, float x, float y, float dx, float dy, CollisionHit hit) {
+		float width = entity.bounds.width;
+		float height = entity.bounds.height;
+		float minX = Math.min(x, x + dx);
+		float minY = Math.min(y, y + dy);
+		sweepCandidates.clear();
+		query(minX, minY, width + Math.abs(dx), height + Math.abs(dy), entity, sweepCandidates);
+		boolean result = Sweep.aabb(x, y, width, height, dx, dy, sweepCandidates, entity, hit);
+		sweepCandidates.clear();
+		return result;
+	}
+
+	public Array<Entity> getEntities() {
+		return entities;
+	}
+
+	public int size() {
+		return entities.size;
+	}
+
+	public float getCellSize() {
+		return cellSize;
+	}
+
+	/**
+	 * Exports the pairs of bounds tested by {@code findPairs}, {@code query} and {@code overlaps} as "collisions.pairsTested". Every hash
+	 * of a registry adds to the same counter, once per call.
+	 *
+	 * @param metrics
+	 *           null to stop exporting.
+	 */
+	public void setMetrics(MetricsRegistry metrics) {
+		testsMetric = metrics != null ? metrics.counter("collisions.pairsTested") : null;
+	}
+
+	private Array<Entity> query(float x, float y, float width, float height, Entity self, Array<Entity> result) {
+		int minX = cell(x);
+		int minY = cell(y);
+		int maxX = cell(x + width);
+		int maxY = cell(y + height);
+		int mark = nextMark();
+		int tested = 0;
+		for (int cx = minX; cx <= maxX; cx++) {
+			for (int cy = minY; cy <= maxY; cy++) {
+				Array<Entity> bucket = buckets[bucket(cx, cy)];
+				for (int j = 0; j < bucket.size; j++) {
+					Entity other = bucket.get(j);
+					if (other == self || other.queryMark == mark) {
+						continue;
+					}
+					other.queryMark = mark;
+					tested++;
+					if (intersects(x, y, width, height, other.bounds)) {
+						result.add(other);
+					}
+				}
+			}
+		}
+		countTests(tested);
+		return result;
+	}
+
+	private boolean overlaps(float x, float y, float width, float height, Entity self) {
+		int minX = cell(x);
+		int minY = cell(y);
+		int maxX = cell(x + width);
+		int maxY = cell(y + height);
+		int tested = 0;
+		for (int cx = minX; cx <= maxX; cx++) {
+			for (int cy = minY; cy <= maxY; cy++) {
+				Array<Entity> bucket = buckets[bucket(cx, cy)];
+				for (int j = 0; j < bucket.size; j++) {
+					Entity other = bucket.get(j);
+					if (other != self) {
+						tested++;
+						if (intersects(x, y, width, height, other.bounds)) {
+							countTests(tested);
+							return true;
+						}
+					}
+				}
+			}
+		}
+		countTests(tested);
+		return false;
+	}
+
+	private void countTests(int tested) {
+		if (testsMetric != null) {
+			testsMetric.add(tested);
+		}
+	}
+
+	/**
+	 * Same test as {@code Rectangle.overlaps}.
+	 */
+	private static boolean intersects(float x, float y, float width, float height, Rectangle r) {
+		return x < r.x + r.width && x + width > r.x && y < r.y + r.height && y + height > r.y;
+	}
+
+	private void insert(Entity entity) {
+		for (int cx = entity.cellMinX; cx <= entity.cellMaxX; cx++) {
+			for (int cy = entity.cellMinY; cy <= entity.cellMaxY; cy++) {
+				buckets[bucket(cx, cy)].add(entity);
+			}
+		}
+	}
+
+	private void erase(Entity entity) {
+		for (int cx = entity.cellMinX; cx <= entity.cellMaxX; cx++) {
+			for (int cy = entity.cellMinY; cy <= entity.cellMaxY; cy++) {
+				buckets[bucket(cx, cy)].removeValue(entity, true);
+			}
+		}
+	}
+
+	private int nextMark() {
+		queryMark++;
+		if (queryMark == 0) {
+			// Overflow: old marks could match again.
+			for (int i = 0; i < entities.size; i++) {
+				entities.get(i).queryMark = 0;
+			}
+			queryMark = 1;
+		}
+		return queryMark;
+	}
+
+	private int cell(float coordinate) {
+		return (int) Math.floor(coordinate * invCellSize);
+	}
+
+	private int bucket(int cx, int cy) {
+		return ((cx * 73856093) ^ (cy * 19349663)) & mask;
+	}
+}
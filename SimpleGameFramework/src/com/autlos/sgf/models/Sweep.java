@@ -0,0 +1,230 @@
+package com.autlos.sgf.models;
+
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Continuous collision tests. Instead of testing only the end position (like {@code Rectangle.overlaps}), they test the whole movement and
+ * return the earliest time of impact, so fast objects can't go through thin ones.
+ *
+ * @author Autlos
+ *
+ */
+public class Sweep {
+
+	/**
+	 * Tests the segment from x,y to x+dx,y+dy against the rectangle. If it hits it earlier than hit.time, hit.time and the normal are set.
+	 * hit.entity and the position are not set.
+	 *
+	 * @param x
+	 * @param y
+	 * @param dx
+	 * @param dy
+	 * @param minX
+	 * @param minY
+	 * @param maxX
+	 * @param maxY
+	 * @param hit
+	 * @return true if it is the earliest hit so far.
+	 */
+	public static boolean segment(float x, float y, float dx, float dy, float minX, float minY, float maxX, float maxY,
+	      CollisionHit hit) {
+		float tMin = 0f;
+		float tMax = 1f;
+		float normalX = 0f;
+		float normalY = 0f;
+
+		if (dx == 0f) {
+			if (x <= minX || x >= maxX) {
+				return false;
+			}
+		} else {
+			float inv = 1f / dx;
+			float t1 = (minX - x) * inv;
+			float t2 = (maxX - x) * inv;
+			if (t1 > t2) {
+				float temp = t1;
+				t1 = t2;
+				t2 = temp;
+			}
+			if (t1 > tMin) {
+				tMin = t1;
+				normalX = dx > 0 ? -1f : 1f;
+			}
+			if (t2 < tMax) {
+				tMax = t2;
+			}
+			if (tMin >= tMax) {
+				return false;
+			}
+		}
+
+		if (dy == 0f) {
+			if (y <= minY || y >= maxY) {
+				return false;
+			}
+		} else {
+			float inv = 1f / dy;
+			float t1 = (minY - y) * inv;
+			float t2 = (maxY - y) * inv;
+			if (t1 > t2) {
+				float temp = t1;
+				t1 = t2;
+				t2 = temp;
+			}
+			if (t1 > tMin) {
+				tMin = t1;
+				normalX = 0f;
+				normalY = dy > 0 ? -1f : 1f;
+			}
+			if (t2 < tMax) {
+				tMax = t2;
+			}
+			if (tMin >= tMax) {
+				return false;
+			}
+		}
+
+		if (tMin >= hit.time) {
+			return false;
+		}
+		hit.time = tMin;
+		hit.normalX = normalX;
+		hit.normalY = normalY;
+		return true;
+	}
+
+	/**
+	 * Swept AABB test: the rectangle x,y,width,height moves dx,dy. If it hits the target earlier than hit.time, hit.time and the normal are
+	 * set.
+	 *
+	 * @param x
+	 * @param y
+	 * @param width
+	 * @param height
+	 * @param dx
+	 * @param dy
+	 * @param target
+	 * @param hit
+	 * @return true if it is the earliest hit so far.
+	 */
+	public static boolean aabb(float x, float y, float width, float height, float dx, float dy, Rectangle target,
+	      CollisionHit hit) {
+		// The target grows by the size of the moving rectangle, so the moving rectangle can be tested as a point.
+		return segment(x, y, dx, dy, target.x - width, target.y - height, target.x + target.width, target.y + target.height,
+		      hit);
+	}
+
+	/**
+	 * Sweeps the rectangle x,y,width,height moving dx,dy against every target, and fills hit with the earliest one.
+	 *
+	 * @param x
+	 * @param y
+	 * @param width
+	 * @param height
+	 * @param dx
+	 * @param dy
+	 * @param targets
+	 * @param ignore
+	 *           entity not to be tested, usually the one moving. Can be null.
+	 * @param hit
+	 *           it is reset.
+	 * @return true if something was hit.
+	 */
+	public static boolean aabb(float x, float y, float width, float height, float dx, float dy,
+	      Array<? extends Entity> targets, Entity ignore, CollisionHit hit) {
+		hit.reset();
+		for (int i = 0; i < targets.size; i++) {
+			Entity target = targets.get(i);
+			if (target != ignore && aabb(x, y, width, height, dx, dy, target.bounds, hit)) {
+				hit.entity = target;
+			}
+		}
+		if (hit.entity != null) {
+			hit.x = x + dx * hit.time;
+			hit.y = y + dy * hit.time;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Casts the segment from x1,y1 to x2,y2 against every target, and fills hit with the first one hit.
+	 *
+	 * @param x1
+	 * @param y1
+	 * @param x2
+	 * @param y2
+	 * @param targets
+	 * @param ignore
+	 *           entity not to be tested, i.e the shooter. Can be null.
+	 * @param hit
+	 *           it is reset.
+	 * @return true if something was hit.
+	 */
+	public static boolean segment(float x1, float y1, float x2, float y2, Array<? extends Entity> targets, Entity ignore,
+	      CollisionHit hit) {
+		hit.reset();
+		float dx = x2 - x1;
+		float dy = y2 - y1;
+		for (int i = 0; i < targets.size; i++) {
+			Entity target = targets.get(i);
+			if (target == ignore) {
+				continue;
+			}
+			Rectangle r = target.bounds;
+			if (segment(x1, y1, dx, dy, r.x, r.y, r.x + r.width, r.y + r.height, hit)) {
+				hit.entity = target;
+			}
+		}
+		if (hit.entity != null) {
+			hit.x = x1 + dx * hit.time;
+			hit.y = y1 + dy * hit.time;
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Instant hit weapons. Casts a segment of length range from x,y in the rotation's direction.
+	 *
+	 * @param x
+	 * @param y
+	 * @param rotation
+	 *           in degrees.
+	 * @param range
+	 * @param targets
+	 * @param ignore
+	 *           entity not to be tested, i.e the shooter. Can be null.
+	 * @param hit
+	 *           it is reset. hit.time * range is the distance to the entity hit.
+	 * @return true if something was hit.
+	 */
+	public static boolean hitscan(float x, float y, float rotation, float range, Array<? extends Entity> targets,
+	      Entity ignore, CollisionHit hit) {
+		return segment(x, y, x + MathUtils.cosDeg(rotation) * range, y + MathUtils.sinDeg(rotation) * range, targets,
+		      ignore, hit);
+	}
+
+	/**
+	 * Same as {@code hitscan} with an array, but only testing the entities of the SpatialHash along the segment.
+	 *
+	 * @param x
+	 * @param y
+	 * @param rotation
+	 *           in degrees.
+	 * @param range
+	 * @param hash
+	 * @param ignore
+	 *           entity not to be tested, i.e the shooter. Can be null.
+	 * @param hit
+	 *           it is reset.
+	 * @return true if something was hit.
+	 */
+	public static boolean hitscan(float x, float y, float rotation, float range, SpatialHash hash, Entity ignore,
+	      CollisionHit hit) {
+		return hash.raycast(x, y, x + MathUtils.cosDeg(rotation) * range, y + MathUtils.sinDeg(rotation) * range, ignore,
+		      hit);
+	}
+}
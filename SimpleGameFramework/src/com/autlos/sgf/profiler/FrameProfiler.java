@@ -0,0 +1,373 @@
+package com.autlos.sgf.profiler;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import com.autlos.sgf.TextBuffer;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.utils.TimeUtils;
+
+/**
+ * Measures how long each phase of a frame takes. Phases are named scopes, registered once with {@code register(name)}, and measured with
+ * {@code begin(scope)} and {@code end()}. Scopes can be nested: the time of a scope includes the scopes opened inside it. The times of the
+ * last frames are kept in preallocated ring buffers, with the collections that happened in each frame, so slow frames can be told apart
+ * from GC pauses.
+ * <p>
+ * A frame much slower than the average (see {@code setSpikeFactor}) is a spike: it's phase times are kept until the next one, and shown in
+ * the overlay with the rolling averages and maximums. GameAbstract enables the profiler and draws the overlay only in debugMode. When it's
+ * disabled, {@code begin} and {@code end} just return.
+ *
+ * @author Autlos
+ *
+ */
+public class FrameProfiler {
+	public static final int MAX_SCOPES = 32;
+	private static final int MAX_DEPTH = 16;
+
+	private final int capacity;
+	private boolean enabled;
+
+	// Registered scopes.
+	private final String[] names = new String[MAX_SCOPES];
+	// Depth the scope was first opened at, for the overlay.
+	private final int[] depths = new int[MAX_SCOPES];
+	private int scopeCount;
+
+	// Open scopes.
+	private final int[] stack = new int[MAX_DEPTH];
+	private final long[] starts = new long[MAX_DEPTH];
+	private int depth;
+	// Scopes opened past MAX_DEPTH, not measured. Their end() calls are ignored.
+	private int overflow;
+
+	// Time of each scope in the current frame.
+	private final long[] current = new long[MAX_SCOPES];
+	private long frameStart;
+	private boolean inFrame;
+
+	// Last frames: time of each scope, total time and collections. Frame n is at n % capacity.
+	private final long[][] history;
+	private final long[] frameTimes;
+	private final long[] gcCounts;
+	private final long[] gcTimes;
+	private final long[] sums = new long[MAX_SCOPES];
+	private long frameSum;
+	private long frames;
+
+	private final List<GarbageCollectorMXBean> gcBeans;
+	private long lastGcCount;
+	private long lastGcTime;
+
+	// Spikes.
+	private float spikeFactor = 2f;
+	private final long[] spike = new long[MAX_SCOPES];
+	private long spikeTime;
+	private long spikeFrame = -1;
+	private long spikeGcTime;
+	private long spikes;
+	private long spikesWithGc;
+
+	private final TextBuffer text = new TextBuffer(512);
+
+	/**
+	 * Creates a profiler that keeps the last 120 frames.
+	 */
+	public FrameProfiler() {
+		this(120);
+	}
+
+	/**
+	 * @param capacity
+	 *           frames kept for the rolling averages.
+	 */
+	public FrameProfiler(int capacity) {
+		this.capacity = capacity;
+		history = new long[MAX_SCOPES][capacity];
+		frameTimes = new long[capacity];
+		gcCounts = new long[capacity];
+		gcTimes = new long[capacity];
+		gcBeans = ManagementFactory.getGarbageCollectorMXBeans();
+	}
+
+	/**
+	 * Registers a scope. Registering a name twice gives the same scope.
+	 *
+	 * @param name
+	 * @return the id of the scope, for {@code begin}.
+	 */
+	public int register(String name) {
+		for (int i = 0; i < scopeCount; i++) {
+			if (names[i].equals(name)) {
+				return i;
+			}
+		}
+		if (scopeCount == MAX_SCOPES) {
+			throw new IllegalStateException("Too many scopes: " + MAX_SCOPES);
+		}
+		names[scopeCount] = name;
+		depths[scopeCount] = -1;
+		return scopeCount++;
+	}
+
+	/**
+	 * Starts a frame. Scopes opened before the first frame are not recorded.
+	 */
+	public void beginFrame() {
+		if (!enabled) {
+			return;
+		}
+		depth = 0;
+		overflow = 0;
+		inFrame = true;
+		frameStart = TimeUtils.nanoTime();
+	}
+
+	/**
+	 * Opens a scope inside the current one. Past {@code MAX_DEPTH} levels the scope is not measured, but it still has to be closed.
+	 *
+	 * @param scope
+	 *           given by {@code register}.
+	 */
+	public void begin(int scope) {
+		if (!enabled || !inFrame) {
+			return;
+		}
+		if (depth == MAX_DEPTH) {
+			overflow++;
+			return;
+		}
+		if (depths[scope] < 0) {
+			depths[scope] = depth;
+		}
+		stack[depth] = scope;
+		starts[depth] = TimeUtils.nanoTime();
+		depth++;
+	}
+
+	/**
+	 * Closes the innermost open scope.
+	 */
+	public void end() {
+		if (!enabled || depth == 0) {
+			return;
+		}
+		if (overflow > 0) {
+			overflow--;
+			return;
+		}
+		depth--;
+		current[stack[depth]] += TimeUtils.nanoTime() - starts[depth];
+	}
+
+	/**
+	 * Ends the frame: closes the scopes left open, saves the times and the collections of the frame and checks if it's a spike.
+	 */
+	public void endFrame() {
+		if (!enabled || !inFrame) {
+			return;
+		}
+		overflow = 0;
+		while (depth > 0) {
+			end();
+		}
+		inFrame = false;
+		long frameTime = TimeUtils.nanoTime() - frameStart;
+
+		long gcCount = 0;
+		long gcTime = 0;
+		for (int i = 0; i < gcBeans.size(); i++) {
+			GarbageCollectorMXBean bean = gcBeans.get(i);
+			gcCount += Math.max(0, bean.getCollectionCount());
+			gcTime += Math.max(0, bean.getCollectionTime());
+		}
+		long frameGcCount = frames == 0 ? 0 : gcCount - lastGcCount;
+		long frameGcTime = frames == 0 ? 0 : gcTime - lastGcTime;
+		lastGcCount = gcCount;
+		lastGcTime = gcTime;
+
+		// Compared with the average of the frames before this one.
+		int kept = (int) Math.min(frames, capacity);
+		boolean isSpike = kept == capacity && frameTime > spikeFactor * (frameSum / kept);
+
+		int slot = (int) (frames % capacity);
+		frameSum += frameTime - frameTimes[slot];
+		frameTimes[slot] = frameTime;
+		gcCounts[slot] = frameGcCount;
+		gcTimes[slot] = frameGcTime;
+		for (int i = 0; i < scopeCount; i++) {
+			sums[i] += current[i] - history[i][slot];
+			history[i][slot] = current[i];
+			if (isSpike) {
+				spike[i] = current[i];
+			}
+			current[i] = 0;
+		}
+		if (isSpike) {
+			spikeTime = frameTime;
+			spikeFrame = frames;
+			spikeGcTime = frameGcTime;
+			spikes++;
+			if (frameGcCount > 0) {
+				spikesWithGc++;
+			}
+		}
+		frames++;
+	}
+
+	/**
+	 * Draws the rolling average and maximum of the frame and of each scope over the kept frames, the collections in them, and the last
+	 * spike. The batch must be drawing.
+	 *
+	 * @param batch
+	 * @param font
+	 * @param x
+	 * @param y
+	 *           top of the text.
+	 */
+	public void drawOverlay(SpriteBatch batch, BitmapFont font, float x, float y) {
+		font.drawMultiLine(batch, getReport(), x, y);
+	}
+
+	/**
+	 * @return the text of the overlay. It's reused, don't keep it.
+	 */
+	public CharSequence getReport() {
+		text.clear();
+		int kept = (int) Math.min(frames, capacity);
+		if (kept == 0) {
+			return text.append("profiler: no frames");
+		}
+		long gcCount = 0;
+		long gcTime = 0;
+		for (int i = 0; i < kept; i++) {
+			gcCount += gcCounts[i];
+			gcTime += gcTimes[i];
+		}
+		text.append("frame avg ").append(toMs(frameSum / kept), 2).append(" max ").append(toMs(max(frameTimes, kept)), 2)
+		      .append(" ms, gc ").append(gcCount).append(" (").append(gcTime).append(" ms) in ").append(kept).append(" frames\n");
+		for (int i = 0; i < scopeCount; i++) {
+			for (int d = 0; d < depths[i]; d++) {
+				text.append("  ");
+			}
+			text.append(names[i]).append(' ').append(toMs(sums[i] / kept), 2).append(" max ").append(toMs(max(history[i], kept)), 2);
+			if (spikeFrame >= 0) {
+				text.append(" spike ").append(toMs(spike[i]), 2);
+			}
+			text.append('\n');
+		}
+		text.append("spikes ").append(spikes).append(" (").append(spikesWithGc).append(" with gc)");
+		if (spikeFrame >= 0) {
+			text.append(", last ").append(toMs(spikeTime), 2).append(" ms at frame ").append(spikeFrame);
+			if (spikeGcTime > 0) {
+				text.append(", gc ").append(spikeGcTime).append(" ms");
+			}
+		}
+		return text;
+	}
+
+	private static long max(long[] values, int count) {
+		long max = 0;
+		for (int i = 0; i < count; i++) {
+			if (values[i] > max) {
+				max = values[i];
+			}
+		}
+		return max;
+	}
+
+	private static float toMs(long nanos) {
+		return nanos / 1000000f;
+	}
+
+	/**
+	 * @param enabled
+	 *           if false, nothing is measured. Disabling it in the middle of a frame drops the frame.
+	 */
+	public void setEnabled(boolean enabled) {
+		if (!enabled) {
+			inFrame = false;
+			depth = 0;
+			for (int i = 0; i < scopeCount; i++) {
+				current[i] = 0;
+			}
+		}
+		this.enabled = enabled;
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * @param spikeFactor
+	 *           a frame slower than the average times this is a spike. 2 by default.
+	 */
+	public void setSpikeFactor(float spikeFactor) {
+		this.spikeFactor = spikeFactor;
+	}
+
+	/**
+	 * Forgets the kept frames and spikes.
+	 */
+	public void reset() {
+		for (int i = 0; i < MAX_SCOPES; i++) {
+			sums[i] = 0;
+			current[i] = 0;
+			spike[i] = 0;
+			for (int j = 0; j < capacity; j++) {
+				history[i][j] = 0;
+			}
+		}
+		for (int j = 0; j < capacity; j++) {
+			frameTimes[j] = 0;
+			gcCounts[j] = 0;
+			gcTimes[j] = 0;
+		}
+		frameSum = 0;
+		frames = 0;
+		spikeFrame = -1;
+		spikes = 0;
+		spikesWithGc = 0;
+		inFrame = false;
+		depth = 0;
+	}
+
+	/**
+	 * @param scope
+	 * @return the average time of the scope over the kept frames, in nanoseconds.
+	 */
+	public long getAverage(int scope) {
+		int kept = (int) Math.min(frames, capacity);
+		return kept == 0 ? 0 : sums[scope] / kept;
+	}
+
+	/**
+	 * @return the average frame time over the kept frames, in nanoseconds.
+	 */
+	public long getAverageFrame() {
+		int kept = (int) Math.min(frames, capacity);
+		return kept == 0 ? 0 : frameSum / kept;
+	}
+
+	public String getName(int scope) {
+		return names[scope];
+	}
+
+	public int getScopeCount() {
+		return scopeCount;
+	}
+
+	public long getFrames() {
+		return frames;
+	}
+
+	public long getSpikes() {
+		return spikes;
+	}
+
+	public long getSpikesWithGc() {
+		return spikesWithGc;
+	}
+}
@@ -0,0 +1,286 @@
+package com.autlos.sgf.profiler;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.LongMap;
+
+/**
+ * Records a timeline of begin and end events, from any thread, and writes it in the Chrome trace event format (open it in
+ * chrome://tracing or ui.perfetto.dev). The game loop phases, screen switches, asset loads (with a {@link TracingAssetManager}) and the
+ * chunks of a ParallelUpdater are traced already; other scopes are added with {@code register(name)} and {@code begin}/{@code end}.
+ * <p>
+ * It's off until {@code start(capacity)} is called. Then each event takes a slot of a preallocated buffer with an atomic counter, so
+ * threads don't wait for each other and nothing is allocated; when the buffer is full, new events are dropped. While it's off, recording
+ * an event is just a read of a volatile field.
+ * <p>
+ * It's static, not part of the {@link com.autlos.sgf.GameContext}: there is one timeline for the whole JVM, so the threads of every game
+ * (and of the asset loaders and updaters, which have no context) are recorded in it together, and {@code start}/{@code stop} affect all
+ * of them.
+ *
+ * @author Autlos
+ *
+ */
+public final class Tracer {
+	private static final int BEGIN = 0;
+	private static final int END = 1;
+	private static final int INSTANT = 2;
+	private static final int MAX_NAMES = 4096;
+
+	/**
+	 * The events of a trace, in parallel arrays. Slot i can be read once published[i] is 1.
+	 */
+	private static class Buffer {
+		final long start = System.nanoTime();
+		final int capacity;
+		final long[] times;
+		final long[] threads;
+		// name << 2 | type
+		final int[] events;
+		final AtomicIntegerArray published;
+		final AtomicInteger next = new AtomicInteger();
+
+		Buffer(int capacity) {
+			this.capacity = capacity;
+			times = new long[capacity];
+			threads = new long[capacity];
+			events = new int[capacity];
+			published = new AtomicIntegerArray(capacity);
+		}
+	}
+
+	private static final String[] names = new String[MAX_NAMES];
+	private static int nameCount;
+
+	// Names of the threads that recorded events, saved the first time so threads that have ended can be named in the dump.
+	private static final LongMap<String> threadNames = new LongMap<String>();
+	private static final ThreadLocal<Boolean> threadNamed = new ThreadLocal<Boolean>();
+
+	// The buffer being recorded, null if off. The last one is kept to be dumped after stop.
+	private static volatile Buffer recording;
+	private static Buffer last;
+
+	private Tracer() {
+	}
+
+	/**
+	 * Registers a name for events. Registering a name twice gives the same id. Register the names once, not every frame.
+	 *
+	 * @param name
+	 * @return the id of the name, for begin, end and instant.
+	 */
+	public static synchronized int register(String name) {
+		for (int i = 0; i < nameCount; i++) {
+			if (names[i].equals(name)) {
+				return i;
+			}
+		}
+		if (nameCount == MAX_NAMES) {
+			throw new IllegalStateException("Too many trace names: " + MAX_NAMES);
+		}
+		names[nameCount] = name;
+		return nameCount++;
+	}
+
+	/**
+	 * Starts recording in a new buffer.
+	 *
+	 * @param capacity
+	 *           events that can be recorded. Each one takes 24 bytes.
+	 */
+	public static synchronized void start(int capacity) {
+		last = new Buffer(capacity);
+		recording = last;
+	}
+
+	/**
+	 * Stops recording. The events recorded can still be dumped.
+	 */
+	public static synchronized void stop() {
+		recording = null;
+	}
+
+	public static boolean isTracing() {
+		return recording != null;
+	}
+
+	/**
+	 * Begins a scope in the current thread.
+	 *
+	 * @param name
+	 *           given by {@code register}.
+	 */
+	public static void begin(int name) {
+		record(name, BEGIN);
+	}
+
+	/**
+	 * Ends the scope begun with the same name in the current thread.
+	 *
+	 * @param name
+	 */
+	public static void end(int name) {
+		record(name, END);
+	}
+
+	/**
+	 * Marks a moment, i.e a screen switch.
+	 *
+	 * @param name
+	 */
+	public static void instant(int name) {
+		record(name, INSTANT);
+	}
+
+	private static void record(int name, int type) {
+		Buffer buffer = recording;
+		if (buffer == null) {
+			return;
+		}
+		int i = buffer.next.getAndIncrement();
+		// Full (or, after billions of events, wrapped around).
+		if (i >= buffer.capacity || i < 0) {
+			return;
+		}
+		buffer.times[i] = System.nanoTime();
+		Thread thread = Thread.currentThread();
+		buffer.threads[i] = thread.getId();
+		if (threadNamed.get() == null) {
+			threadNamed.set(Boolean.TRUE);
+			synchronized (threadNames) {
+				threadNames.put(thread.getId(), thread.getName());
+			}
+		}
+		buffer.events[i] = name << 2 | type;
+		buffer.published.lazySet(i, 1);
+	}
+
+	/**
+	 * @return the events dropped because the buffer was full.
+	 */
+	public static int getDropped() {
+		Buffer buffer = last;
+		if (buffer == null) {
+			return 0;
+		}
+		int next = buffer.next.get();
+		return next < 0 ? Integer.MAX_VALUE : Math.max(0, next - buffer.capacity);
+	}
+
+	/**
+	 * Writes the events recorded so far (or until stop) as a Chrome trace event json. Events still being written by other threads are
+	 * skipped.
+	 *
+	 * @param writer
+	 *           not closed.
+	 * @throws IOException
+	 */
+	public static void dump(Writer writer) throws IOException {
+		Buffer buffer;
+		String[] names;
+		synchronized (Tracer.class) {
+			buffer = last;
+			names = new String[nameCount];
+			System.arraycopy(Tracer.names, 0, names, 0, nameCount);
+		}
+		writer.write("{\"displayTimeUnit\":\"ms\",\"traceEvents\":[");
+		boolean first = true;
+		if (buffer != null) {
+			int count = Math.min(buffer.capacity, buffer.next.get() < 0 ? buffer.capacity : buffer.next.get());
+			LongMap<Boolean> named = new LongMap<Boolean>();
+			StringBuilder line = new StringBuilder(128);
+			for (int i = 0; i < count; i++) {
+				if (buffer.published.get(i) == 0) {
+					continue;
+				}
+				long thread = buffer.threads[i];
+				int event = buffer.events[i];
+				line.setLength(0);
+				if (!named.containsKey(thread)) {
+					named.put(thread, Boolean.TRUE);
+					String threadName;
+					synchronized (threadNames) {
+						threadName = threadNames.get(thread);
+					}
+					line.append("{\"name\":\"thread_name\",\"ph\":\"M\",\"pid\":1,\"tid\":").append(thread).append(",\"args\":{\"name\":\"");
+					escape(threadName != null ? threadName : "Thread " + thread, line);
+					line.append("\"}},\n");
+				}
+				line.append("{\"name\":\"");
+				escape(names[event >>> 2], line);
+				int type = event & 3;
+				line.append("\",\"ph\":\"").append(type == BEGIN ? 'B' : type == END ? 'E' : 'i').append('"');
+				if (type == INSTANT) {
+					// Drawn across the whole timeline.
+					line.append(",\"s\":\"g\"");
+				}
+				line.append(",\"ts\":").append((buffer.times[i] - buffer.start) / 1000.0).append(",\"pid\":1,\"tid\":").append(thread)
+				      .append('}');
+				if (!first) {
+					writer.write(",\n");
+				}
+				writer.write(line.toString());
+				first = false;
+			}
+		}
+		writer.write("]}\n");
+		writer.flush();
+	}
+
+	/**
+	 * Writes the events recorded so far to the file.
+	 *
+	 * @param file
+	 *           overwritten.
+	 */
+	public static void dump(File file) {
+		Writer writer = null;
+		try {
+			writer = new BufferedWriter(new FileWriter(file));
+			dump(writer);
+		} catch (IOException e) {
+			throw new GdxRuntimeException("Couldn't write the trace to " + file, e);
+		} finally {
+			if (writer != null) {
+				try {
+					writer.close();
+				} catch (IOException e) {
+					// Already written or failed above.
+				}
+			}
+		}
+	}
+
+	/**
+	 * Writes the trace to the file when the JVM exits, even if the game crashes.
+	 *
+	 * @param file
+	 */
+	public static void dumpAtExit(final File file) {
+		Runtime.getRuntime().addShutdownHook(new Thread("Tracer dump") {
+			@Override
+			public void run() {
+				dump(file);
+			}
+		});
+	}
+
+	private static void escape(String text, StringBuilder out) {
+		for (int i = 0; i < text.length(); i++) {
+			char c = text.charAt(i);
+			if (c == '"' || c == '\\') {
+				out.append('\\').append(c);
+			} else if (c < 0x20) {
+				out.append(' ');
+			} else {
+				out.append(c);
+			}
+		}
+	}
+}
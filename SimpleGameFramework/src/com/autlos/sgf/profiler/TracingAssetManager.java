@@ -0,0 +1,43 @@
+package com.autlos.sgf.profiler;
+
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+
+/**
+ * An AssetManager that traces the loading in the {@link Tracer}: every {@code update} (also the ones of {@code update(millis)} and
+ * {@code finishLoading}) is an "assets.update" scope, and an "assets.loaded" mark is added each time assets finish loading. Only the
+ * render thread is traced: the work the loaders do in the executor thread of the manager is not, it shows as updates that return
+ * quickly while an asset is loading.
+ *
+ * @author Autlos
+ *
+ */
+public class TracingAssetManager extends AssetManager {
+	private static final int UPDATE = Tracer.register("assets.update");
+	private static final int LOADED = Tracer.register("assets.loaded");
+
+	public TracingAssetManager() {
+		super();
+	}
+
+	public TracingAssetManager(FileHandleResolver resolver) {
+		super(resolver);
+	}
+
+	@Override
+	public synchronized boolean update() {
+		if (!Tracer.isTracing()) {
+			return super.update();
+		}
+		int loaded = getLoadedAssets();
+		Tracer.begin(UPDATE);
+		try {
+			return super.update();
+		} finally {
+			Tracer.end(UPDATE);
+			if (getLoadedAssets() != loaded) {
+				Tracer.instant(LOADED);
+			}
+		}
+	}
+}
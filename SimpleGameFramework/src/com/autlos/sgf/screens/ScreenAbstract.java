@@ -1,6 +1,6 @@
 package com.autlos.sgf.screens;
 
-import com.autlos.sgf.GameAbstract;
+import com.autlos.sgf.GameContext;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.graphics.GL10;
@@ -14,6 +14,8 @@ import com.badlogic.gdx.graphics.g2d.TextureRegion;
 public abstract class ScreenAbstract implements Screen {
 	protected TextureRegion background;
 	protected SpriteBatch batch;
+	// Context of the game, for the screen size. If null, the size of the window is used.
+	protected GameContext context;
 
 	/**
 	 * Creates a Screen with a SpriteBatch and a background.
@@ -27,6 +29,17 @@ public abstract class ScreenAbstract implements Screen {
 		}
 	}
 
+	/**
+	 * Creates a Screen with a SpriteBatch and a background, drawn with the screen size of the context.
+	 * 
+	 * @param context
+	 * @param background
+	 */
+	public ScreenAbstract(GameContext context, TextureRegion background) {
+		this(background);
+		this.context = context;
+	}
+
 	/**
 	 * Calls glClear and draws the background.
 	 */
@@ -35,7 +48,11 @@ public abstract class ScreenAbstract implements Screen {
 		Gdx.gl.glClear(GL10.GL_COLOR_BUFFER_BIT);
 
 		batch.begin();
-		batch.draw(background, 0, 0, GameAbstract.screenWidth, GameAbstract.screenHeight);
+		if (context != null) {
+			batch.draw(background, 0, 0, context.getScreenWidth(), context.getScreenHeight());
+		} else {
+			batch.draw(background, 0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+		}
 		batch.end();
 
 	}
@@ -1,54 +1,332 @@
 package com.autlos.sgf.screens;
 
+import com.autlos.sgf.GameContext;
 import com.autlos.sgf.GuiElement;
+import com.autlos.sgf.models.Entity;
+import com.autlos.sgf.models.SpatialHash;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.InputAdapter;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IdentityMap;
 
+/**
+ * Routes the touches to the GuiElements. Each pointer (finger) is routed on it's own: the element pressed by a pointer captures it, so it
+ * gets the drags of that pointer even if they happen outside of it. It only gets the release (touchUp) if the pointer is released over
+ * it; released outside, the press is cancelled and the element only gets the exit of the pointer. Only the topmost element under the
+ * pointer is pressed: the one with the highest z, or the last one added if they have the same z. Elements are found with a
+ * {@link SpatialHash} over their bounds, so screens with hundreds of elements don't test all of them on every touch.
+ * <p>
+ * The elements are kept in the hash, so they can't be in another SpatialHash at the same time. Elements moved with {@code setPosition} or
+ * a tween update their bounds in the hash; if the bounds are changed in other way, call {@code updateItem}.
+ *
+ * @author Autlos
+ *
+ */
 public class ScreenController extends InputAdapter{
 	public interface Action{
 		public void touchUp();
 		public void touchDown();
 	}
-	
+
+	/**
+	 * An action that also gets the drags of the pointer that pressed the element, and when pointers go over it and leave it.
+	 */
+	public interface PointerAction extends Action {
+		public void touchDragged(float x, float y);
+
+		public void enter();
+
+		public void exit();
+	}
+
+	private static final int MAX_POINTERS = 20;
+
+	/**
+	 * z and the order the element was added in, to find the topmost.
+	 */
+	private static class Layer {
+		int z;
+		int order;
+	}
+
 	private Array<GuiElement> items;
-	
+	private final IdentityMap<GuiElement, Layer> layers;
+	private final SpatialHash hash;
+	private int addedCount;
+
+	// Element pressed by each pointer, and element each pointer is over.
+	private final GuiElement[] captured = new GuiElement[MAX_POINTERS];
+	private final GuiElement[] over = new GuiElement[MAX_POINTERS];
+
+	// Reused for the hit tests.
+	private final Rectangle touch = new Rectangle(0, 0, 1, 1);
+	private final Array<Entity> candidates = new Array<Entity>(false, 16);
+
+	// Context of the game, for the screen height the touches are flipped with. If null, the height of the window is used.
+	private GameContext context;
+
 	public ScreenController() {
+		this(64f);
+	}
+
+	/**
+	 * @param cellSize
+	 *           of the SpatialHash, about the size of the common elements.
+	 */
+	public ScreenController(float cellSize) {
 		items = new Array<GuiElement>();
+		layers = new IdentityMap<GuiElement, Layer>();
+		hash = new SpatialHash(cellSize, 256);
 	}
-	
+
+	/**
+	 * @param context
+	 *           of the game. The touches are flipped with it's screen height, which is also right under the headless backend (i.e when
+	 *           replaying a recorded run) where the window has no size.
+	 * @param cellSize
+	 *           of the SpatialHash, about the size of the common elements.
+	 */
+	public ScreenController(GameContext context, float cellSize) {
+		this(cellSize);
+		this.context = context;
+	}
+
+	/**
+	 * @param context
+	 *           null to flip the touches with the height of the window.
+	 */
+	public void setContext(GameContext context) {
+		this.context = context;
+	}
+
 	public void addItems(Array<GuiElement> items){
-		this.items.addAll(items);
+		for (int i = 0; i < items.size; i++) {
+			addItem(items.get(i));
+		}
 	}
-	
+
 	public void addItem(GuiElement item){
-		items.add(item);
+		addItem(item, 0);
 	}
-	
-	@Override
-	public boolean touchDown(int screenX, int screenY, int pointer, int button) {
-		float y = Gdx.graphics.getHeight() - screenY;
-		for (GuiElement item : items) {
-			if (item.isTouchingElement(screenX, y)) {
-				item.touchDown();
+
+	/**
+	 * Adds an element with a z. Elements with higher z are over the ones with lower z, i.e a dialog over the HUD.
+	 *
+	 * @param item
+	 * @param z
+	 */
+	public void addItem(GuiElement item, int z) {
+		Layer layer = layers.get(item);
+		if (layer == null) {
+			layer = new Layer();
+			layers.put(item, layer);
+			items.add(item);
+		}
+		layer.z = z;
+		layer.order = addedCount++;
+		hash.add(item);
+	}
+
+	/**
+	 * Removes the element. If a pointer is pressing it, the element doesn't get it's release.
+	 *
+	 * @param item
+	 * @return false if the element was not in the controller.
+	 */
+	public boolean removeItem(GuiElement item) {
+		if (layers.remove(item) == null) {
+			return false;
+		}
+		items.removeValue(item, true);
+		hash.remove(item);
+		for (int i = 0; i < MAX_POINTERS; i++) {
+			if (captured[i] == item) {
+				captured[i] = null;
+			}
+			if (over[i] == item) {
+				over[i] = null;
 			}
 		}
-		return false;
+		return true;
 	}
 
-	@Override
-	public boolean touchUp(int screenX, int screenY, int pointer, int button) {
-		float y = Gdx.graphics.getHeight() - screenY;
-		for (GuiElement item : items) {
-			if (item.isTouchingElement(screenX, y)) {
-				item.touchUp();
+	/**
+	 * Moves the element to it's cells in the hash. Call it if the bounds of the element are changed directly.
+	 *
+	 * @param item
+	 */
+	public void updateItem(GuiElement item) {
+		hash.update(item);
+	}
+
+	public Array<GuiElement> getItems() {
+		return items;
+	}
+
+	/**
+	 * @param x
+	 * @param y
+	 *           from the bottom, like the positions of the elements.
+	 * @return the topmost visible element at x, y, or null.
+	 */
+	public GuiElement hit(float x, float y) {
+		touch.set(x, y, 1, 1);
+		candidates.clear();
+		hash.query(touch, candidates);
+
+		GuiElement top = null;
+		Layer topLayer = null;
+		for (int i = 0; i < candidates.size; i++) {
+			GuiElement item = (GuiElement) candidates.get(i);
+			if (!item.isTouchingElement(x, y)) {
+				continue;
+			}
+			Layer layer = layers.get(item);
+			if (top == null || layer.z > topLayer.z || (layer.z == topLayer.z && layer.order > topLayer.order)) {
+				top = item;
+				topLayer = layer;
 			}
 		}
-		return false;
+		candidates.clear();
+		return top;
+	}
+
+	/**
+	 * @param pointer
+	 * @return the element pressed by the pointer, or null.
+	 */
+	public GuiElement getCaptured(int pointer) {
+		return pointer < MAX_POINTERS ? captured[pointer] : null;
+	}
+
+	@Override
+	public boolean touchDown(int screenX, int screenY, int pointer, int button) {
+		return pointerDown(screenX, flipY(screenY), pointer);
+	}
+
+	@Override
+	public boolean touchUp(int screenX, int screenY, int pointer, int button) {
+		return pointerUp(pointer);
 	}
 
 	@Override
 	public boolean touchDragged(int screenX, int screenY, int pointer) {
+		return pointerDragged(screenX, flipY(screenY), pointer);
+	}
+
+	@Override
+	public boolean mouseMoved(int screenX, int screenY) {
+		pointerMoved(screenX, flipY(screenY));
 		return false;
 	}
+
+	/**
+	 * @param screenY
+	 *           from the top, as libgdx gives it.
+	 * @return y from the bottom.
+	 */
+	private float flipY(int screenY) {
+		float height = context != null ? context.getScreenHeight() : Gdx.graphics.getHeight();
+		return height - screenY;
+	}
+
+	/**
+	 * Presses the topmost element at x, y with the pointer. Like touchDown, but with y from the bottom, so it can be called without a
+	 * screen (i.e by tests or by a world that already converted the touch).
+	 *
+	 * @param x
+	 * @param y
+	 * @param pointer
+	 * @return true if an element was pressed.
+	 */
+	public boolean pointerDown(float x, float y, int pointer) {
+		if (pointer >= MAX_POINTERS) {
+			return false;
+		}
+		GuiElement item = hit(x, y);
+		setOver(pointer, item);
+		if (item == null) {
+			return false;
+		}
+		captured[pointer] = item;
+		item.setPointer(pointer);
+		item.touchDown();
+		return true;
+	}
+
+	/**
+	 * Releases the element pressed by the pointer, like touchUp. The element gets touchUp only if the pointer is still over it.
+	 *
+	 * @param pointer
+	 * @return true if the pointer had pressed an element.
+	 */
+	public boolean pointerUp(int pointer) {
+		if (pointer >= MAX_POINTERS) {
+			return false;
+		}
+		GuiElement item = captured[pointer];
+		captured[pointer] = null;
+		// Dragged out of the element: the press is cancelled, it already got the exit.
+		boolean released = item != null && over[pointer] == item;
+		// The pointer is gone (on touch screens).
+		setOver(pointer, null);
+		if (item == null) {
+			return false;
+		}
+		if (released) {
+			item.touchUp();
+		}
+		return true;
+	}
+
+	/**
+	 * Drags the pointer to x, y (from the bottom), like touchDragged.
+	 *
+	 * @param x
+	 * @param y
+	 * @param pointer
+	 * @return true if the pointer had pressed an element.
+	 */
+	public boolean pointerDragged(float x, float y, int pointer) {
+		if (pointer >= MAX_POINTERS) {
+			return false;
+		}
+		GuiElement item = captured[pointer];
+		if (item == null) {
+			setOver(pointer, hit(x, y));
+			return false;
+		}
+		// While captured, the pointer can only be over the element that has it.
+		setOver(pointer, item.isTouchingElement(x, y) ? item : null);
+		item.touchDragged(x, y);
+		return true;
+	}
+
+	/**
+	 * Moves the mouse to x, y (from the bottom), like mouseMoved.
+	 *
+	 * @param x
+	 * @param y
+	 */
+	public void pointerMoved(float x, float y) {
+		setOver(0, hit(x, y));
+	}
+
+	/**
+	 * Sends exit to the element the pointer was over and enter to the new one, if they are different.
+	 */
+	private void setOver(int pointer, GuiElement item) {
+		GuiElement last = over[pointer];
+		if (last == item) {
+			return;
+		}
+		over[pointer] = item;
+		if (last != null) {
+			last.exit();
+		}
+		if (item != null) {
+			item.enter();
+		}
+	}
 }
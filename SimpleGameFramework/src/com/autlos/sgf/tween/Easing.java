@@ -0,0 +1,147 @@
+package com.autlos.sgf.tween;
+
+import com.badlogic.gdx.math.MathUtils;
+
+/**
+ * Easing functions for {@link Tween}s. They take the time of the tween, from 0 to 1, and return how far the value is, 0 being the start
+ * value and 1 the end value. Some of them go below 0 or above 1 (BACK, ELASTIC).
+ *
+ * @author Autlos
+ *
+ */
+public abstract class Easing {
+
+	public abstract float apply(float t);
+
+	public static final Easing LINEAR = new Easing() {
+		@Override
+		public float apply(float t) {
+			return t;
+		}
+	};
+
+	public static final Easing QUAD_IN = new Easing() {
+		@Override
+		public float apply(float t) {
+			return t * t;
+		}
+	};
+
+	public static final Easing QUAD_OUT = new Easing() {
+		@Override
+		public float apply(float t) {
+			return t * (2 - t);
+		}
+	};
+
+	public static final Easing QUAD_IN_OUT = new Easing() {
+		@Override
+		public float apply(float t) {
+			if (t < 0.5f) {
+				return 2 * t * t;
+			}
+			return -1 + (4 - 2 * t) * t;
+		}
+	};
+
+	public static final Easing CUBIC_IN = new Easing() {
+		@Override
+		public float apply(float t) {
+			return t * t * t;
+		}
+	};
+
+	public static final Easing CUBIC_OUT = new Easing() {
+		@Override
+		public float apply(float t) {
+			t -= 1;
+			return t * t * t + 1;
+		}
+	};
+
+	public static final Easing CUBIC_IN_OUT = new Easing() {
+		@Override
+		public float apply(float t) {
+			if (t < 0.5f) {
+				return 4 * t * t * t;
+			}
+			t = 2 * t - 2;
+			return t * t * t / 2 + 1;
+		}
+	};
+
+	public static final Easing SINE_IN = new Easing() {
+		@Override
+		public float apply(float t) {
+			return 1 - MathUtils.cos(t * MathUtils.PI / 2);
+		}
+	};
+
+	public static final Easing SINE_OUT = new Easing() {
+		@Override
+		public float apply(float t) {
+			return MathUtils.sin(t * MathUtils.PI / 2);
+		}
+	};
+
+	public static final Easing SINE_IN_OUT = new Easing() {
+		@Override
+		public float apply(float t) {
+			return (1 - MathUtils.cos(t * MathUtils.PI)) / 2;
+		}
+	};
+
+	/**
+	 * Goes back a bit before going to the end value.
+	 */
+	public static final Easing BACK_IN = new Easing() {
+		@Override
+		public float apply(float t) {
+			return t * t * (2.70158f * t - 1.70158f);
+		}
+	};
+
+	/**
+	 * Goes a bit further than the end value and comes back, i.e a menu sliding in.
+	 */
+	public static final Easing BACK_OUT = new Easing() {
+		@Override
+		public float apply(float t) {
+			t -= 1;
+			return t * t * (2.70158f * t + 1.70158f) + 1;
+		}
+	};
+
+	/**
+	 * Bounces around the end value, i.e a button popping.
+	 */
+	public static final Easing ELASTIC_OUT = new Easing() {
+		@Override
+		public float apply(float t) {
+			if (t == 0 || t == 1) {
+				return t;
+			}
+			return (float) Math.pow(2, -10 * t) * MathUtils.sin((t - 0.075f) * MathUtils.PI2 / 0.3f) + 1;
+		}
+	};
+
+	/**
+	 * Bounces on the end value, like a falling ball.
+	 */
+	public static final Easing BOUNCE_OUT = new Easing() {
+		@Override
+		public float apply(float t) {
+			if (t < 1 / 2.75f) {
+				return 7.5625f * t * t;
+			} else if (t < 2 / 2.75f) {
+				t -= 1.5f / 2.75f;
+				return 7.5625f * t * t + 0.75f;
+			} else if (t < 2.5f / 2.75f) {
+				t -= 2.25f / 2.75f;
+				return 7.5625f * t * t + 0.9375f;
+			}
+			t -= 2.625f / 2.75f;
+			return 7.5625f * t * t + 0.984375f;
+		}
+	};
+}
@@ -0,0 +1,650 @@
+package com.autlos.sgf.tween;
+
+import com.autlos.sgf.models.Entity;
+import com.badlogic.gdx.graphics.Color;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool.Poolable;
+
+/**
+ * Animates a property of an {@link Entity} (position, rotation, draw scale, size, tint or alpha) from it's current value to a target value,
+ * or a group of tweens played one after the other (sequence) or at the same time (parallel). Tweens are obtained from a
+ * {@link TweenManager}, which updates and frees them, so a tween must not be used after it finishes or is killed. Setters can be chained:
+ *
+ * <pre>
+ * manager.to(button, Tween.SCALE, 0.1f).target(1.2f, 1.2f).ease(Easing.QUAD_OUT).repeat(1, true);
+ *
+ * Tween menu = manager.sequence();
+ * menu.then(panel, Tween.POSITION_X, 0.3f).target(0f).ease(Easing.BACK_OUT);
+ * menu.then(panel, Tween.ALPHA, 0.2f).from(0f).target(1f);
+ * </pre>
+ *
+ * The start values are read from the target when the tween starts (after it's delay), unless they are set with {@code from}.
+ *
+ * @author Autlos
+ *
+ */
+public class Tween implements Poolable {
+	/**
+	 * Called when a tween finishes (but not when it is killed).
+	 */
+	public static interface Listener {
+		public void onComplete(Tween tween);
+	}
+
+	// Tween types (the property animated) and the values they take:
+	/** A pause, used in sequences. */
+	public static final int NONE = 0;
+	/** x, y */
+	public static final int POSITION = 1;
+	/** x */
+	public static final int POSITION_X = 2;
+	/** y */
+	public static final int POSITION_Y = 3;
+	/** degrees */
+	public static final int ROTATION = 4;
+	/** draw scale x, y. It doesn't change the bounds. */
+	public static final int SCALE = 5;
+	/** width */
+	public static final int WIDTH = 6;
+	/** height */
+	public static final int HEIGHT = 7;
+	/** width, height */
+	public static final int SIZE = 8;
+	/** r, g, b of the tint. The alpha is kept. */
+	public static final int COLOR = 9;
+	/** alpha of the tint. The RGB is kept. */
+	public static final int ALPHA = 10;
+	/** r, g, b, a of the tint. */
+	public static final int TINT = 11;
+
+	public static final int REPEAT_FOREVER = -1;
+
+	private static final int TWEEN = 0;
+	private static final int SEQUENCE = 1;
+	private static final int PARALLEL = 2;
+
+	TweenManager manager;
+	private int kind;
+
+	private Entity target;
+	private int type;
+	private int count;
+	private final float[] start = new float[4];
+	private final float[] end = new float[4];
+	// Values given with target(), added to the start values if relative.
+	private final float[] values = new float[4];
+	// Values given with from().
+	private final float[] fromValues = new float[4];
+	private final float[] current = new float[4];
+	private boolean relative;
+	private boolean fromSet;
+
+	private float duration;
+	private float delay;
+	private float delayLeft;
+	private float time;
+	private Easing easing = Easing.LINEAR;
+	private int repeat;
+	private int iteration;
+	private boolean yoyo;
+
+	private boolean started;
+	boolean finished;
+	boolean killed;
+	private Listener listener;
+	private Object userData;
+
+	// Tweens of a sequence or parallel. They are reused with the tween.
+	private final Array<Tween> children = new Array<Tween>();
+	private int currentChild;
+
+	void setup(Entity target, int type, float duration) {
+		kind = TWEEN;
+		this.target = target;
+		this.type = type;
+		this.duration = duration;
+		count = valuesOf(type);
+	}
+
+	void setupGroup(boolean sequence) {
+		kind = sequence ? SEQUENCE : PARALLEL;
+	}
+
+	/*********** SETTERS ***********/
+
+	/**
+	 * Sets the value to animate to (for POSITION_X, ROTATION, WIDTH, HEIGHT and ALPHA).
+	 */
+	public Tween target(float value) {
+		values[0] = value;
+		return this;
+	}
+
+	/**
+	 * Sets the values to animate to (for POSITION, SCALE and SIZE).
+	 */
+	public Tween target(float value1, float value2) {
+		values[0] = value1;
+		values[1] = value2;
+		return this;
+	}
+
+	/**
+	 * Sets the values to animate to (for COLOR).
+	 */
+	public Tween target(float value1, float value2, float value3) {
+		values[0] = value1;
+		values[1] = value2;
+		values[2] = value3;
+		return this;
+	}
+
+	/**
+	 * Sets the values to animate to (for TINT).
+	 */
+	public Tween target(float value1, float value2, float value3, float value4) {
+		values[0] = value1;
+		values[1] = value2;
+		values[2] = value3;
+		values[3] = value4;
+		return this;
+	}
+
+	/**
+	 * Sets the color to animate to (for COLOR and TINT).
+	 */
+	public Tween target(Color color) {
+		return target(color.r, color.g, color.b, color.a);
+	}
+
+	/**
+	 * The target values will be added to the start values, i.e {@code target(0f, 50f).relative()} moves the entity 50 up.
+	 */
+	public Tween relative() {
+		relative = true;
+		return this;
+	}
+
+	/**
+	 * Sets the value to animate from, instead of the value the target has when the tween starts.
+	 */
+	public Tween from(float value) {
+		fromValues[0] = value;
+		fromSet = true;
+		return this;
+	}
+
+	/**
+	 * Sets the values to animate from, instead of the values the target has when the tween starts.
+	 */
+	public Tween from(float value1, float value2) {
+		fromValues[0] = value1;
+		fromValues[1] = value2;
+		fromSet = true;
+		return this;
+	}
+
+	/**
+	 * Sets the values to animate from, instead of the values the target has when the tween starts.
+	 */
+	public Tween from(float value1, float value2, float value3, float value4) {
+		fromValues[0] = value1;
+		fromValues[1] = value2;
+		fromValues[2] = value3;
+		fromValues[3] = value4;
+		fromSet = true;
+		return this;
+	}
+
+	/**
+	 * @param easing
+	 *           LINEAR by default.
+	 */
+	public Tween ease(Easing easing) {
+		this.easing = easing;
+		return this;
+	}
+
+	/**
+	 * @param delay
+	 *           seconds before the tween starts.
+	 */
+	public Tween delay(float delay) {
+		this.delay = delay;
+		this.delayLeft = delay;
+		return this;
+	}
+
+	/**
+	 * Plays the tween again when it finishes.
+	 *
+	 * @param times
+	 *           times it is played again, or REPEAT_FOREVER.
+	 * @param yoyo
+	 *           if true it goes back and forth, i.e {@code repeat(1, true)} for a button going big and back. Only for tweens, groups always
+	 *           start again.
+	 */
+	public Tween repeat(int times, boolean yoyo) {
+		this.repeat = times;
+		this.yoyo = yoyo;
+		return this;
+	}
+
+	public Tween setListener(Listener listener) {
+		this.listener = listener;
+		return this;
+	}
+
+	public Tween setUserData(Object userData) {
+		this.userData = userData;
+		return this;
+	}
+
+	public Object getUserData() {
+		return userData;
+	}
+
+	/*********** GROUPS ***********/
+
+	/**
+	 * Adds a tween to this sequence or parallel.
+	 *
+	 * @return the new tween, to set it's values.
+	 */
+	public Tween then(Entity target, int type, float duration) {
+		Tween tween = manager.obtain();
+		tween.setup(target, type, duration);
+		children.add(tween);
+		return tween;
+	}
+
+	/**
+	 * Adds a pause to this sequence.
+	 *
+	 * @param duration
+	 * @return this group
+	 */
+	public Tween pause(float duration) {
+		then(null, NONE, duration);
+		return this;
+	}
+
+	/**
+	 * Adds a sequence to this group, i.e to play some tweens one after the other inside a parallel.
+	 *
+	 * @return the new sequence
+	 */
+	public Tween thenSequence() {
+		Tween tween = manager.obtain();
+		tween.setupGroup(true);
+		children.add(tween);
+		return tween;
+	}
+
+	/**
+	 * Adds a parallel to this group, i.e to play some tweens at the same time inside a sequence.
+	 *
+	 * @return the new parallel
+	 */
+	public Tween thenParallel() {
+		Tween tween = manager.obtain();
+		tween.setupGroup(false);
+		children.add(tween);
+		return tween;
+	}
+
+	/*********** STATE ***********/
+
+	/**
+	 * Stops the tween where it is. It will be freed in the next update of the manager.
+	 */
+	public void kill() {
+		killed = true;
+	}
+
+	public boolean isFinished() {
+		return finished;
+	}
+
+	public Entity getTarget() {
+		return target;
+	}
+
+	public int getType() {
+		return type;
+	}
+
+	/**
+	 * @param entity
+	 * @return true if the tween, or any tween of the group, animates the entity.
+	 */
+	public boolean targets(Entity entity) {
+		if (kind == TWEEN) {
+			return target == entity;
+		}
+		for (int i = 0; i < children.size; i++) {
+			if (children.get(i).targets(entity)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/*********** UPDATE ***********/
+
+	/**
+	 * Advances the tween.
+	 *
+	 * @param delta
+	 * @return the time left of delta if the tween finished in this update, -1 if it is still running.
+	 */
+	float update(float delta) {
+		if (finished || killed) {
+			return delta;
+		}
+		if (delayLeft > 0) {
+			delayLeft -= delta;
+			if (delayLeft > 0) {
+				return -1f;
+			}
+			delta = -delayLeft;
+			delayLeft = 0;
+		}
+		if (!started) {
+			started = true;
+			begin();
+		}
+
+		float left;
+		if (kind == TWEEN) {
+			left = updateTween(delta);
+		} else if (kind == SEQUENCE) {
+			left = updateSequence(delta);
+		} else {
+			left = updateParallel(delta);
+		}
+
+		if (left >= 0) {
+			finished = true;
+			if (listener != null) {
+				listener.onComplete(this);
+			}
+		}
+		return left;
+	}
+
+	private float updateTween(float delta) {
+		time += delta;
+		while (true) {
+			if (time < duration) {
+				apply(time / duration);
+				return -1f;
+			}
+			if (duration > 0 && (repeat == REPEAT_FOREVER || iteration < repeat)) {
+				iteration++;
+				time -= duration;
+				if (yoyo) {
+					swapValues();
+				}
+				continue;
+			}
+			apply(1f);
+			return time - duration;
+		}
+	}
+
+	private float updateSequence(float delta) {
+		while (true) {
+			float before = delta;
+			while (currentChild < children.size) {
+				delta = children.get(currentChild).update(delta);
+				if (delta < 0) {
+					return -1f;
+				}
+				currentChild++;
+			}
+			if (!repeatGroup()) {
+				return delta;
+			}
+			if (delta >= before) {
+				// Nothing takes time, don't repeat it more than once per update.
+				return -1f;
+			}
+		}
+	}
+
+	private float updateParallel(float delta) {
+		while (true) {
+			boolean running = false;
+			float left = delta;
+			for (int i = 0; i < children.size; i++) {
+				Tween child = children.get(i);
+				if (!child.finished) {
+					float childLeft = child.update(delta);
+					if (childLeft < 0) {
+						running = true;
+					} else if (childLeft < left) {
+						left = childLeft;
+					}
+				}
+			}
+			if (running) {
+				return -1f;
+			}
+			if (!repeatGroup()) {
+				return left;
+			}
+			if (left >= delta) {
+				// Nothing takes time, don't repeat it more than once per update.
+				return -1f;
+			}
+			delta = left;
+		}
+	}
+
+	/**
+	 * Starts the children again if the group repeats.
+	 *
+	 * @return false if it doesn't.
+	 */
+	private boolean repeatGroup() {
+		if (children.size == 0 || (repeat != REPEAT_FOREVER && iteration >= repeat)) {
+			return false;
+		}
+		iteration++;
+		currentChild = 0;
+		for (int i = 0; i < children.size; i++) {
+			children.get(i).restart();
+		}
+		return true;
+	}
+
+	private void restart() {
+		started = false;
+		finished = false;
+		delayLeft = delay;
+		time = 0f;
+		iteration = 0;
+		currentChild = 0;
+		for (int i = 0; i < children.size; i++) {
+			children.get(i).restart();
+		}
+	}
+
+	/**
+	 * Reads the start values (if not set) and calculates the end values.
+	 */
+	private void begin() {
+		if (kind != TWEEN || target == null) {
+			return;
+		}
+		if (fromSet) {
+			System.arraycopy(fromValues, 0, start, 0, count);
+		} else {
+			read(start);
+		}
+		for (int i = 0; i < count; i++) {
+			end[i] = relative ? start[i] + values[i] : values[i];
+		}
+	}
+
+	private void swapValues() {
+		for (int i = 0; i < count; i++) {
+			float temp = start[i];
+			start[i] = end[i];
+			end[i] = temp;
+		}
+	}
+
+	private void apply(float t) {
+		if (target == null) {
+			return;
+		}
+		float e = easing.apply(t);
+		for (int i = 0; i < count; i++) {
+			current[i] = start[i] + (end[i] - start[i]) * e;
+		}
+		write(current);
+	}
+
+	private static int valuesOf(int type) {
+		switch (type) {
+		case POSITION:
+		case SCALE:
+		case SIZE:
+			return 2;
+		case COLOR:
+			return 3;
+		case TINT:
+			return 4;
+		case NONE:
+			return 0;
+		default:
+			return 1;
+		}
+	}
+
+	private void read(float[] values) {
+		Color color = target.getColor();
+		switch (type) {
+		case POSITION:
+			values[0] = target.getPosition().x;
+			values[1] = target.getPosition().y;
+			break;
+		case POSITION_X:
+			values[0] = target.getPosition().x;
+			break;
+		case POSITION_Y:
+			values[0] = target.getPosition().y;
+			break;
+		case ROTATION:
+			values[0] = target.getRotation();
+			break;
+		case SCALE:
+			values[0] = target.getDrawScaleX();
+			values[1] = target.getDrawScaleY();
+			break;
+		case WIDTH:
+			values[0] = target.getWidth();
+			break;
+		case HEIGHT:
+			values[0] = target.getHeight();
+			break;
+		case SIZE:
+			values[0] = target.getWidth();
+			values[1] = target.getHeight();
+			break;
+		case COLOR:
+			values[0] = color.r;
+			values[1] = color.g;
+			values[2] = color.b;
+			break;
+		case ALPHA:
+			values[0] = color.a;
+			break;
+		case TINT:
+			values[0] = color.r;
+			values[1] = color.g;
+			values[2] = color.b;
+			values[3] = color.a;
+			break;
+		}
+	}
+
+	private void write(float[] values) {
+		switch (type) {
+		case POSITION:
+			target.setPosition(values[0], values[1]);
+			target.updateBounds();
+			break;
+		case POSITION_X:
+			target.setPosition(values[0], target.getPosition().y);
+			target.updateBounds();
+			break;
+		case POSITION_Y:
+			target.setPosition(target.getPosition().x, values[0]);
+			target.updateBounds();
+			break;
+		case ROTATION:
+			target.setRotation(values[0]);
+			break;
+		case SCALE:
+			target.setDrawScale(values[0], values[1]);
+			break;
+		case WIDTH:
+			target.setWidth(values[0], false);
+			target.updateBounds();
+			break;
+		case HEIGHT:
+			target.setHeight(values[0], false);
+			target.updateBounds();
+			break;
+		case SIZE:
+			target.setWidth(values[0], false);
+			target.setHeight(values[1], false);
+			target.updateBounds();
+			break;
+		case COLOR:
+			target.setColor(values[0], values[1], values[2], target.getColor().a);
+			break;
+		case ALPHA:
+			target.setAlpha(values[0]);
+			break;
+		case TINT:
+			target.setColor(values[0], values[1], values[2], values[3]);
+			break;
+		}
+	}
+
+	/**
+	 * The children are freed by the manager before the tween.
+	 */
+	@Override
+	public void reset() {
+		manager = null;
+		target = null;
+		type = NONE;
+		count = 0;
+		relative = false;
+		fromSet = false;
+		duration = 0f;
+		delay = 0f;
+		delayLeft = 0f;
+		time = 0f;
+		easing = Easing.LINEAR;
+		repeat = 0;
+		iteration = 0;
+		yoyo = false;
+		started = false;
+		finished = false;
+		killed = false;
+		listener = null;
+		userData = null;
+		children.clear();
+		currentChild = 0;
+	}
+
+	Array<Tween> getChildren() {
+		return children;
+	}
+}
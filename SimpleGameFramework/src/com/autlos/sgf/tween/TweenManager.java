@@ -0,0 +1,176 @@
+package com.autlos.sgf.tween;
+
+import com.autlos.sgf.metrics.HitRate;
+import com.autlos.sgf.metrics.MetricsRegistry;
+import com.autlos.sgf.models.Entity;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool;
+
+/**
+ * Creates, updates and frees {@link Tween}s. Every running tween is advanced in a single {@code update(delta)}, and tweens are pooled
+ * (with the arrays of their groups), so once the pool is warm, starting and finishing tweens doesn't allocate anything.
+ *
+ * @author Autlos
+ *
+ */
+public class TweenManager {
+	private final Pool<Tween> pool;
+	// Running tweens and groups. Their children are updated by them.
+	private final Array<Tween> tweens;
+	// Hits of the pool, null if not exported.
+	private HitRate poolMetric;
+
+	public TweenManager() {
+		this(32);
+	}
+
+	/**
+	 * @param initialCapacity
+	 *           tweens expected to be running at the same time.
+	 */
+	public TweenManager(int initialCapacity) {
+		pool = new Pool<Tween>(initialCapacity) {
+			@Override
+			protected Tween newObject() {
+				return new Tween();
+			}
+		};
+		tweens = new Array<Tween>(false, initialCapacity);
+	}
+
+	/**
+	 * Starts a tween of a property of the target. Set the values with the returned tween.
+	 *
+	 * @param target
+	 * @param type
+	 *           the property, i.e {@code Tween.POSITION}.
+	 * @param duration
+	 *           in seconds.
+	 * @return the tween
+	 */
+	public Tween to(Entity target, int type, float duration) {
+		Tween tween = obtain();
+		tween.setup(target, type, duration);
+		tweens.add(tween);
+		return tween;
+	}
+
+	/**
+	 * Starts a sequence. Add the tweens to it with {@code then}, they will be played one after the other.
+	 *
+	 * @return the sequence
+	 */
+	public Tween sequence() {
+		Tween tween = obtain();
+		tween.setupGroup(true);
+		tweens.add(tween);
+		return tween;
+	}
+
+	/**
+	 * Starts a parallel. Add the tweens to it with {@code then}, they will be played at the same time.
+	 *
+	 * @return the parallel
+	 */
+	public Tween parallel() {
+		Tween tween = obtain();
+		tween.setupGroup(false);
+		tweens.add(tween);
+		return tween;
+	}
+
+	/**
+	 * Advances every running tween, and frees the ones finished or killed.
+	 *
+	 * @param delta
+	 */
+	public void update(float delta) {
+		// Backwards, so removing does not skip anything. Tweens started by listeners are updated from the next frame.
+		for (int i = tweens.size - 1; i >= 0; i--) {
+			Tween tween = tweens.get(i);
+			if (!tween.killed) {
+				tween.update(delta);
+			}
+			if (tween.finished || tween.killed) {
+				tweens.removeIndex(i);
+				free(tween);
+			}
+		}
+	}
+
+	/**
+	 * Kills every tween (or group with a tween) of the target.
+	 *
+	 * @param target
+	 */
+	public void killTweensOf(Entity target) {
+		for (int i = 0; i < tweens.size; i++) {
+			Tween tween = tweens.get(i);
+			if (tween.targets(target)) {
+				tween.kill();
+			}
+		}
+	}
+
+	/**
+	 * @param target
+	 * @return true if a running tween (or group) animates the target.
+	 */
+	public boolean isTweening(Entity target) {
+		for (int i = 0; i < tweens.size; i++) {
+			Tween tween = tweens.get(i);
+			if (!tween.killed && !tween.finished && tween.targets(target)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Kills and frees every tween.
+	 */
+	public void clear() {
+		for (int i = tweens.size - 1; i >= 0; i--) {
+			free(tweens.get(i));
+		}
+		tweens.clear();
+	}
+
+	/**
+	 * @return the running tweens and groups (without counting the tweens inside groups).
+	 */
+	public int size() {
+		return tweens.size;
+	}
+
+	public int getFreeCount() {
+		return pool.getFree();
+	}
+
+	/**
+	 * Exports the hit rate of the pool of tweens as "pool.tweens".
+	 *
+	 * @param metrics
+	 *           null to stop exporting.
+	 */
+	public void setMetrics(MetricsRegistry metrics) {
+		poolMetric = metrics != null ? metrics.hitRate("pool.tweens") : null;
+	}
+
+	Tween obtain() {
+		if (poolMetric != null) {
+			poolMetric.record(pool.getFree() > 0);
+		}
+		Tween tween = pool.obtain();
+		tween.manager = this;
+		return tween;
+	}
+
+	private void free(Tween tween) {
+		Array<Tween> children = tween.getChildren();
+		for (int i = 0; i < children.size; i++) {
+			free(children.get(i));
+		}
+		pool.free(tween);
+	}
+}
@@ -0,0 +1,116 @@
+package com.autlos.sgf.ui;
+
+/**
+ * A cell of a {@link Table}: the item, the row and column it's in, how many columns and rows it takes, it's padding and how the item is
+ * aligned inside it. The setters return the cell so they can be chained, i.e {@code table.addColumn(label).colspan(2).pad(5f)}.
+ *
+ * @author Autlos
+ *
+ */
+public class Cell {
+	public static enum ALIGNMENT_X {
+		LEFT, CENTER, RIGHT
+	}
+
+	public static enum ALIGNMENT_Y {
+		TOP, CENTER, BOTTOM
+	}
+
+	final Table table;
+	final ITableItem item;
+
+	// Set by the table when the cells are placed in the grid.
+	int row;
+	int column;
+	// true if this cell starts a new row.
+	boolean newRow;
+
+	int colspan = 1;
+	int rowspan = 1;
+	float padTop, padLeft, padBottom, padRight;
+	ALIGNMENT_X alignX;
+	ALIGNMENT_Y alignY = ALIGNMENT_Y.CENTER;
+
+	// Size of the item the last time it was measured.
+	float itemWidth;
+	float itemHeight;
+	// Position given to the item the last time it was placed (bottom-left).
+	float itemX = Float.NaN;
+	float itemY = Float.NaN;
+	// The item's size has to be measured again.
+	boolean dirty = true;
+
+	Cell(Table table, ITableItem item) {
+		this.table = table;
+		this.item = item;
+	}
+
+	public Cell colspan(int colspan) {
+		this.colspan = Math.max(1, colspan);
+		table.invalidateStructure();
+		return this;
+	}
+
+	public Cell rowspan(int rowspan) {
+		this.rowspan = Math.max(1, rowspan);
+		table.invalidateStructure();
+		return this;
+	}
+
+	/**
+	 * Sets the same padding on every side.
+	 *
+	 * @param pad
+	 * @return this cell
+	 */
+	public Cell pad(float pad) {
+		return pad(pad, pad, pad, pad);
+	}
+
+	public Cell pad(float top, float left, float bottom, float right) {
+		padTop = top;
+		padLeft = left;
+		padBottom = bottom;
+		padRight = right;
+		table.invalidateStructure();
+		return this;
+	}
+
+	/**
+	 * Horizontal alignment of the item inside the cell. If not set, the table's alignment is used.
+	 *
+	 * @param alignX
+	 * @return this cell
+	 */
+	public Cell alignX(ALIGNMENT_X alignX) {
+		this.alignX = alignX;
+		table.invalidateStructure();
+		return this;
+	}
+
+	/**
+	 * Vertical alignment of the item inside the cell. CENTER by default.
+	 *
+	 * @param alignY
+	 * @return this cell
+	 */
+	public Cell alignY(ALIGNMENT_Y alignY) {
+		this.alignY = alignY;
+		table.invalidateStructure();
+		return this;
+	}
+
+	public ITableItem getItem() {
+		return item;
+	}
+
+	public int getRow() {
+		table.validate();
+		return row;
+	}
+
+	public int getColumn() {
+		table.validate();
+		return column;
+	}
+}
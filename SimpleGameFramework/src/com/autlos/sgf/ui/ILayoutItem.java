@@ -0,0 +1,23 @@
+package com.autlos.sgf.ui;
+
+import com.autlos.sgf.RenderQueue;
+
+/**
+ * An ITableItem that tells the {@link Table} when it's size changes, and can be drawn into a {@link RenderQueue}. The items of the
+ * framework (BasicLabel, GuiElement, Table) are ILayoutItems. The table has to check the size of the other items every time it's laid
+ * out, and they can't be drawn with {@code drawTable(RenderQueue, int)}.
+ *
+ * @author Autlos
+ *
+ */
+public interface ILayoutItem extends ITableItem {
+	public void draw(RenderQueue queue, int layer);
+
+	/**
+	 * Called by the {@link Table} the item is added to (null when removed). The item must call {@code table.invalidate(this)} when it's
+	 * size changes, so the table lays it out again.
+	 * 
+	 * @param table
+	 */
+	public void setTable(Table table);
+}
@@ -4,6 +4,13 @@ import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
 import com.badlogic.gdx.math.Vector2;
 
+/**
+ * Something a {@link Table} can lay out and draw with a SpriteBatch. To be drawn into a RenderQueue with
+ * {@code Table.drawTable(RenderQueue, int)}, it has to be an {@link ILayoutItem}.
+ *
+ * @author Autlos
+ *
+ */
 public interface ITableItem {
 	public void draw(SpriteBatch batch);
 	
@@ -1,13 +1,39 @@
 package com.autlos.sgf.ui;
 
+import com.autlos.sgf.RenderQueue;
+import com.autlos.sgf.WorldCamera;
+import com.autlos.sgf.ui.Cell.ALIGNMENT_X;
+import com.autlos.sgf.ui.Cell.ALIGNMENT_Y;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.graphics.glutils.ShapeRenderer;
+import com.badlogic.gdx.math.Rectangle;
 import com.badlogic.gdx.math.Vector2;
 import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
 
-public class Table {
+/**
+ * Lays out items in rows and columns, going down from it's position (the top-left corner). {@code addRow} starts a new row with the item,
+ * {@code addColumn} puts the item in the next column of the current row. Spans, padding and alignment can be set with {@code getCell}.
+ * <p>
+ * The layout is not done when items are added, but when the table is drawn (or it's size or position are asked), and only for what has
+ * changed: items tell the table when their size changes, and only those are measured again. The rest of the items are only moved if a
+ * row or column has changed it's size. Items that are not {@link ILayoutItem}s can't tell it, so their size is checked at each layout.
+ * A Table is an ITableItem too, so tables can be nested.
+ * <p>
+ * Any ITableItem can be drawn with a SpriteBatch, but {@code drawTable(RenderQueue, int)} needs every item (laid out or added with
+ * {@code addItem}) to be an {@link ILayoutItem}, and throws otherwise.
+ *
+ * @author Autlos
+ *
+ */
+public class Table implements ILayoutItem {
+	// Top-left corner of the table.
 	private Vector2 position;
+	// Bottom-left corner, for getPosition().
+	private Vector2 bottomLeft;
+	// Area of the table, used to center it.
 	private float width;
 	private float height;
 	private float separationX = 15f;
@@ -15,74 +41,532 @@ public class Table {
 	private float scaleX = 1f;
 	private float scaleY = 1f;
 	private boolean visible = true;
+	private boolean centerX;
 
+	// Every item, in drawing order.
 	Array<ITableItem> items;
+	// Items in the grid (not the ones added with addItem), in the order they were added.
+	private final Array<Cell> cells;
+	private final ObjectMap<ITableItem, Cell> cellsByItem;
+	private final Array<Cell> dirtyCells;
+	// Cells of items that are not ILayoutItems, whose size is checked at each layout.
+	private final Array<Cell> polledCells;
+	// The table this table is in, if any.
+	private Table table;
+
+	// What has to be done in the next layout.
+	private boolean needsLayout = true;
+	private boolean structureDirty = true;
+	private boolean positionDirty;
+
+	// The grid, as calculated by the last layout.
+	private int rows;
+	private int columns;
+	private float[] columnWidths = new float[4];
+	private float[] rowHeights = new float[4];
+	private float[] columnX = new float[5];
+	private float[] rowTop = new float[5];
+	private int[] occupiedUntil = new int[4];
+	private float gridWidth;
+	private float gridHeight;
 
 	public Table(Vector2 position) {
 		this.position = position;
+		bottomLeft = new Vector2();
 		items = new Array<ITableItem>();
-		width = Gdx.graphics.getWidth();
-		height = Gdx.graphics.getHeight();
+		cells = new Array<Cell>();
+		cellsByItem = new ObjectMap<ITableItem, Cell>();
+		dirtyCells = new Array<Cell>(false, 16);
+		polledCells = new Array<Cell>(false, 4);
+		// The size of the screen by default. Without a backend (i.e in the checks) there is none, and the size has to be set.
+		if (Gdx.graphics != null) {
+			width = Gdx.graphics.getWidth();
+			height = Gdx.graphics.getHeight();
+		}
 	}
 
 	public Table() {
 		this(new Vector2(0f, 0f));
 	}
 
+	/**
+	 * Adds an item that is drawn with the table but not laid out: it keeps it's position.
+	 *
+	 * @param item
+	 * @return the item
+	 */
 	public ITableItem addItem(ITableItem item) {
 		items.add(item);
 		return item;
 	}
 
+	/**
+	 * Adds the item at the first column of a new row.
+	 *
+	 * @param item
+	 * @return the item
+	 */
 	public ITableItem addRow(ITableItem item) {
-		if (items.size == 0) {
-			item.setPosition(position.x + separationX, position.y - separationY);
-		} else {
-			ITableItem last = items.get(items.size - 1);
-			float y = last.getPosition().y - item.getHeight() - separationY;
-			item.setPosition(last.getPosition().x, y);
-		}
-
-		items.add(item);
+		addCell(item).newRow = true;
 		return item;
 	}
 
+	/**
+	 * Adds the item at the next column of the current row.
+	 *
+	 * @param item
+	 * @return the item
+	 */
 	public ITableItem addColumn(ITableItem item) {
-		float posY = 0;
-		float posX = 0;
-		if (items.size == 0) {
-			posY = position.y;
-			posX = position.x;
+		addCell(item);
+		return item;
+	}
+
+	private Cell addCell(ITableItem item) {
+		Cell cell = new Cell(this, item);
+		cells.add(cell);
+		cellsByItem.put(item, cell);
+		items.add(item);
+		if (item instanceof ILayoutItem) {
+			((ILayoutItem) item).setTable(this);
 		} else {
-			ITableItem last = items.get(items.size - 1);
-			posY = last.getPosition().y;
-			posX = last.getPosition().x + last.getWidth() + separationX;
+			polledCells.add(cell);
 		}
-		item.setPosition(posX, posY);
-		items.add(item);
+		invalidateStructure();
+		return cell;
+	}
 
-		return item;
+	/**
+	 * @param item
+	 * @return the cell of the item, to set it's span, padding or alignment. null if the item is not in the grid.
+	 */
+	public Cell getCell(ITableItem item) {
+		return cellsByItem.get(item);
 	}
 
-	public void alignCenterX(){
-		for(ITableItem item : items){
-			float posX = width / 2 - item.getWidth() / 2;
-			item.setPositionX(posX);
+	/**
+	 * Removes the item from the table.
+	 *
+	 * @param item
+	 * @return false if the item was not in the table.
+	 */
+	public boolean removeItem(ITableItem item) {
+		if (!items.removeValue(item, true)) {
+			return false;
 		}
+		Cell cell = cellsByItem.remove(item);
+		if (cell != null) {
+			// The next item takes it's place at the start of the row.
+			int index = cells.indexOf(cell, true);
+			if (cell.newRow && index + 1 < cells.size) {
+				cells.get(index + 1).newRow = true;
+			}
+			cells.removeIndex(index);
+			dirtyCells.removeValue(cell, true);
+			if (item instanceof ILayoutItem) {
+				((ILayoutItem) item).setTable(null);
+			} else {
+				polledCells.removeValue(cell, true);
+			}
+			invalidateStructure();
+		}
+		return true;
 	}
-	
+
+	/**
+	 * Centers the items horizontally in the table's width.
+	 */
+	public void alignCenterX() {
+		centerX = true;
+		invalidateStructure();
+	}
+
 	public Array<ITableItem> getItems() {
 		return items;
 	}
 
+	/**
+	 * Tells the table the size of the item has changed. The item will be measured again in the next layout.
+	 *
+	 * @param item
+	 */
+	public void invalidate(ITableItem item) {
+		Cell cell = cellsByItem.get(item);
+		if (cell == null) {
+			return;
+		}
+		if (!cell.dirty) {
+			cell.dirty = true;
+			dirtyCells.add(cell);
+		}
+		invalidateHierarchy();
+	}
+
+	/**
+	 * Everything will be measured and placed again in the next layout.
+	 */
+	void invalidateStructure() {
+		structureDirty = true;
+		invalidateHierarchy();
+	}
+
+	private void invalidateHierarchy() {
+		needsLayout = true;
+		if (table != null) {
+			table.invalidate(this);
+		}
+	}
+
+	/**
+	 * Lays out what has changed since the last layout. It is called when the table is drawn, and when it's size or position are asked.
+	 */
+	public void validate() {
+		for (int i = 0; i < polledCells.size; i++) {
+			Cell cell = polledCells.get(i);
+			if (cell.item.getWidth() != cell.itemWidth || cell.item.getHeight() != cell.itemHeight) {
+				invalidate(cell.item);
+			}
+		}
+		if (!needsLayout) {
+			return;
+		}
+		needsLayout = false;
+
+		if (structureDirty) {
+			structureDirty = false;
+			assignCells();
+			for (int i = 0; i < cells.size; i++) {
+				Cell cell = cells.get(i);
+				if (cell.dirty) {
+					measureItem(cell);
+				}
+				cell.itemX = Float.NaN;
+			}
+			dirtyCells.clear();
+			measure();
+			placeAll();
+			positionDirty = false;
+			return;
+		}
+
+		// Only some items have changed their size. The grid has to be measured again only if they change a row or a column.
+		boolean gridChanged = false;
+		for (int i = 0; i < dirtyCells.size; i++) {
+			Cell cell = dirtyCells.get(i);
+			float oldWidth = cell.itemWidth + cell.padLeft + cell.padRight;
+			float oldHeight = cell.itemHeight + cell.padTop + cell.padBottom;
+			measureItem(cell);
+			if (cell.colspan != 1 || cell.rowspan != 1) {
+				gridChanged = true;
+				continue;
+			}
+			float newWidth = cell.itemWidth + cell.padLeft + cell.padRight;
+			float newHeight = cell.itemHeight + cell.padTop + cell.padBottom;
+			float columnWidth = columnWidths[cell.column];
+			float rowHeight = rowHeights[cell.row];
+			if (newWidth > columnWidth || (oldWidth == columnWidth && newWidth < oldWidth)) {
+				gridChanged = true;
+			}
+			if (newHeight > rowHeight || (oldHeight == rowHeight && newHeight < oldHeight)) {
+				gridChanged = true;
+			}
+		}
+
+		if (gridChanged) {
+			measure();
+			placeAll();
+		} else if (positionDirty) {
+			placeAll();
+		} else {
+			for (int i = 0; i < dirtyCells.size; i++) {
+				place(dirtyCells.get(i));
+			}
+		}
+		positionDirty = false;
+		dirtyCells.clear();
+	}
+
+	/**
+	 * Sets the row and column of every cell, skipping the columns taken by cells of upper rows with rowspan.
+	 */
+	private void assignCells() {
+		rows = 0;
+		columns = 0;
+		for (int i = 0; i < occupiedUntil.length; i++) {
+			occupiedUntil[i] = 0;
+		}
+
+		int row = -1;
+		int column = 0;
+		for (int i = 0; i < cells.size; i++) {
+			Cell cell = cells.get(i);
+			if (i == 0 || cell.newRow) {
+				row++;
+				column = 0;
+			}
+			while (column < occupiedUntil.length && occupiedUntil[column] > row) {
+				column++;
+			}
+			cell.row = row;
+			cell.column = column;
+
+			int end = column + cell.colspan;
+			if (end > occupiedUntil.length) {
+				int[] newOccupied = new int[Math.max(end, occupiedUntil.length * 2)];
+				System.arraycopy(occupiedUntil, 0, newOccupied, 0, occupiedUntil.length);
+				occupiedUntil = newOccupied;
+			}
+			for (int c = column; c < end; c++) {
+				occupiedUntil[c] = row + cell.rowspan;
+			}
+			column = end;
+			columns = Math.max(columns, end);
+			rows = Math.max(rows, row + cell.rowspan);
+		}
+
+		if (columnWidths.length < columns) {
+			columnWidths = new float[columns];
+			columnX = new float[columns + 1];
+		}
+		if (rowHeights.length < rows) {
+			rowHeights = new float[rows];
+			rowTop = new float[rows + 1];
+		}
+	}
+
+	private void measureItem(Cell cell) {
+		cell.itemWidth = cell.item.getWidth();
+		cell.itemHeight = cell.item.getHeight();
+		cell.dirty = false;
+		// The item has to be placed again even if the cell doesn't move.
+		cell.itemX = Float.NaN;
+	}
+
+	/**
+	 * Calculates the widths of the columns and the heights of the rows with the sizes of the items already measured.
+	 */
+	private void measure() {
+		for (int i = 0; i < columns; i++) {
+			columnWidths[i] = 0f;
+		}
+		for (int i = 0; i < rows; i++) {
+			rowHeights[i] = 0f;
+		}
+
+		for (int i = 0; i < cells.size; i++) {
+			Cell cell = cells.get(i);
+			if (cell.colspan == 1) {
+				columnWidths[cell.column] = Math.max(columnWidths[cell.column], cell.itemWidth + cell.padLeft + cell.padRight);
+			}
+			if (cell.rowspan == 1) {
+				rowHeights[cell.row] = Math.max(rowHeights[cell.row], cell.itemHeight + cell.padTop + cell.padBottom);
+			}
+		}
+
+		// Cells with span that don't fit in their columns/rows make them grow evenly.
+		for (int i = 0; i < cells.size; i++) {
+			Cell cell = cells.get(i);
+			if (cell.colspan > 1) {
+				float extra = cell.itemWidth + cell.padLeft + cell.padRight - spanWidth(cell);
+				if (extra > 0) {
+					for (int c = cell.column; c < cell.column + cell.colspan; c++) {
+						columnWidths[c] += extra / cell.colspan;
+					}
+				}
+			}
+			if (cell.rowspan > 1) {
+				float extra = cell.itemHeight + cell.padTop + cell.padBottom - spanHeight(cell);
+				if (extra > 0) {
+					for (int r = cell.row; r < cell.row + cell.rowspan; r++) {
+						rowHeights[r] += extra / cell.rowspan;
+					}
+				}
+			}
+		}
+
+		gridWidth = 0f;
+		for (int i = 0; i < columns; i++) {
+			gridWidth += columnWidths[i];
+		}
+		if (columns > 1) {
+			gridWidth += separationX * (columns - 1);
+		}
+		gridHeight = 0f;
+		for (int i = 0; i < rows; i++) {
+			gridHeight += rowHeights[i];
+		}
+		if (rows > 1) {
+			gridHeight += separationY * (rows - 1);
+		}
+	}
+
+	/**
+	 * Calculates where each column and row starts and places every item.
+	 */
+	private void placeAll() {
+		float startX;
+		if (centerX && table == null) {
+			startX = position.x + (width - gridWidth) / 2;
+		} else {
+			startX = position.x + separationX;
+		}
+		columnX[0] = startX;
+		for (int i = 0; i < columns; i++) {
+			columnX[i + 1] = columnX[i] + columnWidths[i] + separationX;
+		}
+		rowTop[0] = position.y - separationY;
+		for (int i = 0; i < rows; i++) {
+			rowTop[i + 1] = rowTop[i] - rowHeights[i] - separationY;
+		}
+
+		for (int i = 0; i < cells.size; i++) {
+			place(cells.get(i));
+		}
+	}
+
+	/**
+	 * Places the item inside it's cell. The item is only moved if it's position has changed.
+	 */
+	private void place(Cell cell) {
+		float left = columnX[cell.column] + cell.padLeft;
+		float contentWidth = spanWidth(cell) - cell.padLeft - cell.padRight;
+		float top = rowTop[cell.row] - cell.padTop;
+		float contentHeight = spanHeight(cell) - cell.padTop - cell.padBottom;
+
+		ALIGNMENT_X alignX = cell.alignX != null ? cell.alignX : (centerX ? ALIGNMENT_X.CENTER : ALIGNMENT_X.LEFT);
+		float x;
+		switch (alignX) {
+		case CENTER:
+			x = left + (contentWidth - cell.itemWidth) / 2;
+			break;
+		case RIGHT:
+			x = left + contentWidth - cell.itemWidth;
+			break;
+		default:
+			x = left;
+		}
+
+		float y;
+		if (cell.alignY == ALIGNMENT_Y.TOP) {
+			y = top - cell.itemHeight;
+		} else if (cell.alignY == ALIGNMENT_Y.BOTTOM) {
+			y = top - contentHeight;
+		} else {
+			y = top - (contentHeight + cell.itemHeight) / 2;
+		}
+
+		if (x != cell.itemX || y != cell.itemY) {
+			cell.itemX = x;
+			cell.itemY = y;
+			setBottomLeft(cell.item, x, y);
+		}
+	}
+
+	/**
+	 * Items don't agree on what setPosition means (a label's y is it's top), but getPosition is always the bottom-left corner.
+	 */
+	private static void setBottomLeft(ITableItem item, float x, float y) {
+		item.setPosition(x, y);
+		Vector2 result = item.getPosition();
+		if (result.x != x || result.y != y) {
+			item.setPosition(x + (x - result.x), y + (y - result.y));
+		}
+	}
+
+	private float spanWidth(Cell cell) {
+		float width = separationX * (cell.colspan - 1);
+		for (int c = cell.column; c < cell.column + cell.colspan; c++) {
+			width += columnWidths[c];
+		}
+		return width;
+	}
+
+	private float spanHeight(Cell cell) {
+		float height = separationY * (cell.rowspan - 1);
+		for (int r = cell.row; r < cell.row + cell.rowspan; r++) {
+			height += rowHeights[r];
+		}
+		return height;
+	}
+
 	public void drawTable(SpriteBatch batch) {
 		if (visible) {
-			for (ITableItem item : items) {
+			validate();
+			for (int i = 0; i < items.size; i++) {
+				items.get(i).draw(batch);
+			}
+		}
+	}
+
+	/**
+	 * Draws only the items visible by the camera. If the table itself is not visible, the laid out items are not tested one by one (the
+	 * items added with {@code addItem} can be anywhere, so they still are). Nested tables are drawn with the camera too.
+	 *
+	 * @param batch
+	 * @param camera
+	 */
+	public void drawTable(SpriteBatch batch, WorldCamera camera) {
+		if (!visible) {
+			return;
+		}
+		validate();
+		// Not counted by the camera: it's not a draw.
+		Rectangle view = camera.getView();
+		// Centered, the items start after position.x.
+		float left = columnX[0] - separationX;
+		float bottom = position.y - getHeight();
+		boolean tableVisible = left < view.x + view.width && left + getWidth() > view.x && bottom < view.y + view.height
+		      && position.y > view.y;
+		if (!tableVisible && cells.size == items.size) {
+			return;
+		}
+		for (int i = 0; i < items.size; i++) {
+			ITableItem item = items.get(i);
+			if (!tableVisible && cellsByItem.containsKey(item)) {
+				continue;
+			}
+			if (item instanceof Table) {
+				((Table) item).drawTable(batch, camera);
+				continue;
+			}
+			Vector2 position = item.getPosition();
+			if (camera.isVisible(position.x, position.y, item.getWidth(), item.getHeight())) {
 				item.draw(batch);
 			}
 		}
 	}
 
+	/**
+	 * Adds every item to the queue at layer. The items must be {@link ILayoutItem}s.
+	 *
+	 * @param queue
+	 * @param layer
+	 * @throws GdxRuntimeException
+	 *            if an item is not an ILayoutItem.
+	 */
+	public void drawTable(RenderQueue queue, int layer) {
+		if (visible) {
+			validate();
+			for (int i = 0; i < items.size; i++) {
+				ITableItem item = items.get(i);
+				if (!(item instanceof ILayoutItem)) {
+					throw new GdxRuntimeException("Only an ILayoutItem can be drawn into a RenderQueue: " + item);
+				}
+				((ILayoutItem) item).draw(queue, layer);
+			}
+		}
+	}
+
+	@Override
+	public void draw(SpriteBatch batch) {
+		drawTable(batch);
+	}
+
+	@Override
+	public void draw(RenderQueue queue, int layer) {
+		drawTable(queue, layer);
+	}
+
 	public void setScale(float scaleX, float scaleY) {
 		this.scaleX = scaleX;
 		this.scaleY = scaleY;
@@ -96,10 +580,12 @@ public class Table {
 
 	public void setSeparationX(float separationX) {
 		this.separationX = separationX * scaleX;
+		invalidateStructure();
 	}
 
 	public void setSeparationY(float separationY) {
 		this.separationY = separationY * scaleY;
+		invalidateStructure();
 	}
 
 	public void setVisible(boolean visible) {
@@ -110,10 +596,79 @@ public class Table {
 		return visible;
 	}
 
+	/**
+	 * Sets the area of the table, used to center the items.
+	 *
+	 * @param width
+	 * @param height
+	 */
+	public void setSize(float width, float height) {
+		this.width = width;
+		this.height = height;
+		invalidateStructure();
+	}
+
+	/**
+	 * @return the bottom-left corner of the laid out items.
+	 */
+	@Override
+	public Vector2 getPosition() {
+		validate();
+		return bottomLeft.set(position.x, position.y - getHeight());
+	}
+
+	/**
+	 * Moves the table so the bottom-left corner of it's items is at x, y.
+	 */
+	@Override
+	public void setPosition(float x, float y) {
+		float top = y + getHeight();
+		if (position.x != x || position.y != top) {
+			position.set(x, top);
+			positionDirty = true;
+			needsLayout = true;
+		}
+	}
+
+	@Override
+	public void setPositionX(float x) {
+		setPosition(x, getPosition().y);
+	}
+
+	@Override
+	public void setPositionY(float y) {
+		setPosition(position.x, y);
+	}
+
+	/**
+	 * @return the width of the laid out items, with the separation as margin.
+	 */
+	@Override
+	public float getWidth() {
+		validate();
+		return gridWidth + 2 * separationX;
+	}
+
+	/**
+	 * @return the height of the laid out items, with the separation as margin.
+	 */
+	@Override
+	public float getHeight() {
+		validate();
+		return gridHeight + 2 * separationY;
+	}
+
+	@Override
+	public void setTable(Table table) {
+		this.table = table;
+		invalidateStructure();
+	}
+
 	public void drawShape(ShapeRenderer sr) {
+		validate();
 		sr.rect(position.x, position.y, width, height);
-		for (ITableItem item : items) {
-			item.drawShape(sr);
+		for (int i = 0; i < items.size; i++) {
+			items.get(i).drawShape(sr);
 		}
 	}
 